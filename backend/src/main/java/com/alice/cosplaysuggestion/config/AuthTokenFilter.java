@@ -13,9 +13,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.alice.cosplaysuggestion.model.Role;
+import com.alice.cosplaysuggestion.service.TokenRevocationService;
 import com.alice.cosplaysuggestion.service.UserDetailsServiceImpl;
+import com.alice.cosplaysuggestion.service.UserDetailsServiceImpl.UserPrincipal;
 import com.alice.cosplaysuggestion.utils.JwtUtils;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,6 +34,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
     
     @Override
@@ -37,10 +44,11 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                                   FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.parseValidClaims(jwt) : null;
+            UserDetails userDetails = claims != null ? principalFromClaims(claims) : null;
+            if (userDetails != null) {
+                // parsed once here; downstream code reads them via JwtUtils.currentClaims(request)
+                request.setAttribute(JwtUtils.CLAIMS_ATTRIBUTE, claims);
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -56,6 +64,30 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    // Tokens carrying uid/role claims are trusted as-is (signature and expiry already verified);
+    // older tokens without them fall back to loading the account from the database.
+    // Both kinds go through the same revocation check.
+    private UserDetails principalFromClaims(Claims claims) {
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        String role = claims.get(JwtUtils.CLAIM_ROLE, String.class);
+        UserPrincipal principal;
+        if (userId == null || role == null) {
+            principal = (UserPrincipal) userDetailsService.loadUserByUsername(claims.getSubject());
+            if (!principal.isEnabled()) {
+                logger.debug("Rejected token of disabled user {}", principal.getId());
+                return null;
+            }
+            userId = principal.getId();
+        } else {
+            principal = null;
+        }
+        if (tokenRevocationService.isRevoked(userId, JwtUtils.issuedAtMillis(claims)) || tokenRevocationService.isDenied(claims.getId())) {
+            logger.debug("Rejected revoked token of user {}", userId);
+            return null;
+        }
+        return principal != null ? principal : UserPrincipal.fromClaims(userId, claims.getSubject(), Role.valueOf(role));
+    }
+    
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
         
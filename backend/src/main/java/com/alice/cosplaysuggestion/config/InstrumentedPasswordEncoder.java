@@ -0,0 +1,174 @@
+package com.alice.cosplaysuggestion.config;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.alice.cosplaysuggestion.exception.PasswordHashingBusyException;
+
+// Password encoder used by login, registration and password changes
+// - delegating ("{bcrypt}..." ids) with legacy un-prefixed BCrypt hashes still accepted
+// - configurable BCrypt cost; hashes with a different cost (higher or lower) or in another format
+//   report upgradeEncoding, so DaoAuthenticationProvider re-hashes them on the next successful login.
+//   Un-prefixed BCrypt hashes at the configured cost are current: re-hashing them would only add the prefix.
+// - every encode/match runs on a small bounded pool: a login storm queues there (or is refused
+//   when the queue is full) instead of burning every request thread on BCrypt
+// - refusals are PasswordHashingBusyException (503 + Retry-After), which ProviderManager rethrows as-is
+// - counts and timings are exposed through getStats()
+public class InstrumentedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final String ENCODING_ID = "bcrypt";
+    private static final String PREFIX = "{" + ENCODING_ID + "}";
+
+    private final DelegatingPasswordEncoder delegate;
+    private final int strength;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private final Timing encodes = new Timing();
+    private final Timing matches = new Timing();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong upgradesRequested = new AtomicLong();
+
+    public InstrumentedPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMs) {
+        this.strength = strength;
+        this.timeoutMs = timeoutMs;
+        this.delegate = new DelegatingPasswordEncoder(ENCODING_ID,
+                Map.of(ENCODING_ID, new BCryptPasswordEncoder(strength)));
+        // hashes stored before the "{bcrypt}" prefix was introduced; BCrypt verifies any cost
+        this.delegate.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "PasswordHash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodes);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matches);
+    }
+
+    // Re-hash only what the current settings would not produce: non-BCrypt formats ({noop}, other ids)
+    // and BCrypt hashes whose cost differs from the configured strength (either direction).
+    // "{bcrypt}$2a$10$..." and a legacy un-prefixed "$2a$10$..." at the configured cost are both current.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        String hash = encodedPassword.startsWith(PREFIX) ? encodedPassword.substring(PREFIX.length()) : encodedPassword;
+        boolean upgrade = costOf(hash) != strength;
+        if (upgrade) {
+            upgradesRequested.incrementAndGet();
+        }
+        return upgrade;
+    }
+
+    public HashingStats getStats() {
+        return new HashingStats(strength, encodes.snapshot(), matches.snapshot(), rejected.get(),
+                upgradesRequested.get(), executor.getActiveCount(), executor.getQueue().size());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> work, Timing timing) {
+        Future<T> job;
+        try {
+            job = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    timing.record(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw busy();
+        }
+        try {
+            return job.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            job.cancel(true);
+            rejected.incrementAndGet();
+            throw busy();
+        } catch (InterruptedException e) {
+            job.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InternalAuthenticationServiceException("Password hashing interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new InternalAuthenticationServiceException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Clients retry after roughly one hashing timeout, by then the queue has drained
+    private PasswordHashingBusyException busy() {
+        return new PasswordHashingBusyException("Server is busy, please try again in a moment",
+                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs)));
+    }
+
+    // "$2a$10$..." (also $2b$, $2y$) -> 10; -1 when the hash is not BCrypt
+    private static int costOf(String bcryptHash) {
+        if (bcryptHash.length() < 7 || !bcryptHash.startsWith("$2") || bcryptHash.charAt(3) != '$'
+                || bcryptHash.charAt(6) != '$' || "aby".indexOf(bcryptHash.charAt(2)) < 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(bcryptHash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Timing {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        TimingStats snapshot() {
+            long n = count.get();
+            return new TimingStats(n, n == 0 ? 0 : totalNanos.get() / n / 1_000_000.0, maxNanos.get() / 1_000_000.0);
+        }
+    }
+
+    public record TimingStats(long count, double avgMillis, double maxMillis) {}
+
+    public record HashingStats(int bcryptStrength, TimingStats encodes, TimingStats matches, long rejected,
+                               long upgradesRequested, int active, int queued) {}
+}
@@ -3,10 +3,12 @@ package com.alice.cosplaysuggestion.config;
 import java.util.Arrays;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import static org.springframework.http.HttpMethod.DELETE;
 import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.PATCH;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.HttpMethod.PUT;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,7 +18,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -42,11 +43,26 @@ public class SecurityConfig {
         return new AuthTokenFilter();
     }
     
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+    
+    // Concurrent BCrypt computations; keep well below the core count
+    @Value("${app.security.hashing.threads:2}")
+    private int hashingThreads;
+    
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+    
+    @Value("${app.security.hashing.timeout-ms:10000}")
+    private long hashingTimeoutMs;
+    
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // re-hash on successful login when the stored hash doesn't match the current settings
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
     
@@ -57,7 +73,8 @@ public class SecurityConfig {
     
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new InstrumentedPasswordEncoder(bcryptStrength, Math.max(1, hashingThreads),
+                hashingQueueCapacity, hashingTimeoutMs);
     }
     
     @Bean
@@ -72,6 +89,8 @@ public class SecurityConfig {
                     
                     // Authentication endpoints - public
                     .requestMatchers("/api/auth/login").permitAll()
+                    .requestMatchers("/api/auth/refresh").permitAll()
+                    .requestMatchers("/api/auth/logout").permitAll()
                     .requestMatchers("/api/auth/test").permitAll()
                     .requestMatchers("/api/auth/forgot-password").permitAll()
                     .requestMatchers("/api/auth/reset-password").permitAll()
@@ -117,6 +136,7 @@ public class SecurityConfig {
                     .requestMatchers("/api/admin/**").hasRole("ADMIN")
                     .requestMatchers(POST, "/api/gallery/**").hasRole("ADMIN")
                     .requestMatchers(PUT, "/api/gallery/**").hasRole("ADMIN")
+                    .requestMatchers(PATCH, "/api/gallery/**").hasRole("ADMIN")
                     .requestMatchers(DELETE, "/api/gallery/**").hasRole("ADMIN")
                     
                     // Festival admin endpoints - require ADMIN role
@@ -161,8 +181,10 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Resumable gallery uploads report progress through these headers
+        configuration.setExposedHeaders(Arrays.asList("Location", "Upload-Offset", "Upload-Length"));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,55 @@
+package com.alice.cosplaysuggestion.config;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.alice.cosplaysuggestion.storage.BlobStore;
+import com.alice.cosplaysuggestion.storage.CachingBlobStore;
+import com.alice.cosplaysuggestion.storage.InMemoryBlobStore;
+import com.alice.cosplaysuggestion.storage.LocalBlobStore;
+import com.alice.cosplaysuggestion.storage.S3BlobStore;
+
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+// Single media storage backend shared by gallery, avatars, the content store and deletion worker
+// app.storage.type:
+// - "local": files under app.gallery.storage.location / app.avatar.storage.location (development)
+// - "s3": AWS S3, with a local read-through cache tier unless app.storage.cache.enabled=false
+// - "memory": heap only (tests)
+@Configuration
+public class StorageConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageConfig.class);
+
+    @Bean
+    public BlobStore blobStore(@Value("${app.storage.type:local}") String storageType,
+                               @Value("${app.gallery.storage.location:uploads/gallery}") String galleryLocation,
+                               @Value("${app.avatar.storage.location}") String avatarLocation,
+                               @Value("${aws.s3.bucket.name:}") String s3BucketName,
+                               @Value("${aws.s3.region:ap-southeast-2}") String s3Region,
+                               @Value("${app.storage.cache.enabled:true}") boolean cacheEnabled,
+                               @Value("${app.storage.cache.location:uploads/cache/blobs}") String cacheLocation,
+                               @Value("${app.storage.cache.max-bytes:10737418240}") long cacheMaxBytes) throws IOException {
+        BlobStore store = switch (storageType.toLowerCase(Locale.ROOT)) {
+            case "s3" -> {
+                S3BlobStore s3 = new S3BlobStore(S3Client.builder().region(Region.of(s3Region)).build(), s3BucketName, s3Region);
+                yield cacheEnabled ? new CachingBlobStore(s3, Paths.get(cacheLocation), cacheMaxBytes) : s3;
+            }
+            case "memory" -> new InMemoryBlobStore();
+            default -> new LocalBlobStore(Map.of(
+                    "gallery", Paths.get(galleryLocation),
+                    "avatars", Paths.get(avatarLocation)));
+        };
+        log.info("Media storage: {}", store.describe());
+        return store;
+    }
+}
@@ -1,18 +1,14 @@
 package com.alice.cosplaysuggestion.controller;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -35,10 +31,18 @@ import com.alice.cosplaysuggestion.dto.ChangePasswordRequest;
 import com.alice.cosplaysuggestion.dto.RegisterRequest;
 import com.alice.cosplaysuggestion.dto.ResendVerificationRequest;
 import com.alice.cosplaysuggestion.dto.UpdateProfileRequest;
+import com.alice.cosplaysuggestion.exception.AvatarProcessingBusyException;
 import com.alice.cosplaysuggestion.service.AccountService;
+import com.alice.cosplaysuggestion.service.AvatarImageService;
 import com.alice.cosplaysuggestion.service.FileStorageService;
+import com.alice.cosplaysuggestion.service.ImageResizeService;
+import com.alice.cosplaysuggestion.service.MediaDeliveryService;
+import com.alice.cosplaysuggestion.service.MediaDeliveryService.MediaRedirect;
+import com.alice.cosplaysuggestion.storage.BlobStore;
+import com.alice.cosplaysuggestion.utils.MediaFileSender;
 
-import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -56,25 +60,32 @@ public class AccountController {
     
     private static final Logger logger = LoggerFactory.getLogger(AccountController.class);
     
+    // Avatar file names are unique per upload, so clients may keep them for a week
+    private static final long AVATAR_MAX_AGE = 604800;
+    
     @Autowired
     private AccountService accountService;
     
     @Autowired
     private FileStorageService fileStorageService;
     
-    @Value("${app.avatar.storage.location}")
-    private String avatarStorageLocation;
+    @Autowired
+    private ImageResizeService imageResizeService;
     
-    @Value("${app.avatar.url.pattern}")
-    private String avatarUrlPattern;
+    @Autowired
+    private AvatarImageService avatarImageService;
+    
+    @Autowired
+    private MediaFileSender mediaFileSender;
     
-    private Path avatarStoragePath;
+    @Autowired
+    private MediaDeliveryService mediaDeliveryService;
     
-    @PostConstruct
-    public void init() {
-        this.avatarStoragePath = Paths.get(avatarStorageLocation).toAbsolutePath().normalize();
-        logger.info("Account controller initialized with avatar path: {}", avatarStoragePath);
-    }
+    @Autowired
+    private BlobStore blobStore;
+    
+    @Value("${app.avatar.url.pattern}")
+    private String avatarUrlPattern;
     
     // User registration endpoint
     // POST /api/account/register
@@ -215,46 +226,65 @@ public class AccountController {
     }
     
     // Serve avatar files
-    // GET /api/account/avatar/{filename}
+    // GET /api/account/avatar/{filename}?w=64&q=80&fm=jpg (resize parameters are optional)
     @GetMapping("/avatar/{filename:.+}")
-    public ResponseEntity<Resource> serveAvatarFile(@PathVariable String filename) {
+    public void serveAvatarFile(@PathVariable String filename,
+                                @RequestParam(value = "w", required = false) Integer width,
+                                @RequestParam(value = "q", required = false) Integer quality,
+                                @RequestParam(value = "fm", required = false) String format,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean resize = width != null && width > 0 && imageResizeService.isResizable(filename);
+        if (mediaDeliveryService.isRedirectMode() && !resize) {
+            // S3 presigned/CDN mode: redirect instead of streaming the original through the backend
+            redirectAvatar(filename, response);
+            return;
+        }
+        
+        Path filePath;
         try {
-            Path filePath = avatarStoragePath.resolve(filename).normalize();
-            
-            // Security check: ensure the file is within the storage directory
-            if (!filePath.startsWith(avatarStoragePath)) {
-                logger.warn("Attempted to access file outside storage directory: {}", filename);
-                return ResponseEntity.notFound().build();
+            // local file, or the cached copy of the S3 object in proxy mode
+            filePath = blobStore.localFile("avatars/" + filename);
+        } catch (NoSuchFileException e) {
+            // Security check: the key resolved outside the storage directory
+            logger.warn("Attempted to access file outside storage directory: {}", filename);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        if (filePath == null) {
+            if (mediaDeliveryService.isRedirectMode()) {
+                // resize requested but there is no local cache tier to resize from: send the original
+                redirectAvatar(filename, response);
+                return;
             }
-            
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                // Determine content type
-                String contentType = null;
-                try {
-                    contentType = Files.probeContentType(filePath);
-                } catch (IOException ex) {
-                    logger.debug("Could not determine file type for: {}", filename);
-                }
-                
-                // Fallback to default content type if type could not be determined
-                if (contentType == null) {
-                    contentType = "application/octet-stream";
-                }
-                
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                        .body(resource);
-            } else {
-                logger.warn("File not found or not readable: {}", filename);
-                return ResponseEntity.notFound().build();
+            logger.warn("File not found or not readable: {}", filename);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        // Serve a resized variant when a width is requested (in every delivery mode)
+        // Widths snap to the fixed avatar sizes so the cache holds a handful of variants per avatar
+        if (resize) {
+            String fmt = imageResizeService.resolveFormat(format, filename);
+            try {
+                Path resized = imageResizeService.resize(filePath, avatarImageService.snapWidth(width), quality, fmt);
+                mediaFileSender.send(request, response, resized, filename, imageResizeService.contentTypeFor(fmt), AVATAR_MAX_AGE);
+                return;
+            } catch (ImageResizeService.ImageTooLargeException e) {
+                // too large to decode safely: fall through to the original
             }
-        } catch (Exception ex) {
-            logger.error("Error serving file: {}", filename, ex);
-            return ResponseEntity.internalServerError().build();
         }
+        
+        mediaFileSender.send(request, response, filePath, AVATAR_MAX_AGE);
+    }
+    
+    private void redirectAvatar(String filename, HttpServletResponse response) throws IOException {
+        MediaRedirect redirect = mediaDeliveryService.redirectFor("avatars/" + filename);
+        if (redirect == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        mediaFileSender.redirect(response, redirect.location(), redirect.maxAgeSeconds());
     }
     
     @PutMapping("/change-password")
@@ -344,6 +374,14 @@ public class AccountController {
             logger.info("Avatar uploaded successfully for user: {} with URL: {}", username, avatarUrl);
             return ResponseEntity.ok(new ApiResponse(true, "Avatar uploaded successfully", avatarUrl));
             
+        } catch (IllegalArgumentException e) {
+            // unreadable image or over the pixel limit
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse(false, e.getMessage()));
+        } catch (AvatarProcessingBusyException e) {
+            // avatar processing queue is full
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ApiResponse(false, e.getMessage()));
         } catch (Exception e) {
             logger.error("Error uploading avatar", e);
             return ResponseEntity.badRequest()
@@ -5,14 +5,34 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.alice.cosplaysuggestion.config.InstrumentedPasswordEncoder;
 import com.alice.cosplaysuggestion.dto.ApiResponse;
+import com.alice.cosplaysuggestion.model.Role;
+import com.alice.cosplaysuggestion.service.AccountNameIndex;
+import com.alice.cosplaysuggestion.service.AccountService;
+import com.alice.cosplaysuggestion.service.AvatarImageService;
+import com.alice.cosplaysuggestion.service.ContentStore;
+import com.alice.cosplaysuggestion.service.EmailOutboxService;
+import com.alice.cosplaysuggestion.service.GalleryListingCache;
+import com.alice.cosplaysuggestion.service.LoginAttemptTracker;
+import com.alice.cosplaysuggestion.service.StorageDeletionService;
 import com.alice.cosplaysuggestion.service.TokenCleanupService;
+import com.alice.cosplaysuggestion.service.TokenRevocationService;
+import com.alice.cosplaysuggestion.service.UserPrincipalCache;
+import com.alice.cosplaysuggestion.service.VerifiedEmailMigration;
+import com.alice.cosplaysuggestion.service.VideoProcessingService;
+import com.alice.cosplaysuggestion.storage.BlobStore;
+import com.alice.cosplaysuggestion.storage.CachingBlobStore;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -33,6 +53,48 @@ public class AdminController {
     @Autowired
     private TokenCleanupService tokenCleanupService;
     
+    @Autowired
+    private GalleryListingCache galleryListingCache;
+    
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+    
+    @Autowired
+    private ContentStore contentStore;
+    
+    @Autowired
+    private VideoProcessingService videoProcessingService;
+    
+    @Autowired
+    private BlobStore blobStore;
+    
+    @Autowired
+    private AvatarImageService avatarImageService;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private AccountService accountService;
+    
+    @Autowired
+    private UserPrincipalCache principalCache;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+    
+    @Autowired
+    private AccountNameIndex accountNameIndex;
+    
+    @Autowired
+    private VerifiedEmailMigration verifiedEmailMigration;
+    
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+    
     // Manual cleanup of expired tokens
     // POST /api/admin/cleanup-tokens
     @PostMapping("/cleanup-tokens")
@@ -69,6 +131,143 @@ public class AdminController {
         }
     }
     
+    // Sign a user out everywhere (ban / compromised account): tokens issued before now are rejected
+    // POST /api/admin/accounts/{id}/revoke-tokens
+    @PostMapping("/accounts/{id}/revoke-tokens")
+    public ResponseEntity<?> revokeTokens(@PathVariable Long id) {
+        tokenRevocationService.revokeUser(id);
+        return ResponseEntity.ok(ApiResponse.success("Tokens revoked", id));
+    }
+    
+    // Enable or disable an account
+    // PUT /api/admin/accounts/{id}/active?active=false
+    @PutMapping("/accounts/{id}/active")
+    public ResponseEntity<?> setAccountActive(@PathVariable Long id, @RequestParam boolean active) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Account updated", accountService.setAccountActive(id, active)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    // Change an account's role
+    // PUT /api/admin/accounts/{id}/role?role=ADMIN
+    @PutMapping("/accounts/{id}/role")
+    public ResponseEntity<?> changeRole(@PathVariable Long id, @RequestParam Role role) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Role updated", accountService.changeRole(id, role)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    // Principal cache hit ratio (login and legacy-token lookups)
+    // GET /api/admin/principal-cache-stats
+    @GetMapping("/principal-cache-stats")
+    public ResponseEntity<?> getPrincipalCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("Principal cache statistics retrieved", principalCache.getStats()));
+    }
+    
+    // Password hashing pool: BCrypt cost, timings, queue depth, refused requests
+    // GET /api/admin/password-hashing-stats
+    @GetMapping("/password-hashing-stats")
+    public ResponseEntity<?> getPasswordHashingStats() {
+        if (passwordEncoder instanceof InstrumentedPasswordEncoder instrumented) {
+            return ResponseEntity.ok(ApiResponse.success("Password hashing statistics retrieved", instrumented.getStats()));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Password hashing is not instrumented", null));
+    }
+    
+    // Login / password reset throttling counters
+    // GET /api/admin/auth-attempt-stats
+    @GetMapping("/auth-attempt-stats")
+    public ResponseEntity<?> getAuthAttemptStats() {
+        return ResponseEntity.ok(ApiResponse.success("Auth attempt statistics retrieved", loginAttemptTracker.getStats()));
+    }
+    
+    // Username/email availability Bloom filter
+    // GET /api/admin/account-name-index-stats
+    @GetMapping("/account-name-index-stats")
+    public ResponseEntity<?> getAccountNameIndexStats() {
+        return ResponseEntity.ok(ApiResponse.success("Account name index statistics retrieved", accountNameIndex.getStats()));
+    }
+    
+    // Rebuild the availability filter now (e.g. after bulk account changes)
+    // POST /api/admin/account-name-index/rebuild
+    @PostMapping("/account-name-index/rebuild")
+    public ResponseEntity<?> rebuildAccountNameIndex() {
+        accountNameIndex.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("Account name index rebuilt", accountNameIndex.getStats()));
+    }
+    
+    // Progress of the "_V" suffix -> email_verified migration
+    // GET /api/admin/email-migration-stats
+    @GetMapping("/email-migration-stats")
+    public ResponseEntity<?> getEmailMigrationStats() {
+        return ResponseEntity.ok(ApiResponse.success("Email migration statistics retrieved", verifiedEmailMigration.getStats()));
+    }
+    
+    // Registration email outbox: queue sizes and recent messages
+    // GET /api/admin/email-outbox
+    @GetMapping("/email-outbox")
+    public ResponseEntity<?> getEmailOutbox() {
+        return ResponseEntity.ok(ApiResponse.success("Email outbox report retrieved", emailOutboxService.getReport()));
+    }
+    
+    // Get gallery listing cache statistics
+    // GET /api/admin/gallery-cache-stats
+    @GetMapping("/gallery-cache-stats")
+    public ResponseEntity<?> getGalleryCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("Gallery cache statistics retrieved", galleryListingCache.getStats()));
+    }
+    
+    // Progress of background storage deletion (deleted gallery folders)
+    // GET /api/admin/storage-deletions
+    @GetMapping("/storage-deletions")
+    public ResponseEntity<?> getStorageDeletions() {
+        return ResponseEntity.ok(ApiResponse.success("Storage deletion report retrieved", storageDeletionService.getReport()));
+    }
+    
+    // Deduplicated media store statistics
+    // GET /api/admin/content-store-stats
+    @GetMapping("/content-store-stats")
+    public ResponseEntity<?> getContentStoreStats() {
+        return ResponseEntity.ok(ApiResponse.success("Content store statistics retrieved", contentStore.getStats()));
+    }
+    
+    // Local read-through cache in front of S3 (only present in S3 mode with the cache enabled)
+    // GET /api/admin/storage-cache-stats
+    @GetMapping("/storage-cache-stats")
+    public ResponseEntity<?> getStorageCacheStats() {
+        if (blobStore instanceof CachingBlobStore cache) {
+            return ResponseEntity.ok(ApiResponse.success("Storage cache statistics retrieved", cache.getStats()));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Storage cache is not enabled", blobStore.describe()));
+    }
+
+    // Avatar processing pool status
+    // GET /api/admin/avatar-processing-stats
+    @GetMapping("/avatar-processing-stats")
+    public ResponseEntity<?> getAvatarProcessingStats() {
+        return ResponseEntity.ok(ApiResponse.success("Avatar processing statistics retrieved", avatarImageService.getStats()));
+    }
+    
+    // Video processing queue status
+    // GET /api/admin/video-jobs
+    @GetMapping("/video-jobs")
+    public ResponseEntity<?> getVideoJobs() {
+        return ResponseEntity.ok(ApiResponse.success("Video processing statistics retrieved", videoProcessingService.getStats()));
+    }
+    
+    // Queue videos uploaded before background processing existed
+    // POST /api/admin/video-jobs/backfill
+    @PostMapping("/video-jobs/backfill")
+    public ResponseEntity<?> backfillVideoJobs() {
+        int queued = videoProcessingService.queueUnprocessed();
+        logger.info("Queued {} unprocessed videos for background processing", queued);
+        return ResponseEntity.ok(ApiResponse.success("Video backfill queued", "Queued " + queued + " videos"));
+    }
+    
     // Health check for admin endpoints
     // GET /api/admin/health
     @GetMapping("/health")
@@ -6,7 +6,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,9 +22,14 @@ import com.alice.cosplaysuggestion.dto.ApiResponse;
 import com.alice.cosplaysuggestion.dto.ForgotPasswordRequest;
 import com.alice.cosplaysuggestion.dto.LoginRequest;
 import com.alice.cosplaysuggestion.dto.LoginResponse;
+import com.alice.cosplaysuggestion.dto.RefreshTokenRequest;
 import com.alice.cosplaysuggestion.dto.ResetPasswordRequest;
+import com.alice.cosplaysuggestion.exception.PasswordHashingBusyException;
+import com.alice.cosplaysuggestion.exception.TooManyAttemptsException;
 import com.alice.cosplaysuggestion.service.AccountService;
+import com.alice.cosplaysuggestion.utils.JwtUtils;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
@@ -58,6 +66,20 @@ public class AuthController {
             logger.info("User {} logged in successfully", loginRequest.getUsernameOrEmail());
             return ResponseEntity.ok(ApiResponse.success("Login successful", loginResponse));
             
+        } catch (TooManyAttemptsException e) {
+            logger.warn("Login throttled for user {}: {}", loginRequest.getUsernameOrEmail(), e.getMessage());
+            return tooManyAttempts(e);
+        } catch (PasswordHashingBusyException e) {
+            // password hashing pool is saturated (login storm)
+            logger.warn("Login deferred for user {}: {}", loginRequest.getUsernameOrEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (AuthenticationServiceException e) {
+            // account lookup or hashing failed internally; the message may carry internals, so it is only logged
+            logger.error("Login error for user {}: {}", loginRequest.getUsernameOrEmail(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("An unexpected error occurred. Please try again later."));
         } catch (Exception e) {
             logger.warn("Login failed for user {}: {}", loginRequest.getUsernameOrEmail(), e.getMessage());
             return ResponseEntity.badRequest()
@@ -65,6 +87,28 @@ public class AuthController {
         }
     }
     
+    // Exchange a refresh token for a new access token (the refresh token is rotated)
+    // POST /api/auth/refresh
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            LoginResponse loginResponse = accountService.refresh(request.getRefreshToken());
+            return ResponseEntity.ok(ApiResponse.success("Token refreshed", loginResponse));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    // Logout: revokes the refresh token chain and denies the current access token until it expires
+    // POST /api/auth/logout
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) RefreshTokenRequest request,
+                                    HttpServletRequest httpRequest) {
+        accountService.logout(request != null ? request.getRefreshToken() : null, JwtUtils.currentClaims(httpRequest));
+        return ResponseEntity.ok(ApiResponse.success("Logged out"));
+    }
+    
     // Email verification endpoint
     // GET /api/auth/verify-email?token=xxx
     @GetMapping("/verify-email")
@@ -115,6 +159,9 @@ public class AuthController {
                     .body(ApiResponse.error("Có lỗi xảy ra khi gửi email. Vui lòng thử lại sau."));
             }
             
+        } catch (TooManyAttemptsException e) {
+            logger.warn("Forgot password throttled for {}: {}", request.getUsernameOrEmail(), e.getMessage());
+            return tooManyAttempts(e);
         } catch (Exception e) {
             logger.error("Error during forgot password request: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -140,6 +187,9 @@ public class AuthController {
                     .body(ApiResponse.error("Có lỗi xảy ra khi đặt lại mật khẩu."));
             }
             
+        } catch (TooManyAttemptsException e) {
+            logger.warn("Password reset throttled for {}: {}", request.getUsernameOrEmail(), e.getMessage());
+            return tooManyAttempts(e);
         } catch (Exception e) {
             logger.warn("Password reset failed: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -147,6 +197,12 @@ public class AuthController {
         }
     }
     
+    private ResponseEntity<?> tooManyAttempts(TooManyAttemptsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(ApiResponse.error(e.getMessage()));
+    }
+    
     // Test endpoint to check if auth service is working
     // GET /api/auth/test
     @GetMapping("/test")
@@ -1,13 +1,17 @@
 package com.alice.cosplaysuggestion.controller;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,15 +21,27 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.alice.cosplaysuggestion.dto.ApiResponse;
-import com.alice.cosplaysuggestion.dto.GalleryItemDto;
-import com.alice.cosplaysuggestion.model.GalleryItem;
+import com.alice.cosplaysuggestion.dto.BulkItemRequest;
+import com.alice.cosplaysuggestion.service.GalleryListingCache;
+import com.alice.cosplaysuggestion.service.GalleryListingCache.CachedListing;
 import com.alice.cosplaysuggestion.service.GalleryService;
+import com.alice.cosplaysuggestion.service.ImageResizeService;
+import com.alice.cosplaysuggestion.service.MediaDeliveryService;
+import com.alice.cosplaysuggestion.service.MediaDeliveryService.MediaRedirect;
+import com.alice.cosplaysuggestion.storage.BlobStore;
+import com.alice.cosplaysuggestion.utils.MediaFileSender;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/gallery")
@@ -39,42 +55,98 @@ import com.alice.cosplaysuggestion.service.GalleryService;
     maxAge = 3600
 )
 public class GalleryController {
+    // Legacy (not content-addressed) gallery files can be overwritten in place under the same
+    // name, so keep their browser cache short; "{sha256}.ext" keys get the immutable header instead
+    private static final long MEDIA_MAX_AGE = 600;
+
+    // Sub directories of generated video variants: source content hash or legacy item id
+    private static final Pattern VARIANT_DIR = Pattern.compile("[0-9a-f]{64}|item-[0-9]+");
+
     // API tổng hợp: trả về danh sách tất cả folder gallery (không lọc isActive)
     @GetMapping("")
-    public ResponseEntity<?> getAllGalleryFolders() {
-        return ResponseEntity.ok(ApiResponse.success("Danh sách gallery", galleryService.listAllFolders()));
+    public ResponseEntity<?> getAllGalleryFolders(WebRequest request) {
+        return cachedListing(request, listingCache.allFolders(), "Danh sách gallery");
     }
 
     private final GalleryService galleryService;
-    private final Path galleryRoot = Paths.get("uploads/gallery").toAbsolutePath().normalize();
+    private final ImageResizeService imageResizeService;
+    private final MediaFileSender mediaFileSender;
+    private final MediaDeliveryService mediaDeliveryService;
+    private final GalleryListingCache listingCache;
+    private final BlobStore blobStore;
 
-    public GalleryController(GalleryService galleryService) throws IOException {
+    public GalleryController(GalleryService galleryService, ImageResizeService imageResizeService,
+                             MediaFileSender mediaFileSender, MediaDeliveryService mediaDeliveryService,
+                             GalleryListingCache listingCache, BlobStore blobStore) {
         this.galleryService = galleryService;
-        Files.createDirectories(galleryRoot);
+        this.imageResizeService = imageResizeService;
+        this.mediaFileSender = mediaFileSender;
+        this.mediaDeliveryService = mediaDeliveryService;
+        this.listingCache = listingCache;
+        this.blobStore = blobStore;
     }
 
     // Public list folders (không lọc isActive)
     @GetMapping("/folders")
-    public ResponseEntity<?> listFolders() {
-        return ResponseEntity.ok(ApiResponse.success("Danh sách thư mục", galleryService.listAllFolders()));
+    public ResponseEntity<?> listFolders(WebRequest request) {
+        return cachedListing(request, listingCache.allFolders(), "Danh sách thư mục");
     }
 
     // Public list active folders only
     @GetMapping("/folders/active")
-    public ResponseEntity<?> listActiveFolders() {
-        return ResponseEntity.ok(ApiResponse.success("Danh sách thư mục active", galleryService.listActiveFolders()));
+    public ResponseEntity<?> listActiveFolders(WebRequest request) {
+        return cachedListing(request, listingCache.activeFolders(), "Danh sách thư mục active");
     }
 
     // Public search folders by name
     @GetMapping("/search")
-    public ResponseEntity<?> searchFolders(@RequestParam(value = "q", required = false) String query) {
-        return ResponseEntity.ok(ApiResponse.success("Kết quả tìm kiếm", galleryService.searchFoldersByName(query)));
+    public ResponseEntity<?> searchFolders(@RequestParam(value = "q", required = false) String query, WebRequest request) {
+        return cachedListing(request, listingCache.search(query), "Kết quả tìm kiếm");
+    }
+
+    // Cached listings carry a precomputed ETag; returning null after checkNotModified sends the 304
+    private ResponseEntity<?> cachedListing(WebRequest request, CachedListing listing, String message) {
+        if (request.checkNotModified(listing.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(listing.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.success(message, listing.data()));
     }
 
     // Public list items of folder (trả về tất cả item)
     @GetMapping("/folders/{id}/items")
     public ResponseEntity<?> listItems(@PathVariable Long id) {
-        return ResponseEntity.ok(ApiResponse.success("Danh sách file", galleryService.listAllItems(id)));
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Danh sách file", galleryService.listAllItems(id)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Public paginated folder listing: /folders/page?cursor=...&size=50&active=true
+    @GetMapping("/folders/page")
+    public ResponseEntity<?> pageFolders(@RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "size", defaultValue = "50") int size,
+                                         @RequestParam(value = "active", defaultValue = "false") boolean activeOnly) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Danh sách thư mục", galleryService.pageFolders(cursor, size, activeOnly)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Public paginated item listing: /folders/{id}/items/page?cursor=...&size=50
+    @GetMapping("/folders/{id}/items/page")
+    public ResponseEntity<?> pageItems(@PathVariable Long id,
+                                       @RequestParam(value = "cursor", required = false) String cursor,
+                                       @RequestParam(value = "size", defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Danh sách file", galleryService.pageItems(id, cursor, size)));
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
 
     // Admin: upload zip
@@ -117,6 +189,13 @@ public class GalleryController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Resource> downloadFolder(@PathVariable Long id) {
         try {
+            if (mediaDeliveryService.isRedirectMode()) {
+                MediaRedirect redirect = galleryService.downloadZipRedirect(id);
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(redirect.location())
+                        .header(HttpHeaders.CACHE_CONTROL, "private, max-age=" + redirect.maxAgeSeconds())
+                        .build();
+            }
             Path zipFile = galleryService.downloadZip(id);
             Resource resource = new UrlResource(zipFile.toUri());
             return ResponseEntity.ok()
@@ -144,13 +223,36 @@ public class GalleryController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> setItemActive(@PathVariable Long id, @RequestParam("active") boolean active) {
         try {
-            GalleryItem item = galleryService.setItemActive(id, active);
-            return ResponseEntity.ok(ApiResponse.success("Cập nhật trạng thái", new GalleryItemDto(item)));
+            return ResponseEntity.ok(ApiResponse.success("Cập nhật trạng thái", galleryService.setItemActive(id, active)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Cập nhật thất bại: " + e.getMessage()));
+        }
+    }
+
+    // Admin: bật/tắt nhiều item cùng lúc
+    @PutMapping("/items/active")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> setItemsActive(@Valid @RequestBody BulkItemRequest request, @RequestParam("active") boolean active) {
+        try {
+            int updated = galleryService.setItemsActive(request.getIds(), active);
+            return ResponseEntity.ok(ApiResponse.success("Cập nhật trạng thái", Map.of("updated", updated)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Cập nhật thất bại: " + e.getMessage()));
         }
     }
 
+    // Admin: xoá nhiều item cùng lúc
+    @PostMapping("/items/delete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deleteItems(@Valid @RequestBody BulkItemRequest request) {
+        try {
+            int deleted = galleryService.deleteItems(request.getIds());
+            return ResponseEntity.ok(ApiResponse.success("Đã xoá item", Map.of("deleted", deleted)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Xoá thất bại: " + e.getMessage()));
+        }
+    }
+
     // Admin: xoá item
     @DeleteMapping("/items/{id}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -174,25 +276,63 @@ public class GalleryController {
         }
     }
 
-    // Serve static file from uploads/gallery
+    // Serve gallery media: straight from disk in local mode, from the local cache tier in S3 proxy mode,
+    // as a redirect to S3/CDN in presigned/cdn mode (originals only, resized variants are served here)
+    // Optional w/q/fm parameters return a resized image variant (e.g. ?w=480&q=75&fm=jpg)
     @GetMapping("/{storage}/{sub}/{name:.+}")
-    public ResponseEntity<Resource> serve(@PathVariable String storage, @PathVariable String sub, @PathVariable String name) {
+    public void serve(@PathVariable String storage, @PathVariable String sub, @PathVariable String name,
+                      @RequestParam(value = "w", required = false) Integer width,
+                      @RequestParam(value = "q", required = false) Integer quality,
+                      @RequestParam(value = "fm", required = false) String format,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean variant = GalleryService.VARIANT_STORAGE.equals(storage) && VARIANT_DIR.matcher(sub).matches();
+        if (!variant && !"pic".equals(sub) && !"video".equals(sub) && !"thumb".equals(sub)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String key = "gallery/" + storage + "/" + sub + "/" + name;
+        boolean resize = width != null && width > 0 && imageResizeService.isResizable(name);
+        if (mediaDeliveryService.isRedirectMode() && !resize) {
+            // S3 presigned/CDN mode: the browser fetches the original from S3 directly
+            redirect(key, response);
+            return;
+        }
+        // Resized variants are produced here in every mode (from the local cache tier when on S3)
+        Path file;
         try {
-            if (!"pic".equals(sub) && !"video".equals(sub) && !"thumb".equals(sub)) return ResponseEntity.notFound().build();
-            Path file = galleryRoot.resolve(storage).resolve(sub).resolve(name).normalize();
-            if (!file.startsWith(galleryRoot)) return ResponseEntity.notFound().build();
-            Resource resource = new UrlResource(file.toUri());
-            if (!resource.exists() || !resource.isReadable()) return ResponseEntity.notFound().build();
-
-            String contentType = Files.probeContentType(file);
-            if (contentType == null) contentType = "application/octet-stream";
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            file = blobStore.localFile(key);
+        } catch (NoSuchFileException e) {
+            file = null; // key outside the storage root
+        }
+        if (file == null) {
+            if (mediaDeliveryService.isRedirectMode()) {
+                // no local cache tier to resize from: fall back to the original
+                redirect(key, response);
+                return;
+            }
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+
+        if (resize) {
+            String fmt = imageResizeService.resolveFormat(format, name);
+            try {
+                Path resized = imageResizeService.resize(file, imageResizeService.snapWidth(width), quality, fmt);
+                mediaFileSender.send(request, response, resized, name, imageResizeService.contentTypeFor(fmt), MEDIA_MAX_AGE);
+                return;
+            } catch (ImageResizeService.ImageTooLargeException e) {
+                // too large to decode safely: fall through to the original
+            }
+        }
+        mediaFileSender.send(request, response, file, MEDIA_MAX_AGE);
     }
-}
 
+    private void redirect(String key, HttpServletResponse response) throws IOException {
+        MediaRedirect redirect = mediaDeliveryService.redirectFor(key);
+        if (redirect == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        mediaFileSender.redirect(response, redirect.location(), redirect.maxAgeSeconds());
+    }
+}
@@ -0,0 +1,131 @@
+package com.alice.cosplaysuggestion.controller;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.alice.cosplaysuggestion.dto.ApiResponse;
+import com.alice.cosplaysuggestion.dto.CreateUploadRequest;
+import com.alice.cosplaysuggestion.model.UploadSession;
+import com.alice.cosplaysuggestion.service.UploadSessionService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+
+// Resumable chunked uploads (admin)
+// 1. POST   /api/gallery/uploads               -> 201, Location + Upload-Offset: 0
+// 2. PATCH  /api/gallery/uploads/{id}          raw bytes, header Upload-Offset -> 204, new Upload-Offset
+// 3. HEAD/GET /api/gallery/uploads/{id}        current Upload-Offset after a dropped connection
+// 4. POST   /api/gallery/uploads/{id}/complete -> created folder (ZIP) or item (ITEM)
+@RestController
+@RequestMapping("/api/gallery/uploads")
+@CrossOrigin(
+    origins = {
+        "http://localhost:3000",
+        "https://main.d3gxp9k6k5djri.amplifyapp.com",
+        "https://cosplaysg.ddns.net"
+    },
+    allowCredentials = "true",
+    exposedHeaders = { "Location", GalleryUploadController.UPLOAD_OFFSET, GalleryUploadController.UPLOAD_LENGTH },
+    maxAge = 3600
+)
+@PreAuthorize("hasRole('ADMIN')")
+public class GalleryUploadController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+    static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final UploadSessionService uploadSessionService;
+
+    public GalleryUploadController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    @PostMapping("")
+    public ResponseEntity<?> create(@Valid @RequestBody CreateUploadRequest request, Authentication authentication) {
+        try {
+            UploadSession session = uploadSessionService.create(request, authentication.getName());
+            return ResponseEntity.created(URI.create("/api/gallery/uploads/" + session.getId()))
+                    .header(UPLOAD_OFFSET, "0")
+                    .header(UPLOAD_LENGTH, String.valueOf(session.getTotalSize()))
+                    .body(ApiResponse.success("Đã tạo phiên upload", session));
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id) {
+        try {
+            UploadSession session = uploadSessionService.get(id);
+            return ResponseEntity.ok()
+                    .header(UPLOAD_OFFSET, String.valueOf(uploadSessionService.currentOffset(id)))
+                    .header(UPLOAD_LENGTH, String.valueOf(session.getTotalSize()))
+                    .header("Cache-Control", "no-store")
+                    .body(ApiResponse.success("Trạng thái upload", session));
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Body is read straight from the request stream (Content-Type: application/offset+octet-stream)
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> appendChunk(@PathVariable String id,
+                                         @RequestHeader(UPLOAD_OFFSET) long offset,
+                                         HttpServletRequest request) {
+        try {
+            UploadSession session = uploadSessionService.appendChunk(id, offset, request.getInputStream());
+            return ResponseEntity.noContent()
+                    .header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes()))
+                    .build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            // offset mismatch or concurrent writer: client should HEAD and resume
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Upload thất bại: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Tải lên thành công", uploadSessionService.complete(id)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Upload thất bại: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(@PathVariable String id) {
+        try {
+            uploadSessionService.abort(id);
+            return ResponseEntity.ok(ApiResponse.success("Đã huỷ upload"));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
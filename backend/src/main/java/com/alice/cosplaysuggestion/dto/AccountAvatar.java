@@ -0,0 +1,4 @@
+package com.alice.cosplaysuggestion.dto;
+
+// Avatar URL of an account, read in id order to recount avatar blob references
+public record AccountAvatar(Long id, String avatar) {}
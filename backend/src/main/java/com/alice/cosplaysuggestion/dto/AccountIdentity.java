@@ -0,0 +1,4 @@
+package com.alice.cosplaysuggestion.dto;
+
+// Login identifiers of an account, read in id order to (re)build AccountNameIndex
+public record AccountIdentity(Long id, String username, String email) {}
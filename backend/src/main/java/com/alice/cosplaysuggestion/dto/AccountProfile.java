@@ -0,0 +1,13 @@
+package com.alice.cosplaysuggestion.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.alice.cosplaysuggestion.model.Gender;
+import com.alice.cosplaysuggestion.model.Provider;
+import com.alice.cosplaysuggestion.model.Role;
+
+// Profile columns of an account (no password), read without loading a managed Account entity
+public record AccountProfile(Long id, String fullName, LocalDate birthDay, String username, String email,
+                             Double height, Double weight, Gender gender, String avatar, Boolean isActive,
+                             Role role, Provider provider, LocalDateTime createdAt, Boolean emailVerified) {}
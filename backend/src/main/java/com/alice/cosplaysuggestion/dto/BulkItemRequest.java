@@ -0,0 +1,17 @@
+package com.alice.cosplaysuggestion.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+// Body of the bulk item endpoints (activate / deactivate / delete)
+public class BulkItemRequest {
+
+    @NotEmpty(message = "Item ids are required")
+    @Size(max = 10000, message = "At most 10000 items per request")
+    private List<Long> ids;
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
@@ -0,0 +1,45 @@
+package com.alice.cosplaysuggestion.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+// Body of POST /api/gallery/uploads
+public class CreateUploadRequest {
+
+    // ZIP (new folder) or ITEM (file into folderId)
+    @NotBlank(message = "Kind is required")
+    private String kind;
+
+    @NotBlank(message = "File name is required")
+    @Size(max = 255, message = "File name must not exceed 255 characters")
+    private String fileName;
+
+    @NotNull(message = "Total size is required")
+    @Positive(message = "Total size must be positive")
+    private Long totalSize;
+
+    @Size(max = 100, message = "Display name must not exceed 100 characters")
+    private String displayName;
+
+    private Long folderId;
+
+    // IMAGE / VIDEO for ITEM uploads
+    private String type;
+
+    public CreateUploadRequest() {}
+
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(String displayName) { this.displayName = displayName; }
+    public Long getFolderId() { return folderId; }
+    public void setFolderId(Long folderId) { this.folderId = folderId; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+}
@@ -0,0 +1,16 @@
+package com.alice.cosplaysuggestion.dto;
+
+// Lightweight folder row for paginated listings (JPQL constructor projection)
+public class GalleryFolderSummary {
+    public Long id;
+    public String displayName;
+    public String thumbnailUrl;
+    public Boolean isActive;
+
+    public GalleryFolderSummary(Long id, String displayName, String thumbnailUrl, Boolean isActive) {
+        this.id = id;
+        this.displayName = displayName;
+        this.thumbnailUrl = thumbnailUrl;
+        this.isActive = isActive;
+    }
+}
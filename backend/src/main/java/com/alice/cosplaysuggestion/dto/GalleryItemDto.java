@@ -1,23 +1,74 @@
 package com.alice.cosplaysuggestion.dto;
 
+import java.time.LocalDateTime;
+
 import com.alice.cosplaysuggestion.model.GalleryItem;
+import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+import com.alice.cosplaysuggestion.model.GalleryItem.VideoStatus;
 
 public class GalleryItemDto {
     public Long id;
+    public Long folderId;
+    public String folderStorageName;
     public String fileName;
     public String subDir;
     public String itemType;
     public String fileUrl;
     public Boolean isActive;
     public String createdAt;
+    // Video variants (null until background processing has finished)
+    public String videoStatus;
+    public String posterUrl;
+    public String streamUrl;
+    public String hlsUrl;
+    // Image metadata (null for videos and items ingested before it was recorded)
+    public Integer width;
+    public Integer height;
+    public Short orientation;
+    public String blurhash;
+
+    // JPQL constructor projection (GalleryItemRepository.findDtos*): folder columns come from the join,
+    // so no entity or lazy folder proxy is ever materialized
+    public GalleryItemDto(Long id, Long folderId, String folderStorageName, String fileName, String subDir,
+                          ItemType itemType, String fileUrl, Boolean isActive, LocalDateTime createdAt,
+                          VideoStatus videoStatus, String posterUrl, String streamUrl, String hlsUrl,
+                          Integer width, Integer height, Short orientation, String blurhash) {
+        this.id = id;
+        this.folderId = folderId;
+        this.folderStorageName = folderStorageName;
+        this.fileName = fileName;
+        this.subDir = subDir;
+        this.itemType = itemType != null ? itemType.name() : null;
+        this.fileUrl = fileUrl;
+        this.isActive = isActive;
+        this.createdAt = createdAt != null ? createdAt.toString() : null;
+        this.videoStatus = videoStatus != null ? videoStatus.name() : null;
+        this.posterUrl = posterUrl;
+        this.streamUrl = streamUrl;
+        this.hlsUrl = hlsUrl;
+        this.width = width;
+        this.height = height;
+        this.orientation = orientation;
+        this.blurhash = blurhash;
+    }
 
+    // folderStorageName is left null here: reading it would initialize the lazy folder
     public GalleryItemDto(GalleryItem item) {
         this.id = item.getId();
+        this.folderId = item.getFolder() != null ? item.getFolder().getId() : null;
         this.fileName = item.getFileName();
         this.subDir = item.getSubDir();
         this.itemType = item.getItemType() != null ? item.getItemType().name() : null;
         this.fileUrl = item.getFileUrl();
         this.isActive = item.getIsActive();
         this.createdAt = item.getCreatedAt() != null ? item.getCreatedAt().toString() : null;
+        this.videoStatus = item.getVideoStatus() != null ? item.getVideoStatus().name() : null;
+        this.posterUrl = item.getPosterUrl();
+        this.streamUrl = item.getStreamUrl();
+        this.hlsUrl = item.getHlsUrl();
+        this.width = item.getWidth();
+        this.height = item.getHeight();
+        this.orientation = item.getOrientation();
+        this.blurhash = item.getBlurhash();
     }
 }
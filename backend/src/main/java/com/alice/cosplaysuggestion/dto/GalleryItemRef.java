@@ -0,0 +1,8 @@
+package com.alice.cosplaysuggestion.dto;
+
+import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+import com.alice.cosplaysuggestion.model.GalleryItem.VideoStatus;
+
+// What a delete needs to know about an item, fetched with its folder's storage name in one query
+public record GalleryItemRef(Long id, Long folderId, String storageName, String subDir, String fileName,
+                             ItemType itemType, String contentHash, VideoStatus videoStatus) {}
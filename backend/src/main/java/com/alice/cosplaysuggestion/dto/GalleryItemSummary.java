@@ -0,0 +1,36 @@
+package com.alice.cosplaysuggestion.dto;
+
+import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+
+// Lightweight item row for paginated listings (JPQL constructor projection)
+public class GalleryItemSummary {
+    public Long id;
+    public String fileName;
+    public String fileUrl;
+    public String itemType;
+    public Boolean isActive;
+    public String posterUrl;
+    public String streamUrl;
+    public String hlsUrl;
+    public Integer width;
+    public Integer height;
+    public Short orientation;
+    public String blurhash;
+
+    public GalleryItemSummary(Long id, String fileName, String fileUrl, ItemType itemType, Boolean isActive,
+                              String posterUrl, String streamUrl, String hlsUrl,
+                              Integer width, Integer height, Short orientation, String blurhash) {
+        this.id = id;
+        this.fileName = fileName;
+        this.fileUrl = fileUrl;
+        this.itemType = itemType != null ? itemType.name() : null;
+        this.isActive = isActive;
+        this.posterUrl = posterUrl;
+        this.streamUrl = streamUrl;
+        this.hlsUrl = hlsUrl;
+        this.width = width;
+        this.height = height;
+        this.orientation = orientation;
+        this.blurhash = blurhash;
+    }
+}
@@ -5,6 +5,7 @@ import com.alice.cosplaysuggestion.model.Role;
 public class LoginResponse {
     
     private String accessToken;
+    private String refreshToken;
     private String tokenType = "Bearer";
     private Long id;
     private String username;
@@ -33,6 +34,14 @@ public class LoginResponse {
         this.accessToken = accessToken;
     }
     
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
     public String getTokenType() {
         return tokenType;
     }
@@ -0,0 +1,4 @@
+package com.alice.cosplaysuggestion.dto;
+
+// Persisted token revocation cutoff of an account (epoch millisecond), reloaded by TokenRevocationService
+public record TokenCutoff(Long accountId, Long revokedBefore) {}
@@ -0,0 +1,8 @@
+package com.alice.cosplaysuggestion.event;
+
+// Published by AccountService whenever login-relevant account data changes
+// (credentials, email, role, active flag, profile). Listeners run after commit.
+public record AccountChangedEvent(Type type, Long accountId) {
+
+    public enum Type { PROFILE_UPDATED, PASSWORD_CHANGED, EMAIL_CHANGED, EMAIL_VERIFIED, ROLE_CHANGED, ACTIVE_CHANGED }
+}
@@ -0,0 +1,6 @@
+package com.alice.cosplaysuggestion.event;
+
+// Published by EmailOutboxService when a message is written to the outbox
+// The dispatcher listens after commit, so a rolled-back registration never wakes it
+public record EmailQueuedEvent(Long messageId) {
+}
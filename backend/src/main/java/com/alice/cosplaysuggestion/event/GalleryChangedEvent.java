@@ -0,0 +1,8 @@
+package com.alice.cosplaysuggestion.event;
+
+// Published by GalleryService whenever folders or items change
+// Listeners run after the surrounding transaction commits
+public record GalleryChangedEvent(Type type, Long folderId) {
+
+    public enum Type { FOLDER_CREATED, FOLDER_UPDATED, FOLDER_DELETED, ITEMS_CHANGED }
+}
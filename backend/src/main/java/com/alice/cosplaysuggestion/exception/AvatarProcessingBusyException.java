@@ -0,0 +1,10 @@
+package com.alice.cosplaysuggestion.exception;
+
+// Thrown by AvatarImageService when its bounded work queue is full
+// Mapped to 503 Service Unavailable so the client retries the upload later
+public class AvatarProcessingBusyException extends RuntimeException {
+
+    public AvatarProcessingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.alice.cosplaysuggestion.exception;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+// Thrown by InstrumentedPasswordEncoder when its hashing pool is saturated or a job times out
+// Mapped to 503 Service Unavailable with a Retry-After header. Extends
+// InternalAuthenticationServiceException so ProviderManager rethrows it as-is during login.
+public class PasswordHashingBusyException extends InternalAuthenticationServiceException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
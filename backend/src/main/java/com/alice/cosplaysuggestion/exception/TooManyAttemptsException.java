@@ -0,0 +1,17 @@
+package com.alice.cosplaysuggestion.exception;
+
+// Thrown by LoginAttemptTracker when an account or client IP is over its attempt limit
+// Mapped to 429 Too Many Requests with a Retry-After header
+public class TooManyAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
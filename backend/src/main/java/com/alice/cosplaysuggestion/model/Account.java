@@ -2,6 +2,7 @@ package com.alice.cosplaysuggestion.model;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -48,7 +49,11 @@ public class Account {
     @Email
     @Size(max = 100)
     @Column(name = "email", unique = true, nullable = false)
-    private String email;
+    private String email; // canonical form (trimmed, lowercase), see canonicalEmail()
+    
+    // Replaces the old "_V" suffix on email; DEFAULT 0 lets the column be added to existing rows
+    @Column(name = "email_verified", nullable = false, columnDefinition = "BIT NOT NULL DEFAULT 0")
+    private Boolean emailVerified = false;
     
     @Column(name = "height")
     private Double height; // in cm
@@ -83,6 +88,11 @@ public class Account {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
+    // Epoch millisecond; access tokens issued at or before it are rejected (see TokenRevocationService).
+    // Written only by AccountRepository.revokeTokensBefore so saving a loaded Account never resets it.
+    @Column(name = "tokens_revoked_before", insertable = false, updatable = false)
+    private Long tokensRevokedBefore;
+    
     // Constructors
     public Account() {}
     
@@ -185,6 +195,19 @@ public class Account {
         this.isActive = isActive;
     }
     
+    public Boolean getEmailVerified() {
+        return emailVerified;
+    }
+    
+    public void setEmailVerified(Boolean emailVerified) {
+        this.emailVerified = emailVerified;
+    }
+    
+    // Stored and looked-up form of an email address, so every lookup is one seek on the unique index
+    public static String canonicalEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+    
     public Role getRole() {
         return role;
     }
@@ -217,6 +240,10 @@ public class Account {
         this.createdAt = createdAt;
     }
     
+    public Long getTokensRevokedBefore() {
+        return tokensRevokedBefore;
+    }
+    
     @Override
     public String toString() {
         return "Account{" +
@@ -224,6 +251,7 @@ public class Account {
                 ", fullName='" + fullName + '\'' +
                 ", username='" + username + '\'' +
                 ", email='" + email + '\'' +
+                ", emailVerified=" + emailVerified +
                 ", role=" + role +
                 ", provider=" + provider +
                 ", isActive=" + isActive +
@@ -0,0 +1,34 @@
+package com.alice.cosplaysuggestion.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Access token denied before its expiry (logout); kept until the token's own exp has passed
+// so the denial survives a restart
+@Entity
+@Table(name = "denied_tokens", indexes = {
+    @Index(name = "IX_denied_tokens_expires_at", columnList = "expires_at")
+})
+public class DeniedToken {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    // Token exp, epoch second
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    public DeniedToken() {}
+
+    public DeniedToken(String jti, long expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() { return jti; }
+    public long getExpiresAt() { return expiresAt; }
+}
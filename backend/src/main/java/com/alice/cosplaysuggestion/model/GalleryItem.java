@@ -12,6 +12,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,11 +20,18 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "gallery_items")
+@Table(name = "gallery_items", indexes = {
+    @Index(name = "IX_gallery_items_folder_id_id", columnList = "folder_id, id"),
+    @Index(name = "IX_gallery_items_content_hash", columnList = "content_hash"),
+    @Index(name = "IX_gallery_items_video_status", columnList = "video_status, id")
+})
 public class GalleryItem {
 
     public enum ItemType { IMAGE, VIDEO }
 
+    // Background processing state of VIDEO items (null for images and unprocessed legacy videos)
+    public enum VideoStatus { PENDING, PROCESSING, READY, FAILED }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -50,6 +58,49 @@ public class GalleryItem {
     @Column(name = "file_url", nullable = false)
     private String fileUrl;
 
+    // SHA-256 of the file; set for items stored in the shared content store (null for legacy per-folder files)
+    @Size(max = 64)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Playback variants produced by VideoProcessingService
+    @Enumerated(EnumType.STRING)
+    @Column(name = "video_status", length = 12)
+    private VideoStatus videoStatus;
+
+    // Lease of the PROCESSING claim, renewed between ffmpeg steps; only expired claims are re-queued
+    @Column(name = "video_claimed_at")
+    private LocalDateTime videoClaimedAt;
+
+    @Size(max = 255)
+    @Column(name = "poster_url")
+    private String posterUrl;
+
+    // MP4 remuxed with the moov atom first (progressive playback starts immediately)
+    @Size(max = 255)
+    @Column(name = "stream_url")
+    private String streamUrl;
+
+    @Size(max = 255)
+    @Column(name = "hls_url")
+    private String hlsUrl;
+
+    // Image metadata read at ingest; width/height are display dimensions (EXIF rotation applied)
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    // EXIF orientation 1-8 of the stored bytes (1 = as stored)
+    @Column(name = "orientation")
+    private Short orientation;
+
+    // BlurHash placeholder shown while the image loads
+    @Size(max = 64)
+    @Column(name = "blurhash", length = 64)
+    private String blurhash;
+
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
@@ -80,6 +131,26 @@ public class GalleryItem {
     public void setItemType(ItemType itemType) { this.itemType = itemType; }
     public String getFileUrl() { return fileUrl; }
     public void setFileUrl(String fileUrl) { this.fileUrl = fileUrl; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public VideoStatus getVideoStatus() { return videoStatus; }
+    public void setVideoStatus(VideoStatus videoStatus) { this.videoStatus = videoStatus; }
+    public LocalDateTime getVideoClaimedAt() { return videoClaimedAt; }
+    public void setVideoClaimedAt(LocalDateTime videoClaimedAt) { this.videoClaimedAt = videoClaimedAt; }
+    public String getPosterUrl() { return posterUrl; }
+    public void setPosterUrl(String posterUrl) { this.posterUrl = posterUrl; }
+    public String getStreamUrl() { return streamUrl; }
+    public void setStreamUrl(String streamUrl) { this.streamUrl = streamUrl; }
+    public String getHlsUrl() { return hlsUrl; }
+    public void setHlsUrl(String hlsUrl) { this.hlsUrl = hlsUrl; }
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+    public Short getOrientation() { return orientation; }
+    public void setOrientation(Short orientation) { this.orientation = orientation; }
+    public String getBlurhash() { return blurhash; }
+    public void setBlurhash(String blurhash) { this.blurhash = blurhash; }
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
     public LocalDateTime getCreatedAt() { return createdAt; }
@@ -0,0 +1,98 @@
+package com.alice.cosplaysuggestion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+// Rotating refresh token; only the SHA-256 of the token is stored
+// Every rotation creates a new row in the same family and revokes the old one, so presenting
+// an already-rotated token (theft/replay) can be detected and the whole family revoked.
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_account", columnList = "account_id")
+})
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+    
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+    
+    @Column(name = "expiry_date", nullable = false)
+    private LocalDateTime expiryDate;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private boolean revoked = false;
+    
+    // Constructors
+    public RefreshToken() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public RefreshToken(String tokenHash, Account account, String familyId, LocalDateTime expiryDate) {
+        this();
+        this.tokenHash = tokenHash;
+        this.account = account;
+        this.familyId = familyId;
+        this.expiryDate = expiryDate;
+    }
+    
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(this.expiryDate);
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public String getTokenHash() {
+        return tokenHash;
+    }
+    
+    public Account getAccount() {
+        return account;
+    }
+    
+    public String getFamilyId() {
+        return familyId;
+    }
+    
+    public LocalDateTime getExpiryDate() {
+        return expiryDate;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public boolean isRevoked() {
+        return revoked;
+    }
+    
+    public void setRevoked(boolean revoked) {
+        this.revoked = revoked;
+    }
+}
@@ -0,0 +1,117 @@
+package com.alice.cosplaysuggestion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Background removal of a storage prefix (a deleted gallery folder) or of a single object
+// (a deleted item's legacy per-folder file)
+// continuationToken is the S3 listing checkpoint so a restarted worker resumes where it stopped
+@Entity
+@Table(name = "storage_deletion_tasks", indexes = {
+    @Index(name = "IX_storage_deletion_tasks_status", columnList = "status, id")
+})
+public class StorageDeletionTask {
+
+    public enum Target { S3, LOCAL }
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    public enum Kind { PREFIX, OBJECT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Target target;
+
+    // S3 key prefix ("gallery/{storage}/") or folder name under the local gallery root;
+    // for OBJECT tasks the full key of the object
+    @Column(nullable = false, length = 512)
+    private String prefix;
+
+    // DEFAULT lets the column be added to existing rows, which are all prefix tasks
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10, columnDefinition = "VARCHAR(10) NOT NULL DEFAULT 'PREFIX'")
+    private Kind kind = Kind.PREFIX;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status = Status.PENDING;
+
+    @Column(name = "continuation_token", length = 1024)
+    private String continuationToken;
+
+    @Column(name = "deleted_objects", nullable = false)
+    private long deletedObjects;
+
+    @Column(name = "failed_objects", nullable = false)
+    private long failedObjects;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public StorageDeletionTask() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public StorageDeletionTask(Target target, String prefix) {
+        this();
+        this.target = target;
+        this.prefix = prefix;
+    }
+
+    public StorageDeletionTask(Target target, Kind kind, String key) {
+        this(target, key);
+        this.kind = kind;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Target getTarget() { return target; }
+    public void setTarget(Target target) { this.target = target; }
+    public String getPrefix() { return prefix; }
+    public void setPrefix(String prefix) { this.prefix = prefix; }
+    public Kind getKind() { return kind; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public String getContinuationToken() { return continuationToken; }
+    public void setContinuationToken(String continuationToken) { this.continuationToken = continuationToken; }
+    public long getDeletedObjects() { return deletedObjects; }
+    public void setDeletedObjects(long deletedObjects) { this.deletedObjects = deletedObjects; }
+    public long getFailedObjects() { return failedObjects; }
+    public void setFailedObjects(long failedObjects) { this.failedObjects = failedObjects; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
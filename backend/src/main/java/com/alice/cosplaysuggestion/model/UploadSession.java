@@ -0,0 +1,113 @@
+package com.alice.cosplaysuggestion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Resumable (chunked) upload in progress; bytes are spooled to {app.upload.session.location}/{id}.part
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "IX_upload_sessions_expires_at", columnList = "expires_at")
+})
+public class UploadSession {
+
+    // ZIP creates a new gallery folder, ITEM adds one file to an existing folder
+    public enum Kind { ZIP, ITEM }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Kind kind;
+
+    @Column(name = "file_name", nullable = false, columnDefinition = "Nvarchar(255)")
+    private String fileName;
+
+    @Column(name = "total_size", nullable = false)
+    private long totalSize;
+
+    @Column(name = "received_bytes", nullable = false)
+    private long receivedBytes;
+
+    @Column(name = "display_name", columnDefinition = "Nvarchar(100)")
+    private String displayName;
+
+    @Column(name = "folder_id")
+    private Long folderId;
+
+    // IMAGE / VIDEO for ITEM uploads
+    @Column(name = "item_type", length = 10)
+    private String itemType;
+
+    @Column(name = "created_by", nullable = false, length = 50)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set in the ingest transaction: the created folder (ZIP) or item (ITEM); a repeated
+    // complete returns it instead of ingesting the upload twice
+    @Column(name = "result_id")
+    private Long resultId;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public UploadSession() {}
+
+    public UploadSession(String id, Kind kind, String fileName, long totalSize, String createdBy, LocalDateTime expiresAt) {
+        this.id = id;
+        this.kind = kind;
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.createdBy = createdBy;
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isComplete() {
+        return receivedBytes == totalSize;
+    }
+
+    public boolean isIngested() {
+        return resultId != null;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public long getTotalSize() { return totalSize; }
+    public void setTotalSize(long totalSize) { this.totalSize = totalSize; }
+    public long getReceivedBytes() { return receivedBytes; }
+    public void setReceivedBytes(long receivedBytes) { this.receivedBytes = receivedBytes; }
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(String displayName) { this.displayName = displayName; }
+    public Long getFolderId() { return folderId; }
+    public void setFolderId(Long folderId) { this.folderId = folderId; }
+    public String getItemType() { return itemType; }
+    public void setItemType(String itemType) { this.itemType = itemType; }
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    public Long getResultId() { return resultId; }
+    public void setResultId(Long resultId) { this.resultId = resultId; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
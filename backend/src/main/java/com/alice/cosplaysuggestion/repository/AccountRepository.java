@@ -3,11 +3,18 @@ package com.alice.cosplaysuggestion.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.alice.cosplaysuggestion.dto.AccountAvatar;
+import com.alice.cosplaysuggestion.dto.AccountIdentity;
+import com.alice.cosplaysuggestion.dto.AccountProfile;
+import com.alice.cosplaysuggestion.dto.TokenCutoff;
 import com.alice.cosplaysuggestion.model.Account;
 import com.alice.cosplaysuggestion.model.Gender;
 import com.alice.cosplaysuggestion.model.Provider;
@@ -19,12 +26,23 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     // Find by username
     Optional<Account> findByUsername(String username);
     
-    // Find by email
+    // Find by email (pass the canonical form, see Account.canonicalEmail)
     Optional<Account> findByEmail(String email);
     
-    // Find by username or email
-    @Query("SELECT a FROM Account a WHERE a.username = :usernameOrEmail OR a.email = :usernameOrEmail")
-    Optional<Account> findByUsernameOrEmail(@Param("usernameOrEmail") String usernameOrEmail);
+    // Find by username or email: input with an '@' is looked up by email first, otherwise by username
+    // (each branch is one index seek instead of an OR across two columns)
+    default Optional<Account> findByUsernameOrEmail(String usernameOrEmail) {
+        if (usernameOrEmail == null) {
+            return Optional.empty();
+        }
+        if (usernameOrEmail.indexOf('@') >= 0) {
+            Optional<Account> byEmail = findByEmail(Account.canonicalEmail(usernameOrEmail));
+            if (byEmail.isPresent()) {
+                return byEmail;
+            }
+        }
+        return findByUsername(usernameOrEmail);
+    }
     
     // Find by provider and provider ID (for OAuth login)
     Optional<Account> findByProviderAndProviderId(Provider provider, String providerId);
@@ -35,6 +53,20 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     // Check if email exists
     boolean existsByEmail(String email);
     
+    // Check if email is used by another account (profile update)
+    boolean existsByEmailAndIdNot(String email, Long id);
+    
+    // Profile projection for read-only pages (no entity load, no dirty checking)
+    String PROFILE_SELECT = "SELECT new com.alice.cosplaysuggestion.dto.AccountProfile(a.id, a.fullName, a.birthDay, "
+         + "a.username, a.email, a.height, a.weight, a.gender, a.avatar, a.isActive, a.role, a.provider, "
+         + "a.createdAt, a.emailVerified) FROM Account a ";
+    
+    @Query(PROFILE_SELECT + "WHERE a.id = :id")
+    Optional<AccountProfile> findProfileById(@Param("id") Long id);
+    
+    @Query(PROFILE_SELECT + "WHERE a.username = :username")
+    Optional<AccountProfile> findProfileByUsername(@Param("username") String username);
+    
     // Find active accounts
     List<Account> findByIsActiveTrue();
     
@@ -59,4 +91,50 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     
     // Count active accounts
     long countByIsActiveTrue();
+    
+    // Usernames and emails in id order (keyset pages) for the in-memory availability index
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.AccountIdentity(a.id, a.username, a.email) "
+         + "FROM Account a WHERE a.id > :afterId ORDER BY a.id")
+    List<AccountIdentity> findIdentitiesAfter(@Param("afterId") Long afterId, Limit limit);
+    
+    // Accounts still marked verified by the legacy "xxx_V" email suffix (before email_verified existed);
+    // rows already flagged are conflicts that were handled and are not picked up again
+    @Query("SELECT a.id FROM Account a WHERE a.id > :afterId AND a.email LIKE '%!_V' ESCAPE '!' "
+         + "AND a.emailVerified = false ORDER BY a.id")
+    List<Long> findLegacyVerifiedIdsAfter(@Param("afterId") Long afterId, Limit limit);
+    
+    // Strip the "_V" suffix and set email_verified for a batch
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account a SET a.email = LOWER(SUBSTRING(a.email, 1, LENGTH(a.email) - 2)), a.emailVerified = true "
+         + "WHERE a.id IN :ids AND a.email LIKE '%!_V' ESCAPE '!'")
+    int migrateLegacyVerifiedEmails(@Param("ids") List<Long> ids);
+    
+    // The plain address belongs to another account: keep the "_V" email but record the verification,
+    // which also marks the row as handled
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account a SET a.emailVerified = true WHERE a.id = :id AND a.email LIKE '%!_V' ESCAPE '!'")
+    int markLegacyVerifiedConflict(@Param("id") Long id);
+    
+    // Conflicts left for an admin to resolve (rename or merge one of the two accounts)
+    @Query("SELECT a.id FROM Account a WHERE a.email LIKE '%!_V' ESCAPE '!' AND a.emailVerified = true ORDER BY a.id")
+    List<Long> findLegacyVerifiedConflictIds(Limit limit);
+    
+    // Avatar URLs in id order, for the content reference recount
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.AccountAvatar(a.id, a.avatar) "
+         + "FROM Account a WHERE a.id > :afterId AND a.avatar IS NOT NULL ORDER BY a.id")
+    List<AccountAvatar> findAvatarsAfter(@Param("afterId") Long afterId, Limit limit);
+    
+    // Persist the token revocation cutoff (epoch millisecond); never moves it backwards
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account a SET a.tokensRevokedBefore = :cutoff WHERE a.id = :id "
+         + "AND (a.tokensRevokedBefore IS NULL OR a.tokensRevokedBefore < :cutoff)")
+    int revokeTokensBefore(@Param("id") Long id, @Param("cutoff") Long cutoff);
+    
+    // Cutoffs that can still reject an unexpired token, loaded at startup
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.TokenCutoff(a.id, a.tokensRevokedBefore) "
+         + "FROM Account a WHERE a.tokensRevokedBefore > :horizon")
+    List<TokenCutoff> findTokenCutoffsAfter(@Param("horizon") Long horizon);
 }
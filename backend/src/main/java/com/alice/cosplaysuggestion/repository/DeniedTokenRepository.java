@@ -0,0 +1,24 @@
+package com.alice.cosplaysuggestion.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alice.cosplaysuggestion.model.DeniedToken;
+
+@Repository
+public interface DeniedTokenRepository extends JpaRepository<DeniedToken, String> {
+
+    // Denials whose token has not expired yet, loaded at startup
+    List<DeniedToken> findByExpiresAtGreaterThan(long now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeniedToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -0,0 +1,45 @@
+package com.alice.cosplaysuggestion.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alice.cosplaysuggestion.model.EmailOutboxMessage;
+import com.alice.cosplaysuggestion.model.EmailOutboxMessage.Status;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // Next messages for the dispatcher, oldest first
+    List<EmailOutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(Status status, LocalDateTime now, Limit limit);
+
+    // Most recent messages for the admin report
+    List<EmailOutboxMessage> findByOrderByIdDesc(Limit limit);
+
+    long countByStatus(Status status);
+
+    // Claim a message for sending; 0 when another dispatcher got it first
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :to, m.claimedAt = :now WHERE m.id = :id AND m.status = :from")
+    int claim(@Param("id") Long id, @Param("from") Status from, @Param("to") Status to, @Param("now") LocalDateTime now);
+
+    // Messages whose claim expired (dispatcher crashed or stopped mid-batch) are sent again (at-least-once)
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :to, m.claimedAt = NULL WHERE m.status = :from "
+         + "AND (m.claimedAt IS NULL OR m.claimedAt < :cutoff)")
+    int releaseExpiredClaims(@Param("from") Status from, @Param("to") Status to, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = :status AND m.sentAt < :cutoff")
+    int deleteSentBefore(@Param("status") Status status, @Param("cutoff") LocalDateTime cutoff);
+}
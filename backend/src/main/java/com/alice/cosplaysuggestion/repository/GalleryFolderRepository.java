@@ -3,9 +3,14 @@ package com.alice.cosplaysuggestion.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.alice.cosplaysuggestion.dto.GalleryFolderSummary;
 import com.alice.cosplaysuggestion.model.GalleryFolder;
 
 @Repository
@@ -15,4 +20,17 @@ public interface GalleryFolderRepository extends JpaRepository<GalleryFolder, Lo
     List<GalleryFolder> findByDisplayNameContainingIgnoreCase(String displayName);
     List<GalleryFolder> findByIsActiveTrue();
     List<GalleryFolder> findByDisplayNameContainingIgnoreCaseAndIsActiveTrue(String displayName);
-}
\ No newline at end of file
+
+    // Capped variants of the full listings
+    List<GalleryFolder> findByOrderByIdAsc(Limit limit);
+    List<GalleryFolder> findByIsActiveTrueOrderByIdAsc(Limit limit);
+
+    // Keyset pagination (id > afterId), fetch size + 1 rows to detect the next page
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.GalleryFolderSummary(f.id, f.displayName, f.thumbnailUrl, f.isActive) "
+         + "FROM GalleryFolder f WHERE f.id > :afterId ORDER BY f.id")
+    List<GalleryFolderSummary> findFolderPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.GalleryFolderSummary(f.id, f.displayName, f.thumbnailUrl, f.isActive) "
+         + "FROM GalleryFolder f WHERE f.isActive = true AND f.id > :afterId ORDER BY f.id")
+    List<GalleryFolderSummary> findActiveFolderPage(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -1,17 +1,130 @@
 package com.alice.cosplaysuggestion.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.alice.cosplaysuggestion.dto.GalleryItemDto;
+import com.alice.cosplaysuggestion.dto.GalleryItemRef;
+import com.alice.cosplaysuggestion.dto.GalleryItemSummary;
 import com.alice.cosplaysuggestion.model.GalleryFolder;
 import com.alice.cosplaysuggestion.model.GalleryItem;
+import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+import com.alice.cosplaysuggestion.model.GalleryItem.VideoStatus;
 
 @Repository
 public interface GalleryItemRepository extends JpaRepository<GalleryItem, Long> {
     List<GalleryItem> findByFolder(GalleryFolder folder);
     long deleteByFolder(GalleryFolder folder);
-}
 
+    // Full item listing as DTOs, folder storage name joined in: one statement regardless of item count
+    String ITEM_DTO_SELECT = "SELECT new com.alice.cosplaysuggestion.dto.GalleryItemDto(i.id, f.id, f.storageName, i.fileName, "
+         + "i.subDir, i.itemType, i.fileUrl, i.isActive, i.createdAt, i.videoStatus, i.posterUrl, i.streamUrl, i.hlsUrl, "
+         + "i.width, i.height, i.orientation, i.blurhash) FROM GalleryItem i JOIN i.folder f ";
+
+    @Query(ITEM_DTO_SELECT + "WHERE f.id = :folderId ORDER BY i.id")
+    List<GalleryItemDto> findDtosByFolderId(@Param("folderId") Long folderId, Limit limit);
+
+    @Query(ITEM_DTO_SELECT + "WHERE i.id = :id")
+    Optional<GalleryItemDto> findDtoById(@Param("id") Long id);
+
+    // Keyset pagination within a folder (uses IX_gallery_items_folder_id_id)
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.GalleryItemSummary(i.id, i.fileName, i.fileUrl, i.itemType, i.isActive, "
+         + "i.posterUrl, i.streamUrl, i.hlsUrl, i.width, i.height, i.orientation, i.blurhash) "
+         + "FROM GalleryItem i WHERE i.folder.id = :folderId AND i.id > :afterId ORDER BY i.id")
+    List<GalleryItemSummary> findItemPage(@Param("folderId") Long folderId, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Set-based bulk operations; callers keep id lists under SQL Server's 2100 parameter limit
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.GalleryItemRef(i.id, f.id, f.storageName, i.subDir, i.fileName, "
+         + "i.itemType, i.contentHash, i.videoStatus) FROM GalleryItem i JOIN i.folder f WHERE i.id IN :ids")
+    List<GalleryItemRef> findRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.GalleryItemRef(i.id, f.id, f.storageName, i.subDir, i.fileName, "
+         + "i.itemType, i.contentHash, i.videoStatus) FROM GalleryItem i JOIN i.folder f WHERE f.id = :folderId")
+    List<GalleryItemRef> findRefsByFolderId(@Param("folderId") Long folderId);
+
+    // Items holding a reference to any of these blobs (content reference recount)
+    @Query("SELECT new com.alice.cosplaysuggestion.dto.GalleryItemRef(i.id, f.id, f.storageName, i.subDir, i.fileName, "
+         + "i.itemType, i.contentHash, i.videoStatus) FROM GalleryItem i JOIN i.folder f WHERE i.contentHash IN :hashes")
+    List<GalleryItemRef> findRefsByContentHashIn(@Param("hashes") Collection<String> hashes);
+
+    @Query("SELECT DISTINCT i.contentHash FROM GalleryItem i WHERE i.contentHash IN :hashes")
+    List<String> findContentHashesIn(@Param("hashes") Collection<String> hashes);
+
+    // Shared video variants are kept while any item still has the content
+    boolean existsByContentHash(String contentHash);
+
+    @Query("SELECT DISTINCT i.folder.id FROM GalleryItem i WHERE i.id IN :ids")
+    List<Long> findFolderIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE GalleryItem i SET i.isActive = :active WHERE i.id IN :ids")
+    int updateActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("active") Boolean active);
+
+    @Modifying
+    @Query("DELETE FROM GalleryItem i WHERE i.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
+    @Modifying
+    @Query("DELETE FROM GalleryItem i WHERE i.folder.id = :folderId")
+    int deleteAllByFolderId(@Param("folderId") Long folderId);
+
+    // Any earlier item with the same bytes whose image metadata was already extracted
+    Optional<GalleryItem> findFirstByContentHashAndWidthIsNotNull(String contentHash);
+
+    // Item with its folder loaded, for work done outside a transaction
+    @Query("SELECT i FROM GalleryItem i JOIN FETCH i.folder WHERE i.id = :id")
+    Optional<GalleryItem> findWithFolderById(@Param("id") Long id);
+
+    // Video processing queue
+    @Query("SELECT i.id FROM GalleryItem i WHERE i.videoStatus = :status ORDER BY i.id")
+    List<Long> findIdsByVideoStatus(@Param("status") VideoStatus status, Pageable pageable);
+
+    long countByVideoStatus(VideoStatus status);
+
+    Optional<GalleryItem> findFirstByContentHashAndVideoStatus(String contentHash, VideoStatus status);
+
+    // Claim one job; returns 0 if another worker got it first
+    @Modifying
+    @Transactional
+    @Query("UPDATE GalleryItem i SET i.videoStatus = :to, i.videoClaimedAt = :now WHERE i.id = :id AND i.videoStatus = :from")
+    int claimVideo(@Param("id") Long id, @Param("from") VideoStatus from, @Param("to") VideoStatus to,
+                   @Param("now") LocalDateTime now);
+
+    // Keep a long job's claim alive
+    @Modifying
+    @Transactional
+    @Query("UPDATE GalleryItem i SET i.videoClaimedAt = :now WHERE i.id = :id AND i.videoStatus = :status")
+    int renewVideoClaim(@Param("id") Long id, @Param("status") VideoStatus status, @Param("now") LocalDateTime now);
+
+    // Jobs whose worker stopped renewing (crashed instance) go back to the queue
+    @Modifying
+    @Transactional
+    @Query("UPDATE GalleryItem i SET i.videoStatus = :to, i.videoClaimedAt = NULL WHERE i.videoStatus = :from "
+         + "AND (i.videoClaimedAt IS NULL OR i.videoClaimedAt < :cutoff)")
+    int releaseExpiredVideoClaims(@Param("from") VideoStatus from, @Param("to") VideoStatus to,
+                                  @Param("cutoff") LocalDateTime cutoff);
+
+    // Queue videos uploaded before background processing existed
+    @Modifying
+    @Transactional
+    @Query("UPDATE GalleryItem i SET i.videoStatus = :status WHERE i.itemType = :type AND i.videoStatus IS NULL")
+    int queueUnprocessed(@Param("type") ItemType type, @Param("status") VideoStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE GalleryItem i SET i.videoStatus = :status, i.videoClaimedAt = NULL, i.posterUrl = :posterUrl, "
+         + "i.streamUrl = :streamUrl, i.hlsUrl = :hlsUrl WHERE i.id = :id")
+    int updateVideoVariants(@Param("id") Long id, @Param("status") VideoStatus status, @Param("posterUrl") String posterUrl,
+                            @Param("streamUrl") String streamUrl, @Param("hlsUrl") String hlsUrl);
+}
@@ -0,0 +1,58 @@
+package com.alice.cosplaysuggestion.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alice.cosplaysuggestion.model.MediaBlob;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, Long> {
+
+    // Thêm một tham chiếu; trả về 0 nếu blob chưa tồn tại
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.refCount = b.refCount + 1, b.updatedAt = :now WHERE b.storageKey = :key")
+    int acquire(@Param("key") String storageKey, @Param("now") LocalDateTime now);
+
+    // Bỏ một tham chiếu
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.refCount = b.refCount - :count, b.updatedAt = :now WHERE b.storageKey = :key AND b.refCount > 0")
+    int release(@Param("key") String storageKey, @Param("count") int count, @Param("now") LocalDateTime now);
+
+    // Blobs nobody references any more, unchanged for the grace period
+    @Query("SELECT b.id FROM MediaBlob b WHERE b.refCount <= 0 AND b.updatedAt < :cutoff ORDER BY b.id")
+    List<Long> findUnreferencedIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Row lock so a concurrent acquire waits until the sweep has finished with this blob
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM MediaBlob b WHERE b.id = :id AND b.refCount <= 0")
+    Optional<MediaBlob> lockUnreferenced(@Param("id") Long id);
+
+    // Keyset page for the reference recount, only blobs untouched since cutoff
+    List<MediaBlob> findByIdGreaterThanAndUpdatedAtBeforeOrderByIdAsc(Long afterId, LocalDateTime cutoff, Limit limit);
+
+    // Đặt lại bộ đếm theo số tham chiếu đếm được; 0 nếu blob đã thay đổi kể từ lúc đọc
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.refCount = :count, b.updatedAt = :now WHERE b.id = :id "
+         + "AND b.refCount = :expected AND b.updatedAt < :cutoff")
+    int correctRefCount(@Param("id") Long id, @Param("expected") int expected, @Param("count") int count,
+                        @Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    @Query("SELECT COALESCE(SUM(b.size), 0) FROM MediaBlob b")
+    long sumSize();
+}
@@ -0,0 +1,45 @@
+package com.alice.cosplaysuggestion.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alice.cosplaysuggestion.model.RefreshToken;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    
+    // Tìm token theo hash (kèm account để cấp access token mới)
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.account WHERE t.tokenHash = :hash")
+    Optional<RefreshToken> findByTokenHash(@Param("hash") String hash);
+    
+    // Đánh dấu token đã được đổi; trả về 0 nếu request khác đã đổi nó trước (token bị dùng lại)
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.id = :id AND t.revoked = false")
+    int markRotated(@Param("id") Long id);
+    
+    // Thu hồi cả chuỗi token (logout hoặc phát hiện token bị dùng lại)
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+    
+    // Thu hồi tất cả token của một account (reset mật khẩu, khóa tài khoản, đổi role)
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.account.id = :accountId AND t.revoked = false")
+    int revokeAllByAccountId(@Param("accountId") Long accountId);
+    
+    // Xóa token hết hạn
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiryDate < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
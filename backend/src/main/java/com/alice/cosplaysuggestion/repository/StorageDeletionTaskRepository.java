@@ -0,0 +1,36 @@
+package com.alice.cosplaysuggestion.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alice.cosplaysuggestion.model.StorageDeletionTask;
+import com.alice.cosplaysuggestion.model.StorageDeletionTask.Status;
+
+@Repository
+public interface StorageDeletionTaskRepository extends JpaRepository<StorageDeletionTask, Long> {
+
+    // Next tasks for the worker, oldest first
+    List<StorageDeletionTask> findByStatusInAndAttemptsLessThanOrderByIdAsc(Collection<Status> statuses, int maxAttempts, Limit limit);
+
+    // Most recent tasks for the admin report
+    List<StorageDeletionTask> findByOrderByIdDesc(Limit limit);
+
+    long countByStatus(Status status);
+
+    // A prefix with an unfinished task must not be handed out again
+    boolean existsByPrefixInAndStatusNot(Collection<String> prefixes, Status status);
+
+    // Tasks left RUNNING by a crashed instance are picked up again from their checkpoint
+    @Modifying
+    @Transactional
+    @Query("UPDATE StorageDeletionTask t SET t.status = :to WHERE t.status = :from")
+    int updateStatus(@Param("from") Status from, @Param("to") Status to);
+}
@@ -0,0 +1,16 @@
+package com.alice.cosplaysuggestion.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.alice.cosplaysuggestion.model.UploadSession;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Phiên upload đã hết hạn
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime now);
+}
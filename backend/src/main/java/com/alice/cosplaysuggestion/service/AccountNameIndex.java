@@ -0,0 +1,160 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.alice.cosplaysuggestion.dto.AccountIdentity;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.utils.BloomFilter;
+
+// Bloom filter of normalized usernames and emails for the public availability checks
+// A miss is a definite "available" answered from memory; a hit may be a false positive and
+// goes to SQL Server. Register/email changes add to the filter; entries can't be removed, so
+// freed names and other instances' registrations are picked up by the periodic rebuild.
+// Until the first build finishes every check goes to the database.
+@Service
+public class AccountNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountNameIndex.class);
+
+    private static final int PAGE_SIZE = 5000;
+    private static final long MIN_CAPACITY = 10_000;
+
+    @Value("${app.account.name-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.account.name-index.fpp:0.01}")
+    private double fpp;
+
+    private final AccountRepository accountRepository;
+
+    private volatile BloomFilter filter;
+    // filter under construction: add() writes to it too, so registrations during a rebuild aren't lost
+    private volatile BloomFilter building;
+    private volatile long capacity;
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong answeredFromMemory = new AtomicLong();
+    private final AtomicLong passedToDatabase = new AtomicLong();
+
+    public AccountNameIndex(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Rebuilt hourly by default: drops names freed by email changes and adds other nodes' registrations
+    @Scheduled(fixedDelayString = "${app.account.name-index.rebuild-ms:3600000}",
+               initialDelayString = "${app.account.name-index.rebuild-ms:3600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long count = accountRepository.count();
+            // two keys per account, room to grow 2x before the false-positive rate degrades
+            long size = Math.max(MIN_CAPACITY, count * 4);
+            BloomFilter next = new BloomFilter(size, fpp);
+            this.building = next;
+            long added = 0;
+            Long afterId = 0L;
+            while (true) {
+                List<AccountIdentity> page = accountRepository.findIdentitiesAfter(afterId, Limit.of(PAGE_SIZE));
+                for (AccountIdentity identity : page) {
+                    next.add(usernameKey(identity.username()));
+                    next.add(emailKey(identity.email()));
+                    added += 2;
+                }
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1).id();
+            }
+            this.capacity = size;
+            this.entries.set(added);
+            this.filter = next;
+            log.info("Account name index built: {} entries, {} bits, {} ms",
+                    added, next.bitSize(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Account name index build failed, availability checks use the database: {}", e.getMessage());
+        } finally {
+            this.building = null;
+        }
+    }
+
+    // false = definitely never registered; true = unknown, ask the database
+    public boolean mightContainUsername(String username) {
+        return mightContain(usernameKey(username));
+    }
+
+    public boolean mightContainEmail(String email) {
+        return mightContain(emailKey(email));
+    }
+
+    public void addUsername(String username) {
+        add(usernameKey(username));
+    }
+
+    public void addEmail(String email) {
+        add(emailKey(email));
+    }
+
+    public IndexStats getStats() {
+        BloomFilter current = filter;
+        return new IndexStats(current != null, entries.get(), capacity,
+                current != null ? current.bitSize() : 0, answeredFromMemory.get(), passedToDatabase.get());
+    }
+
+    private boolean mightContain(String key) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(key)) {
+            passedToDatabase.incrementAndGet();
+            return true;
+        }
+        answeredFromMemory.incrementAndGet();
+        return false;
+    }
+
+    private void add(String key) {
+        BloomFilter next = building;
+        if (next != null) {
+            next.add(key);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(key);
+            entries.incrementAndGet();
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+    }
+
+    // Rows not yet migrated still carry the legacy "_V" suffix; index the address itself
+    private static String emailKey(String email) {
+        String e = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+        if (e.endsWith("_v")) {
+            e = e.substring(0, e.length() - 2);
+        }
+        return "e:" + e;
+    }
+
+    public record IndexStats(boolean ready, long entries, long capacity, long bits,
+                             long answeredFromMemory, long passedToDatabase) {}
+}
@@ -1,5 +1,6 @@
 package com.alice.cosplaysuggestion.service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Random;
@@ -8,7 +9,9 @@ import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,6 +19,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.alice.cosplaysuggestion.dto.AccountProfile;
 import com.alice.cosplaysuggestion.dto.AccountResponse;
 import com.alice.cosplaysuggestion.dto.ForgotPasswordRequest;
 import com.alice.cosplaysuggestion.dto.LoginRequest;
@@ -23,6 +27,7 @@ import com.alice.cosplaysuggestion.dto.LoginResponse;
 import com.alice.cosplaysuggestion.dto.RegisterRequest;
 import com.alice.cosplaysuggestion.dto.ResetPasswordRequest;
 import com.alice.cosplaysuggestion.dto.UpdateProfileRequest;
+import com.alice.cosplaysuggestion.event.AccountChangedEvent;
 import com.alice.cosplaysuggestion.model.Account;
 import com.alice.cosplaysuggestion.model.EmailVerificationToken;
 import com.alice.cosplaysuggestion.model.PasswordResetToken;
@@ -33,6 +38,8 @@ import com.alice.cosplaysuggestion.repository.EmailVerificationTokenRepository;
 import com.alice.cosplaysuggestion.repository.PasswordResetTokenRepository;
 import com.alice.cosplaysuggestion.utils.JwtUtils;
 
+import io.jsonwebtoken.Claims;
+
 @Service
 @Transactional
 public class AccountService {
@@ -63,16 +70,40 @@ public class AccountService {
     @Autowired
     private FileStorageService fileStorageService;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private UserPrincipalCache principalCache;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+    
+    @Autowired
+    private AccountNameIndex accountNameIndex;
+    
+    @Autowired
+    private VerifiedEmailMigration verifiedEmailMigration;
+    
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+    
+    @Autowired
+    private ApplicationEventPublisher events;
+    
     public AccountResponse register(RegisterRequest request) {
         logger.info("Attempting to register new account with username: {}", request.getUsername());
         
-        // Check if username already exists
-        if (!isUsernameAvailable(request.getUsername())) {
+        // Check if username already exists (always against the DB, never the in-memory index)
+        if (accountRepository.existsByUsername(request.getUsername())) {
             throw new RuntimeException("Username is already taken!");
         }
         
-        // Check if email already exists (both original and verified forms)
-        if (!isEmailAvailable(request.getEmail())) {
+        // Check if email already exists
+        if (emailExists(request.getEmail())) {
             throw new RuntimeException("Email is already in use!");
         }
         
@@ -80,7 +111,7 @@ public class AccountService {
         Account account = new Account();
         account.setUsername(request.getUsername());
         account.setFullName(request.getFullName());
-        account.setEmail(request.getEmail());
+        account.setEmail(Account.canonicalEmail(request.getEmail()));
         account.setBirthDay(request.getBirthday());
         account.setGender(request.getGender());
         account.setPassword(passwordEncoder.encode(request.getPassword()));
@@ -93,16 +124,13 @@ public class AccountService {
         
         // Save account
         Account savedAccount = accountRepository.save(account);
+        accountNameIndex.addUsername(savedAccount.getUsername());
+        accountNameIndex.addEmail(savedAccount.getEmail());
         logger.info("Account created successfully with ID: {} and default avatar: {}", 
                    savedAccount.getId(), savedAccount.getAvatar());
         
-        // Generate and save email verification token
-        String verificationToken = UUID.randomUUID().toString();
-        EmailVerificationToken emailToken = new EmailVerificationToken(verificationToken, savedAccount);
-        tokenRepository.save(emailToken);
-        
-        // Send verification email asynchronously
-        emailService.sendVerificationEmail(savedAccount.getEmail(), verificationToken);
+        // Verification token + email are created by the outbox dispatcher after this commits
+        emailOutboxService.enqueueVerification(savedAccount);
         logger.info("Verification email queued for: {}", savedAccount.getEmail());
         
         return convertToAccountResponse(savedAccount);
@@ -111,9 +139,13 @@ public class AccountService {
     public LoginResponse login(LoginRequest request) {
         logger.info("Attempting login for user: {}", request.getUsernameOrEmail());
         
+        // Refuse over-limit attempts before any query or BCrypt work
+        loginAttemptTracker.check(LoginAttemptTracker.Action.LOGIN, request.getUsernameOrEmail());
+        
         // Find account
         Optional<Account> accountOpt = accountRepository.findByUsernameOrEmail(request.getUsernameOrEmail());
         if (accountOpt.isEmpty()) {
+            loginAttemptTracker.recordFailure(LoginAttemptTracker.Action.LOGIN, request.getUsernameOrEmail());
             throw new RuntimeException("Invalid username/email or password!");
         }
         
@@ -124,10 +156,20 @@ public class AccountService {
             throw new RuntimeException("Account is disabled. Please contact administrator!");
         }
         
+        // Failures via its username and via its email count against the same account
+        loginAttemptTracker.checkAccount(LoginAttemptTracker.Action.LOGIN, account.getId());
+        
         // Authenticate user (email verification is optional for login)
-        Authentication authentication = authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(request.getUsernameOrEmail(), request.getPassword())
-        );
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.getUsernameOrEmail(), request.getPassword())
+            );
+        } catch (BadCredentialsException e) {
+            loginAttemptTracker.recordAccountFailure(LoginAttemptTracker.Action.LOGIN, account.getId());
+            throw e;
+        }
+        loginAttemptTracker.recordSuccess(LoginAttemptTracker.Action.LOGIN, account.getId());
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
         
@@ -136,8 +178,32 @@ public class AccountService {
         
         logger.info("User {} logged in successfully", account.getUsername());
         
-        return new LoginResponse(jwt, account.getId(), account.getUsername(), 
+        LoginResponse response = new LoginResponse(jwt, account.getId(), account.getUsername(), 
                                account.getFullName(), account.getEmail(), account.getRole());
+        response.setRefreshToken(refreshTokenService.issue(account));
+        return response;
+    }
+    
+    // Exchange a refresh token for a new access token and its rotated successor
+    // A reused refresh token revokes its family; that must survive the exception, hence noRollbackFor
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public LoginResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        Account account = rotation.account();
+        String jwt = jwtUtils.generateToken(account.getUsername(), account.getId(), account.getRole());
+        
+        LoginResponse response = new LoginResponse(jwt, account.getId(), account.getUsername(), 
+                               account.getFullName(), account.getEmail(), account.getRole());
+        response.setRefreshToken(rotation.refreshToken());
+        return response;
+    }
+    
+    // Logout: deny the presented access token until it expires and revoke the refresh token chain
+    public void logout(String refreshToken, Claims accessClaims) {
+        if (accessClaims != null && accessClaims.getExpiration() != null) {
+            tokenRevocationService.denyToken(accessClaims.getId(), accessClaims.getExpiration().getTime() / 1000);
+        }
+        refreshTokenService.revoke(refreshToken);
     }
     
     public boolean verifyEmail(String token) {
@@ -162,14 +228,12 @@ public class AccountService {
         Account account = emailToken.getAccount();
         account.setIsActive(true);
         
-        // Add _V suffix to email to mark as verified
-        String originalEmail = account.getEmail();
-        if (!originalEmail.endsWith("_V")) {
-            account.setEmail(originalEmail + "_V");
-            logger.info("Email marked as verified with _V suffix: {}", account.getEmail());
-        }
+        // Mark email as verified (a row still carrying the legacy _V suffix is migrated here)
+        account.setEmail(getOriginalEmail(account.getEmail()));
+        account.setEmailVerified(true);
         
         accountRepository.save(account);
+        accountChanged(AccountChangedEvent.Type.EMAIL_VERIFIED, account.getId());
         
         // Delete the token after successful verification
         tokenRepository.delete(emailToken);
@@ -202,7 +266,7 @@ public class AccountService {
         }
         
         // Check if email is already verified
-        if (isEmailVerified(account.getEmail())) {
+        if (isEmailVerified(account)) {
             throw new RuntimeException("Email is already verified!");
         }
         
@@ -239,16 +303,19 @@ public class AccountService {
         logger.info("Verification email queued for: {}", getOriginalEmail(account.getEmail()));
     }
     
+    // Read-only path: projection instead of the entity, no flush; routed to the replica if configured
+    @Transactional(readOnly = true)
     public AccountResponse getAccountById(Long id) {
-        Account account = accountRepository.findById(id)
+        AccountProfile profile = accountRepository.findProfileById(id)
             .orElseThrow(() -> new RuntimeException("Account not found!"));
-        return convertToAccountResponse(account);
+        return convertToAccountResponse(profile);
     }
     
+    @Transactional(readOnly = true)
     public AccountResponse getAccountByUsername(String username) {
-        Account account = accountRepository.findByUsername(username)
+        AccountProfile profile = accountRepository.findProfileByUsername(username)
             .orElseThrow(() -> new RuntimeException("Account not found!"));
-        return convertToAccountResponse(account);
+        return convertToAccountResponse(profile);
     }
     
     public AccountResponse updateProfile(String username, UpdateProfileRequest request) {
@@ -263,12 +330,17 @@ public class AccountService {
         }
         
         if (request.getEmail() != null && !request.getEmail().trim().isEmpty()) {
-            String newEmail = request.getEmail().trim();
-            // Check if new email is already in use by another account
-            if (!isEmailAvailableForUser(newEmail, account.getId())) {
-                throw new RuntimeException("Email is already in use by another account!");
+            String newEmail = Account.canonicalEmail(request.getEmail());
+            // Only a different address resets verification
+            if (!newEmail.equals(Account.canonicalEmail(getOriginalEmail(account.getEmail())))) {
+                // Check if new email is already in use by another account
+                if (!isEmailAvailableForUser(newEmail, account.getId())) {
+                    throw new RuntimeException("Email is already in use by another account!");
+                }
+                account.setEmail(newEmail);
+                account.setEmailVerified(false);
+                accountNameIndex.addEmail(newEmail);
             }
-            account.setEmail(newEmail);
         }
         
         if (request.getBirthday() != null) {
@@ -292,43 +364,38 @@ public class AccountService {
         }
         
         Account updatedAccount = accountRepository.save(account);
+        accountChanged(AccountChangedEvent.Type.PROFILE_UPDATED, updatedAccount.getId());
         logger.info("Profile updated successfully for user: {}", username);
         
         return convertToAccountResponse(updatedAccount);
     }
     
+    // Public availability checks: a Bloom filter miss means never registered, no query needed
+    @Transactional(readOnly = true)
     public boolean isUsernameAvailable(String username) {
+        if (!accountNameIndex.mightContainUsername(username)) {
+            return true;
+        }
         return !accountRepository.existsByUsername(username);
     }
     
+    @Transactional(readOnly = true)
     public boolean isEmailAvailable(String email) {
-        // Check if email exists in original form
-        if (accountRepository.existsByEmail(email)) {
-            return false;
+        if (!accountNameIndex.mightContainEmail(email)) {
+            return true;
         }
-        
-        // Check if email exists in verified form (with _V suffix)
-        return !accountRepository.existsByEmail(email + "_V");
+        return !emailExists(email);
     }
     
     // Check if email is available for a specific user (for profile updates)
+    @Transactional(readOnly = true)
     public boolean isEmailAvailableForUser(String email, Long userId) {
-        // Check original form
-        Optional<Account> existingAccount = accountRepository.findByEmail(email);
-        if (existingAccount.isPresent() && !existingAccount.get().getId().equals(userId)) {
-            return false;
-        }
-        
-        // Check verified form (with _V suffix)
-        Optional<Account> verifiedAccount = accountRepository.findByEmail(email + "_V");
-        if (verifiedAccount.isPresent() && !verifiedAccount.get().getId().equals(userId)) {
-            return false;
-        }
-        
-        return true;
+        String canonical = Account.canonicalEmail(getOriginalEmail(email));
+        return !accountRepository.existsByEmailAndIdNot(canonical, userId)
+            && (verifiedEmailMigration.isComplete() || !accountRepository.existsByEmailAndIdNot(canonical + "_V", userId));
     }
     
-    // Get original email by removing _V suffix if present
+    // Legacy rows store verified emails as "xxx_V" until VerifiedEmailMigration has run
     private String getOriginalEmail(String email) {
         if (email != null && email.endsWith("_V")) {
             return email.substring(0, email.length() - 2);
@@ -336,40 +403,51 @@ public class AccountService {
         return email;
     }
     
-    // Check if email is verified (has _V suffix)
-    public boolean isEmailVerified(String email) {
-        return email != null && email.endsWith("_V");
+    // No query: reads the flag (or the legacy suffix) of an already loaded account
+    public boolean isEmailVerified(Account account) {
+        return isEmailVerified(account.getEmailVerified(), account.getEmail());
     }
     
-    // Find account by original email (with or without _V suffix)
+    private boolean isEmailVerified(Boolean emailVerified, String email) {
+        return Boolean.TRUE.equals(emailVerified) || (email != null && email.endsWith("_V"));
+    }
+    
+    // Find account by email: one seek on the canonical column; the "_V" form is only
+    // looked up while the migration of legacy rows is still running
     public Optional<Account> findByOriginalEmail(String email) {
-        // Try with original email first
-        Optional<Account> account = accountRepository.findByEmail(email);
-        if (account.isPresent()) {
-            return account;
+        String canonical = Account.canonicalEmail(getOriginalEmail(email));
+        Optional<Account> account = accountRepository.findByEmail(canonical);
+        if (account.isEmpty() && !verifiedEmailMigration.isComplete()) {
+            return accountRepository.findByEmail(canonical + "_V");
         }
-        
-        // Try with _V suffix if not found
-        if (!email.endsWith("_V")) {
-            return accountRepository.findByEmail(email + "_V");
-        }
-        
-        return Optional.empty();
+        return account;
+    }
+    
+    private boolean emailExists(String email) {
+        String canonical = Account.canonicalEmail(getOriginalEmail(email));
+        return accountRepository.existsByEmail(canonical)
+            || (!verifiedEmailMigration.isComplete() && accountRepository.existsByEmail(canonical + "_V"));
     }
     
     // Forgot Password methods
     public boolean requestPasswordReset(ForgotPasswordRequest request) {
         logger.info("Password reset requested for: {}", request.getUsernameOrEmail());
         
+        // Each request sends an email: every request counts against the limit
+        loginAttemptTracker.check(LoginAttemptTracker.Action.RESET_REQUEST, request.getUsernameOrEmail());
+        
         // Find account by username or email
         Optional<Account> accountOpt = accountRepository.findByUsernameOrEmail(request.getUsernameOrEmail());
         if (accountOpt.isEmpty()) {
+            loginAttemptTracker.recordFailure(LoginAttemptTracker.Action.RESET_REQUEST, request.getUsernameOrEmail());
             logger.warn("Account not found for password reset: {}", request.getUsernameOrEmail());
             // Return true anyway to prevent user enumeration
             return true;
         }
         
         Account account = accountOpt.get();
+        loginAttemptTracker.checkAccount(LoginAttemptTracker.Action.RESET_REQUEST, account.getId());
+        loginAttemptTracker.recordAccountFailure(LoginAttemptTracker.Action.RESET_REQUEST, account.getId());
         
         // Check if account is active
         if (!account.getIsActive()) {
@@ -410,14 +488,19 @@ public class AccountService {
             throw new RuntimeException("Mật khẩu xác nhận không khớp!");
         }
         
+        // Refuse over-limit code guesses before any query
+        loginAttemptTracker.check(LoginAttemptTracker.Action.RESET_CONFIRM, request.getUsernameOrEmail());
+        
         // Find account
         Optional<Account> accountOpt = accountRepository.findByUsernameOrEmail(request.getUsernameOrEmail());
         if (accountOpt.isEmpty()) {
             logger.warn("Account not found for password reset: {}", request.getUsernameOrEmail());
+            loginAttemptTracker.recordFailure(LoginAttemptTracker.Action.RESET_CONFIRM, request.getUsernameOrEmail());
             throw new RuntimeException("Không tìm thấy tài khoản!");
         }
         
         Account account = accountOpt.get();
+        loginAttemptTracker.checkAccount(LoginAttemptTracker.Action.RESET_CONFIRM, account.getId());
         
         // Find reset token
         Optional<PasswordResetToken> tokenOpt = passwordResetTokenRepository
@@ -425,6 +508,7 @@ public class AccountService {
         
         if (tokenOpt.isEmpty()) {
             logger.warn("Invalid reset code for account: {}", account.getUsername());
+            loginAttemptTracker.recordAccountFailure(LoginAttemptTracker.Action.RESET_CONFIRM, account.getId());
             throw new RuntimeException("Mã xác nhận không hợp lệ!");
         }
         
@@ -446,6 +530,12 @@ public class AccountService {
             resetToken.setUsed(true);
             passwordResetTokenRepository.save(resetToken);
             
+            // Password was forgotten (or leaked): sessions issued before the reset stop working
+            tokenRevocationService.revokeUser(account.getId());
+            refreshTokenService.revokeAll(account.getId());
+            accountChanged(AccountChangedEvent.Type.PASSWORD_CHANGED, account.getId());
+            
+            loginAttemptTracker.recordSuccess(LoginAttemptTracker.Action.RESET_CONFIRM, account.getId());
             logger.info("Password successfully reset for account: {}", account.getUsername());
             return true;
             
@@ -477,8 +567,26 @@ public class AccountService {
         response.setRole(account.getRole());
         response.setProvider(account.getProvider());
         response.setCreatedAt(account.getCreatedAt());
-        // Set email verification status based on _V suffix
-        response.setEmailVerified(isEmailVerified(account.getEmail()));
+        response.setEmailVerified(isEmailVerified(account));
+        return response;
+    }
+    
+    private AccountResponse convertToAccountResponse(AccountProfile profile) {
+        AccountResponse response = new AccountResponse();
+        response.setId(profile.id());
+        response.setUsername(profile.username());
+        response.setFullName(profile.fullName());
+        response.setEmail(getOriginalEmail(profile.email()));
+        response.setBirthDay(profile.birthDay());
+        response.setGender(profile.gender());
+        response.setHeight(profile.height());
+        response.setWeight(profile.weight());
+        response.setAvatar(profile.avatar());
+        response.setIsActive(profile.isActive());
+        response.setRole(profile.role());
+        response.setProvider(profile.provider());
+        response.setCreatedAt(profile.createdAt());
+        response.setEmailVerified(isEmailVerified(profile.emailVerified(), profile.email()));
         return response;
     }
     
@@ -501,6 +609,7 @@ public class AccountService {
             // Update password
             account.setPassword(passwordEncoder.encode(newPassword));
             accountRepository.save(account);
+            accountChanged(AccountChangedEvent.Type.PASSWORD_CHANGED, account.getId());
             
             logger.info("Password changed successfully for user: {}", username);
             
@@ -528,14 +637,16 @@ public class AccountService {
             }
             
             // Check if new email already exists
-            if (accountRepository.findByEmail(newEmail).isPresent() || 
-                accountRepository.findByEmail(newEmail + "_V").isPresent()) {
+            if (emailExists(newEmail)) {
                 throw new RuntimeException("Email này đã được sử dụng bởi tài khoản khác");
             }
             
             // Update email (set as unverified)
-            account.setEmail(newEmail);
+            account.setEmail(Account.canonicalEmail(newEmail));
+            account.setEmailVerified(false);
             accountRepository.save(account);
+            accountNameIndex.addEmail(newEmail);
+            accountChanged(AccountChangedEvent.Type.EMAIL_CHANGED, account.getId());
             
             // Send verification email for new email
             // Create new verification token
@@ -557,6 +668,41 @@ public class AccountService {
         }
     }
     
+    // Enable or disable an account (admin)
+    // Disabling also revokes the account's outstanding tokens, which are otherwise trusted until expiry
+    public AccountResponse setAccountActive(Long accountId, boolean active) {
+        Account account = accountRepository.findById(accountId)
+            .orElseThrow(() -> new RuntimeException("Account not found!"));
+        account.setIsActive(active);
+        accountRepository.save(account);
+        if (!active) {
+            tokenRevocationService.revokeUser(accountId);
+            refreshTokenService.revokeAll(accountId);
+        }
+        accountChanged(AccountChangedEvent.Type.ACTIVE_CHANGED, accountId);
+        logger.info("Account {} {}", account.getUsername(), active ? "enabled" : "disabled");
+        return convertToAccountResponse(account);
+    }
+    
+    // Change an account's role (admin); the role is a token claim, so existing tokens are revoked
+    public AccountResponse changeRole(Long accountId, Role role) {
+        Account account = accountRepository.findById(accountId)
+            .orElseThrow(() -> new RuntimeException("Account not found!"));
+        account.setRole(role);
+        accountRepository.save(account);
+        tokenRevocationService.revokeUser(accountId);
+        refreshTokenService.revokeAll(accountId);
+        accountChanged(AccountChangedEvent.Type.ROLE_CHANGED, accountId);
+        logger.info("Role of account {} changed to {}", account.getUsername(), role);
+        return convertToAccountResponse(account);
+    }
+    
+    // Drop cached principals now, and again once the change has committed (see UserPrincipalCache)
+    private void accountChanged(AccountChangedEvent.Type type, Long accountId) {
+        principalCache.evictAccount(accountId);
+        events.publishEvent(new AccountChangedEvent(type, accountId));
+    }
+    
     // Update user avatar
     public void updateAvatar(String username, String avatarUrl) {
         try {
@@ -566,8 +712,12 @@ public class AccountService {
             // Delete old avatar file if exists (except default avatar)
             String oldAvatar = account.getAvatar();
             if (oldAvatar != null && !oldAvatar.contains("default-avatar.jpg")) {
-                // TODO: Delete old avatar file from filesystem
-                logger.info("Old avatar URL: {}", oldAvatar);
+                try {
+                    fileStorageService.discardAvatar(oldAvatar);
+                    logger.info("Old avatar released: {}", oldAvatar);
+                } catch (IOException e) {
+                    logger.warn("Could not remove old avatar {}: {}", oldAvatar, e.getMessage());
+                }
             }
             
             account.setAvatar(avatarUrl);
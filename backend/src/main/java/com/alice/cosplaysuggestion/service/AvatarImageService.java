@@ -0,0 +1,306 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.alice.cosplaysuggestion.exception.AvatarProcessingBusyException;
+import com.alice.cosplaysuggestion.storage.BlobStore;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Upload-time avatar normalization: decode, center-crop to a square, re-encode at fixed sizes
+// - the pixel count is checked from the format header before any decode (decompression bombs)
+// - only the centered square is decoded, subsampled down to ~2x the largest size
+// - the largest size is stored as the avatar; smaller sizes are pre-rendered into the resize cache
+// Work runs on a small dedicated pool so a burst of uploads can't starve request threads of CPU/heap
+@Service
+public class AvatarImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarImageService.class);
+
+    @Value("${app.avatar.sizes:64,128,256}")
+    private List<Integer> sizes;
+
+    // webp when an ImageIO WebP writer plugin is on the classpath, jpg otherwise
+    @Value("${app.avatar.format:webp}")
+    private String preferredFormat;
+
+    @Value("${app.avatar.quality:85}")
+    private int quality;
+
+    @Value("${app.avatar.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${app.avatar.workers:2}")
+    private int workers;
+
+    @Value("${app.avatar.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.avatar.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    private final ImageResizeService imageResizeService;
+    private final BlobStore blobStore;
+
+    private ThreadPoolExecutor executor;
+    private List<Integer> fixedSizes;
+    private int canonicalSize;
+    private String format;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AvatarImageService(ImageResizeService imageResizeService, BlobStore blobStore) {
+        this.imageResizeService = imageResizeService;
+        this.blobStore = blobStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.fixedSizes = sizes.stream().filter(s -> s != null && s > 0).distinct().sorted().toList();
+        if (fixedSizes.isEmpty()) {
+            throw new IllegalStateException("app.avatar.sizes must contain at least one positive size");
+        }
+        this.canonicalSize = fixedSizes.get(fixedSizes.size() - 1);
+        this.format = imageResizeService.resolveFormat(preferredFormat, "avatar.jpg");
+        if (!format.equalsIgnoreCase(preferredFormat)) {
+            log.info("No ImageIO writer for avatar format '{}', using {}", preferredFormat, format);
+        }
+
+        int n = Math.max(1, workers);
+        AtomicInteger seq = new AtomicInteger();
+        // bounded queue: when full, uploads fail fast instead of piling decoded bitmaps on the heap
+        this.executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> new Thread(r, "AvatarImage-" + seq.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    // Snap a requested display width to the nearest fixed size at or above it,
+    // so each avatar has at most sizes.length variants in the resize cache
+    public int snapWidth(int width) {
+        for (int size : fixedSizes) {
+            if (size >= width) {
+                return size;
+            }
+        }
+        return canonicalSize;
+    }
+
+    // Decode, crop and re-encode an uploaded image at the canonical (largest) size
+    // Throws IllegalArgumentException for unreadable images or images over the pixel limit,
+    // AvatarProcessingBusyException when the work queue is full
+    public EncodedAvatar normalize(Path source) throws IOException {
+        Future<EncodedAvatar> job;
+        try {
+            job = executor.submit(() -> render(source));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new AvatarProcessingBusyException("Avatar processing is busy, please try again");
+        }
+        try {
+            EncodedAvatar result = job.get(timeoutSeconds, TimeUnit.SECONDS);
+            processed.incrementAndGet();
+            return result;
+        } catch (TimeoutException e) {
+            job.cancel(true);
+            throw new IOException("Avatar processing timed out");
+        } catch (InterruptedException e) {
+            job.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Avatar processing interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException("Avatar processing failed", e.getCause());
+        }
+    }
+
+    // Pre-render the smaller fixed sizes of a stored avatar into the resize cache (best effort)
+    public void warmVariants(String key) {
+        if (fixedSizes.size() < 2) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Path file = blobStore.localFile(key);
+                    if (file == null) {
+                        return;
+                    }
+                    for (int size : fixedSizes) {
+                        if (size < canonicalSize) {
+                            imageResizeService.resize(file, size, quality, format);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Avatar variant warm-up skipped for {}: {}", key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // variants will be rendered on first request instead
+        }
+    }
+
+    public AvatarStats getStats() {
+        return new AvatarStats(processed.get(), rejected.get(), executor.getActiveCount(),
+                executor.getQueue().size(), format, fixedSizes);
+    }
+
+    private EncodedAvatar render(Path source) throws IOException {
+        BufferedImage square = decodeSquare(source);
+        int side = Math.min(canonicalSize, square.getWidth());
+        boolean alpha = !"jpg".equals(format) && square.getColorModel().hasAlpha();
+        BufferedImage scaled = scale(square, side, alpha);
+        byte[] data = encode(scaled);
+        log.debug("Avatar normalized to {}px {} ({} bytes)", side, format, data.length);
+        return new EncodedAvatar(data, "." + format, side);
+    }
+
+    private BufferedImage decodeSquare(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > maxPixels) {
+                    throw new IllegalArgumentException("Image dimensions too large (" + w + "x" + h + ")");
+                }
+
+                int side = Math.min(w, h);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle((w - side) / 2, (h - side) / 2, side, side));
+                // keep at least 2x the output size for a clean downscale
+                int step = Math.max(1, side / (canonicalSize * 2));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                BufferedImage square = reader.read(0, param);
+
+                int orientation = "jpeg".equalsIgnoreCase(reader.getFormatName())
+                        ? ImageMetadataService.readExifOrientation(source) : 1;
+                return orientation > 1 ? orient(square, orientation) : square;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // A centered square crop commutes with EXIF rotation/flip, so orientation is applied after cropping
+    private static BufferedImage orient(BufferedImage square, int orientation) {
+        int w = square.getWidth();
+        int h = square.getHeight();
+        int[] pixels = square.getRGB(0, 0, w, h, null, 0, w);
+        int[] out = ImageMetadataService.orient(pixels, w, h, orientation);
+        int type = square.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage result = new BufferedImage(h, w, type);
+        result.setRGB(0, 0, h, w, out, 0, h);
+        return result;
+    }
+
+    // Progressive halving followed by a final bilinear pass; JPEG output is flattened onto white
+    private static BufferedImage scale(BufferedImage src, int side, boolean keepAlpha) {
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = src;
+        int size = src.getWidth();
+        do {
+            int next = Math.max(side, size / 2);
+            BufferedImage target = new BufferedImage(next, next, type);
+            Graphics2D g = target.createGraphics();
+            try {
+                if (!keepAlpha) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, next, next);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, next, next, null);
+            } finally {
+                g.dispose();
+            }
+            current = target;
+            size = next;
+        } while (size > side);
+        return current;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg".equals(format) ? "jpeg" : format);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer for format: " + format);
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(buffer)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionTypes() != null && param.getCompressionType() == null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality / 100f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return buffer.toByteArray();
+    }
+
+    public record EncodedAvatar(byte[] data, String extension, int size) {}
+
+    public record AvatarStats(long processed, long rejected, int active, int queued,
+                              String format, List<Integer> sizes) {}
+}
@@ -0,0 +1,122 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.alice.cosplaysuggestion.dto.AccountAvatar;
+import com.alice.cosplaysuggestion.dto.GalleryItemRef;
+import com.alice.cosplaysuggestion.model.MediaBlob;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.repository.GalleryItemRepository;
+import com.alice.cosplaysuggestion.repository.MediaBlobRepository;
+
+// Periodic recount of media_blobs.ref_count from the rows that actually reference each blob
+// ContentStore commits counter updates in their own short transactions and gives a reference back
+// through an afterCompletion hook. A crash between the two commits, or a caller without transaction
+// synchronization, leaves the counter off: too high keeps an orphan forever, too low lets the sweep
+// delete content still in use. References are gallery items (by content hash) and accounts whose
+// avatar URL names a content-addressed avatar.
+// Only blobs untouched for the sweep grace period are considered, and the correction is conditional
+// on the row being unchanged since it was read, so uploads and deletes in flight are never overwritten.
+@Service
+public class ContentReferenceReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentReferenceReconciler.class);
+
+    private static final int BATCH = 200;
+    private static final String GALLERY_BLOB_PREFIX = "gallery/_blobs/";
+    private static final String AVATAR_PREFIX = "avatars/";
+
+    @Value("${app.content-store.sweep.grace-minutes:60}")
+    private long graceMinutes;
+
+    private final MediaBlobRepository blobRepo;
+    private final GalleryItemRepository itemRepo;
+    private final AccountRepository accountRepo;
+
+    public ContentReferenceReconciler(MediaBlobRepository blobRepo, GalleryItemRepository itemRepo,
+                                      AccountRepository accountRepo) {
+        this.blobRepo = blobRepo;
+        this.itemRepo = itemRepo;
+        this.accountRepo = accountRepo;
+    }
+
+    // Cron: every day at 4:30 AM (after the refresh token cleanup)
+    @Scheduled(cron = "${app.content-store.reconcile.cron:0 30 4 * * *}")
+    public void reconcile() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        Map<String, Integer> avatarRefs = countAvatarReferences();
+
+        int checked = 0;
+        int corrected = 0;
+        Long afterId = 0L;
+        List<MediaBlob> page;
+        do {
+            page = blobRepo.findByIdGreaterThanAndUpdatedAtBeforeOrderByIdAsc(afterId, cutoff, Limit.of(BATCH));
+            Map<String, Integer> itemRefs = countItemReferences(page);
+            for (MediaBlob blob : page) {
+                String key = blob.getStorageKey();
+                Integer actual = key.startsWith(AVATAR_PREFIX) ? avatarRefs.getOrDefault(key, 0)
+                        : key.startsWith(GALLERY_BLOB_PREFIX) ? itemRefs.getOrDefault(key, 0)
+                        : null; // not written by a known owner: leave it alone
+                checked++;
+                if (actual != null && actual != blob.getRefCount()
+                        && blobRepo.correctRefCount(blob.getId(), blob.getRefCount(), actual, cutoff, LocalDateTime.now()) > 0) {
+                    corrected++;
+                    log.warn("Blob {} ref_count corrected from {} to {}", key, blob.getRefCount(), actual);
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == BATCH);
+        log.info("Content reference recount checked {} blobs, corrected {}", checked, corrected);
+    }
+
+    // gallery/_blobs/{sub}/{sha256}{ext} -> number of items with that content, sub dir and extension
+    private Map<String, Integer> countItemReferences(List<MediaBlob> blobs) {
+        List<String> hashes = blobs.stream()
+                .filter(b -> b.getStorageKey().startsWith(GALLERY_BLOB_PREFIX))
+                .map(MediaBlob::getSha256)
+                .distinct()
+                .toList();
+        if (hashes.isEmpty()) {
+            return Map.of();
+        }
+        return itemRepo.findRefsByContentHashIn(hashes).stream()
+                .collect(Collectors.groupingBy(
+                        (GalleryItemRef r) -> GalleryService.itemKey(r.storageName(), r.subDir(), r.fileName(), r.contentHash()),
+                        Collectors.summingInt(r -> 1)));
+    }
+
+    // avatars/{sha256}{ext} -> number of accounts using it; legacy per-upload avatars are not blobs
+    private Map<String, Integer> countAvatarReferences() {
+        Map<String, Integer> counts = new HashMap<>();
+        Long afterId = 0L;
+        List<AccountAvatar> page;
+        do {
+            page = accountRepo.findAvatarsAfter(afterId, Limit.of(1000));
+            for (AccountAvatar account : page) {
+                String url = account.avatar();
+                String fileName = url.substring(url.lastIndexOf('/') + 1);
+                if (FileStorageService.CONTENT_ADDRESSED_AVATAR.matcher(fileName).matches()) {
+                    counts.merge(AVATAR_PREFIX + fileName, 1, Integer::sum);
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == 1000);
+        return counts;
+    }
+}
@@ -0,0 +1,264 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.alice.cosplaysuggestion.model.MediaBlob;
+import com.alice.cosplaysuggestion.repository.MediaBlobRepository;
+import com.alice.cosplaysuggestion.storage.BlobStore;
+
+import jakarta.annotation.PostConstruct;
+
+// Content-addressed media storage shared by gallery items and avatars
+// Uploads are hashed (SHA-256) while being spooled to a temp file; each unique content is
+// stored once as "{prefix}/{sha256}{ext}" and reference counted in media_blobs. Duplicate
+// uploads only bump the counter and skip the S3 PUT / disk write entirely.
+// Each counter update commits on its own, so a long ingest never holds a blob row lock; the
+// reference is given back if the caller's transaction rolls back. Counters left wrong by a crash
+// between the two commits are repaired by ContentReferenceReconciler.
+// Blobs whose count reaches 0 are removed by a periodic sweep after a grace period.
+@Service
+public class ContentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentStore.class);
+
+    // Hash-named objects never change, so S3/CDN may cache them forever
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final int SWEEP_BATCH = 200;
+    private static final int RELEASE_BATCH = 500;
+
+    // Uploads are hashed into temp files here before being handed to the blob store
+    @Value("${app.content-store.spool.location:${java.io.tmpdir}}")
+    private String spoolLocation;
+
+    // Unreferenced blobs are kept this long so a rolled-back delete can still re-acquire them
+    @Value("${app.content-store.sweep.grace-minutes:60}")
+    private long sweepGraceMinutes;
+
+    private final MediaBlobRepository blobRepo;
+    private final TransactionTemplate newTransaction;
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+
+    private Path spoolRoot;
+
+    private final AtomicLong storedBlobs = new AtomicLong();
+    private final AtomicLong dedupHits = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong sweptBlobs = new AtomicLong();
+
+    public ContentStore(MediaBlobRepository blobRepo, PlatformTransactionManager transactionManager,
+                        JdbcTemplate jdbcTemplate, BlobStore blobStore) {
+        this.blobRepo = blobRepo;
+        this.blobStore = blobStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.spoolRoot = Paths.get(spoolLocation).toAbsolutePath().normalize();
+    }
+
+    // Store content under prefix ("gallery/_blobs/pic", "avatars") and take one reference to it.
+    // Call inside the transaction that saves the referencing row so a rollback releases the reference.
+    public StoredContent store(InputStream in, String prefix, String extension) throws IOException {
+        return store(in, prefix, extension, null);
+    }
+
+    // Same as above; inspector sees the spooled file when the content is new (not on a dedup hit),
+    // e.g. to extract metadata without downloading the object again
+    public StoredContent store(InputStream in, String prefix, String extension, Consumer<Path> inspector) throws IOException {
+        String ext = extension == null ? "" : extension.toLowerCase(Locale.ROOT);
+        Path spool = spool();
+        try {
+            MessageDigest sha256 = sha256();
+            long size;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(spool), sha256)) {
+                size = in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String key = prefix + "/" + hash + ext;
+
+            if (acquire(key)) {
+                dedupHits.incrementAndGet();
+                bytesSaved.addAndGet(size);
+                log.debug("Duplicate content {} reused ({} bytes)", key, size);
+                return new StoredContent(key, hash, size, true);
+            }
+
+            if (inspector != null) {
+                inspector.accept(spool);
+            }
+
+            // Bytes first, then the row: an existing row always means the object exists.
+            // Two uploads racing on new content both PUT identical bytes, which is harmless.
+            put(spool, key);
+            createRow(key, hash, size);
+            if (!acquire(key)) {
+                throw new IOException("Stored blob disappeared: " + key);
+            }
+            storedBlobs.incrementAndGet();
+            return new StoredContent(key, hash, size, false);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    // Drop one reference (e.g. an item or avatar no longer pointing at the blob)
+    public void release(String key) {
+        release(key, 1);
+    }
+
+    public void release(String key, int count) {
+        if (key != null && count > 0) {
+            blobRepo.release(key, count, LocalDateTime.now());
+        }
+    }
+
+    // Drop many references at once (bulk item / folder delete): one JDBC batch, one round-trip
+    public void releaseAll(Map<String, Integer> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<String, Integer>> entries = List.copyOf(counts.entrySet());
+        jdbcTemplate.batchUpdate(
+                "UPDATE media_blobs SET ref_count = ref_count - ?, updated_at = ? WHERE storage_key = ? AND ref_count > 0",
+                entries, RELEASE_BATCH, (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setTimestamp(2, now);
+                    ps.setString(3, entry.getKey());
+                });
+    }
+
+    // Remove unreferenced blobs; each one in its own transaction holding the row lock,
+    // so a concurrent store() of the same content waits and then re-uploads
+    @Scheduled(fixedDelayString = "${app.content-store.sweep.interval-ms:900000}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(sweepGraceMinutes);
+        List<Long> ids = blobRepo.findUnreferencedIds(cutoff, PageRequest.of(0, SWEEP_BATCH));
+        for (Long id : ids) {
+            try {
+                newTransaction.executeWithoutResult(status -> blobRepo.lockUnreferenced(id).ifPresent(blob -> {
+                    deleteObject(blob.getStorageKey());
+                    blobRepo.delete(blob);
+                    sweptBlobs.incrementAndGet();
+                }));
+            } catch (RuntimeException e) {
+                log.warn("Failed to sweep media blob {}: {}", id, e.getMessage());
+            }
+        }
+        if (!ids.isEmpty()) {
+            log.info("Content store sweep removed up to {} unreferenced blobs", ids.size());
+        }
+    }
+
+    public ContentStats getStats() {
+        return new ContentStats(blobRepo.count(), blobRepo.sumSize(), storedBlobs.get(),
+                dedupHits.get(), bytesSaved.get(), sweptBlobs.get());
+    }
+
+    // Short transaction per blob: the row lock is released right away instead of at the end of
+    // the caller's (possibly long) transaction; a rollback of the caller gives the reference back
+    private boolean acquire(String key) {
+        Integer updated = newTransaction.execute(status -> blobRepo.acquire(key, LocalDateTime.now()));
+        if (updated == null || updated == 0) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        releaseAfterRollback(key);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    private void releaseAfterRollback(String key) {
+        try {
+            newTransaction.executeWithoutResult(status -> blobRepo.release(key, 1, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release blob {} after rollback: {}", key, e.getMessage());
+        }
+    }
+
+    private void createRow(String key, String hash, long size) {
+        try {
+            newTransaction.executeWithoutResult(status -> blobRepo.save(new MediaBlob(key, hash, size)));
+        } catch (DataIntegrityViolationException e) {
+            // another instance stored the same content concurrently; its row is as good as ours
+            log.debug("Blob row {} already created concurrently", key);
+        }
+    }
+
+    private void put(Path spool, String key) throws IOException {
+        try {
+            blobStore.put(key, spool, IMMUTABLE_CACHE_CONTROL);
+        } catch (IOException e) {
+            log.error("Failed to store blob {}: {}", key, e.getMessage());
+            throw e;
+        }
+    }
+
+    private void deleteObject(String key) {
+        try {
+            blobStore.delete(key);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not delete " + key, e);
+        }
+    }
+
+    private Path spool() throws IOException {
+        Files.createDirectories(spoolRoot);
+        return Files.createTempFile(spoolRoot, "blob", ".tmp");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // key is the storage key, hash the SHA-256 hex; deduplicated is true when no bytes were written
+    public record StoredContent(String key, String hash, long size, boolean deduplicated) {}
+
+    public record ContentStats(long blobs, long storedBytes, long uploadsStored, long dedupHits,
+                               long bytesSaved, long sweptBlobs) {}
+}
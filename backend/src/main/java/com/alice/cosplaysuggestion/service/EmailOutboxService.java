@@ -0,0 +1,291 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.alice.cosplaysuggestion.event.EmailQueuedEvent;
+import com.alice.cosplaysuggestion.model.Account;
+import com.alice.cosplaysuggestion.model.EmailOutboxMessage;
+import com.alice.cosplaysuggestion.model.EmailOutboxMessage.Status;
+import com.alice.cosplaysuggestion.model.EmailVerificationToken;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.repository.EmailOutboxRepository;
+import com.alice.cosplaysuggestion.repository.EmailVerificationTokenRepository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+// Outbox dispatcher for registration emails
+// The request only inserts an outbox row next to the account; after commit a single worker
+// claims pending rows, creates the verification token, and sends the batch over one SMTP
+// connection. Failures are retried with exponential backoff up to max-attempts. A claim is a
+// lease: rows whose claim is older than lease-minutes (instance died, worker stopped mid-batch)
+// are put back by the poll and on startup and sent again (at-least-once).
+@Service
+public class EmailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    private static final int REPORT_RECENT = 20;
+    private static final long BASE_BACKOFF_SECONDS = 60;
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.retention-days:7}")
+    private long retentionDays;
+
+    // Well above the time one batch takes over SMTP
+    @Value("${app.email.outbox.lease-minutes:10}")
+    private long leaseMinutes;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final AccountRepository accountRepository;
+    private final EmailVerificationTokenRepository tokenRepository;
+    private final EmailService emailService;
+    private final ApplicationEventPublisher events;
+
+    // Single worker thread; the flag keeps scheduled and event-triggered runs from overlapping
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "EmailOutbox"));
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public EmailOutboxService(EmailOutboxRepository outboxRepository, AccountRepository accountRepository,
+                              EmailVerificationTokenRepository tokenRepository, EmailService emailService,
+                              ApplicationEventPublisher events) {
+        this.outboxRepository = outboxRepository;
+        this.accountRepository = accountRepository;
+        this.tokenRepository = tokenRepository;
+        this.emailService = emailService;
+        this.events = events;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // Queue the verification email of a new account; call inside the registration transaction
+    public EmailOutboxMessage enqueueVerification(Account account) {
+        EmailOutboxMessage message = outboxRepository.save(
+                new EmailOutboxMessage(EmailOutboxMessage.Type.VERIFICATION, account.getId()));
+        events.publishEvent(new EmailQueuedEvent(message.getId()));
+        return message;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        requeueExpired();
+        trigger();
+    }
+
+    // Send right after the registration commits instead of waiting for the next poll
+    @TransactionalEventListener
+    public void onEmailQueued(EmailQueuedEvent event) {
+        trigger();
+    }
+
+    // Safety net for retries, triggers lost to a restart and expired claims
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-ms:30000}")
+    public void poll() {
+        requeueExpired();
+        trigger();
+    }
+
+    private void requeueExpired() {
+        int resumed = outboxRepository.releaseExpiredClaims(Status.SENDING, Status.PENDING,
+                LocalDateTime.now().minusMinutes(leaseMinutes));
+        if (resumed > 0) {
+            log.info("Re-queued {} email(s) with an expired claim", resumed);
+        }
+    }
+
+    // Cron: every day at 4 AM
+    @Scheduled(cron = "0 0 4 * * *")
+    public void cleanupSent() {
+        int deleted = outboxRepository.deleteSentBefore(Status.SENT, LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Cleaned up {} sent outbox emails", deleted);
+        }
+    }
+
+    private void trigger() {
+        if (running.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (RuntimeException e) {
+                running.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<EmailOutboxMessage> batch;
+            do {
+                batch = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                        Status.PENDING, LocalDateTime.now(), Limit.of(batchSize));
+                sendBatch(batch);
+            } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            log.error("Email outbox dispatcher stopped: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // package-private for tests
+    void sendBatch(List<EmailOutboxMessage> batch) {
+        Map<MimeMessage, EmailOutboxMessage> prepared = new LinkedHashMap<>();
+        for (EmailOutboxMessage message : batch) {
+            LocalDateTime claimedAt = LocalDateTime.now();
+            if (outboxRepository.claim(message.getId(), Status.PENDING, Status.SENDING, claimedAt) == 0) {
+                continue;
+            }
+            message.setStatus(Status.SENDING);
+            message.setClaimedAt(claimedAt);
+            message.setAttempts(message.getAttempts() + 1);
+            try {
+                MimeMessage mime = prepareVerification(message);
+                if (mime == null) {
+                    markSent(message);
+                } else {
+                    prepared.put(mime, message);
+                }
+            } catch (MessagingException | RuntimeException e) {
+                markFailed(message, e.getMessage());
+            }
+        }
+        if (prepared.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        String batchError = null;
+        try {
+            emailService.sendAll(prepared.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            batchError = failed.isEmpty() ? e.getMessage() : null;
+        } catch (MailException e) {
+            batchError = e.getMessage();
+        }
+        int failedCount = 0;
+        for (Map.Entry<MimeMessage, EmailOutboxMessage> entry : prepared.entrySet()) {
+            Exception error = failed.get(entry.getKey());
+            if (batchError != null || error != null) {
+                markFailed(entry.getValue(), batchError != null ? batchError : error.getMessage());
+                failedCount++;
+            } else {
+                markSent(entry.getValue());
+            }
+        }
+        log.info("Email outbox batch: {} sent, {} failed", prepared.size() - failedCount, failedCount);
+    }
+
+    // null = nothing to send (account gone or already verified, or the user requested a resend after
+    // this message's last attempt). The token's lastSentAt and the message's lastAttemptAt get the
+    // same instant, so a retry of our own failed attempt is not mistaken for a resend.
+    private MimeMessage prepareVerification(EmailOutboxMessage message) throws MessagingException {
+        Optional<Account> accountOpt = accountRepository.findById(message.getAccountId());
+        if (accountOpt.isEmpty()) {
+            return null;
+        }
+        Account account = accountOpt.get();
+        if (Boolean.TRUE.equals(account.getEmailVerified()) || account.getEmail().endsWith("_V")) {
+            return null;
+        }
+
+        Optional<EmailVerificationToken> existing = tokenRepository.findByAccount(account);
+        LocalDateTime since = message.getLastAttemptAt() != null ? message.getLastAttemptAt() : message.getCreatedAt();
+        if (existing.isPresent() && existing.get().getLastSentAt().isAfter(since)) {
+            return null;
+        }
+        // millisecond precision survives the round-trip through both datetime columns unchanged
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        EmailVerificationToken token = existing.orElseGet(() -> new EmailVerificationToken(null, account));
+        token.setToken(UUID.randomUUID().toString());
+        token.setLastSentAt(now);
+        token.setExpiryDate(now.plusHours(24));
+        tokenRepository.save(token);
+        // recorded before sending, so a crash after this point is still retried as our own attempt
+        message.setLastAttemptAt(now);
+        outboxRepository.save(message);
+
+        return emailService.createVerificationEmail(account.getEmail(), token.getToken());
+    }
+
+    private void markSent(EmailOutboxMessage message) {
+        message.setStatus(Status.SENT);
+        message.setClaimedAt(null);
+        message.setSentAt(LocalDateTime.now());
+        message.setLastError(null);
+        outboxRepository.save(message);
+        sent.incrementAndGet();
+    }
+
+    private void markFailed(EmailOutboxMessage message, String error) {
+        failures.incrementAndGet();
+        message.setLastError(truncate(error));
+        message.setClaimedAt(null);
+        if (message.getAttempts() >= maxAttempts) {
+            message.setStatus(Status.FAILED);
+            log.warn("Outbox email {} gave up after {} attempts: {}", message.getId(), message.getAttempts(), error);
+        } else {
+            long backoff = Math.min(MAX_BACKOFF_SECONDS, BASE_BACKOFF_SECONDS << (message.getAttempts() - 1));
+            message.setStatus(Status.PENDING);
+            message.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+        }
+        outboxRepository.save(message);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    // Delivery report for the admin dashboard
+    public OutboxReport getReport() {
+        return new OutboxReport(
+                outboxRepository.countByStatus(Status.PENDING),
+                outboxRepository.countByStatus(Status.SENDING),
+                outboxRepository.countByStatus(Status.SENT),
+                outboxRepository.countByStatus(Status.FAILED),
+                sent.get(), failures.get(),
+                outboxRepository.findByOrderByIdDesc(Limit.of(REPORT_RECENT)));
+    }
+
+    public record OutboxReport(long pending, long sending, long sent, long failed,
+                               long sentSinceStart, long failuresSinceStart, List<EmailOutboxMessage> recent) {}
+}
@@ -33,34 +33,7 @@ public class EmailService {
         logger.info("Sending verification email to: {}", to);
         
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Xác thực tài khoản Cosplay Suggestion");
-            
-            String verificationUrl = backendUrl + "/api/auth/verify-email?token=" + token;
-            
-            String htmlContent = """
-                <html>
-                <body>
-                    <h2>Chào mừng bạn đến với Cosplay Suggestion!</h2>
-                    <p>Cảm ơn bạn đã đăng ký tài khoản. Vui lòng click vào link bên dưới để xác thực email của bạn:</p>
-                    <p><a href="%s" style="background-color: #4CAF50; color: white; padding: 14px 20px; text-align: center; text-decoration: none; display: inline-block; border-radius: 4px;">Xác thực Email</a></p>
-                    <p>Hoặc copy và paste link sau vào trình duyệt:</p>
-                    <p>%s</p>
-                    <p>Link này sẽ hết hạn sau 24 giờ.</p>
-                    <br>
-                    <p>Trân trọng,<br>
-                    Đội ngũ Cosplay Suggestion</p>
-                </body>
-                </html>
-                """.formatted(verificationUrl, verificationUrl);
-            
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
+            mailSender.send(createVerificationEmail(to, token));
             logger.info("Verification email sent successfully to: {}", to);
             
         } catch (MessagingException e) {
@@ -69,6 +42,43 @@ public class EmailService {
         }
     }
     
+    // Builds the verification message without sending it (the outbox dispatcher sends in batches)
+    public MimeMessage createVerificationEmail(String to, String token) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(fromEmail);
+        helper.setTo(to);
+        helper.setSubject("Xác thực tài khoản Cosplay Suggestion");
+        
+        String verificationUrl = backendUrl + "/api/auth/verify-email?token=" + token;
+        
+        String htmlContent = """
+            <html>
+            <body>
+                <h2>Chào mừng bạn đến với Cosplay Suggestion!</h2>
+                <p>Cảm ơn bạn đã đăng ký tài khoản. Vui lòng click vào link bên dưới để xác thực email của bạn:</p>
+                <p><a href="%s" style="background-color: #4CAF50; color: white; padding: 14px 20px; text-align: center; text-decoration: none; display: inline-block; border-radius: 4px;">Xác thực Email</a></p>
+                <p>Hoặc copy và paste link sau vào trình duyệt:</p>
+                <p>%s</p>
+                <p>Link này sẽ hết hạn sau 24 giờ.</p>
+                <br>
+                <p>Trân trọng,<br>
+                Đội ngũ Cosplay Suggestion</p>
+            </body>
+            </html>
+            """.formatted(verificationUrl, verificationUrl);
+        
+        helper.setText(htmlContent, true);
+        return message;
+    }
+    
+    // Sends several messages over a single SMTP connection; throws MailSendException
+    // listing the failed messages (the others were delivered)
+    public void sendAll(MimeMessage... messages) {
+        mailSender.send(messages);
+    }
+    
     @Async
     public void sendWelcomeEmail(String to, String fullName) {
         try {
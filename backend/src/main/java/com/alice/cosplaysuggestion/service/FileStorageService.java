@@ -1,134 +1,94 @@
 package com.alice.cosplaysuggestion.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.alice.cosplaysuggestion.storage.BlobStore;
+
 import jakarta.annotation.PostConstruct;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetUrlRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-
-// Universal file storage service supporting both local and S3 storage
-// Storage type is determined by app.storage.type property:
-// - "local": stores files locally (development)
-// - "s3": stores files in AWS S3 (production)
+
+// Avatar storage on top of the shared BlobStore (local disk or S3, see StorageConfig)
 @Service
 public class FileStorageService {
 
     private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
 
-    @Value("${app.avatar.storage.location}")
-    private String avatarStorageLocation;
+    private static final String DEFAULT_AVATAR_KEY = "avatars/default-avatar.jpg";
+
+    // Avatar file names produced by the content store: 64 hex chars + extension
+    static final Pattern CONTENT_ADDRESSED_AVATAR = Pattern.compile("^[0-9a-f]{64}(\\.[A-Za-z0-9]+)?$");
+
+    @Autowired
+    private MediaDeliveryService mediaDeliveryService;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private AvatarImageService avatarImageService;
 
     @Value("${app.avatar.url.pattern}")
     private String avatarUrlPattern;
 
-    @Value("${app.storage.type:local}")
-    private String storageType;
-
-    // AWS S3 Configuration
     @Value("${aws.s3.bucket.name:}")
     private String s3BucketName;
 
-    @Value("${aws.s3.region:ap-southeast-2}")
-    private String s3Region;
-
-    // Local storage
-    private Path avatarStoragePath;
-    
-    // S3 storage
-    private S3Client s3Client;
-    private boolean isS3Storage;
-
     @PostConstruct
     public void init() {
-        this.isS3Storage = "s3".equalsIgnoreCase(storageType);
-        
-        if (isS3Storage) {
-            log.info("Using S3 file storage for file operations");
-            initializeS3Client();
-        } else {
-            log.info("Using local file storage for file operations");
-            initializeLocalPaths();
+        log.info("File storage: {}", blobStore.describe());
+        if (!blobStore.isRemote()) {
+            try {
+                copyDefaultAvatar();
+            } catch (IOException e) {
+                log.error("Could not create default avatar: {}", e.getMessage());
+                throw new RuntimeException("Could not create storage directories", e);
+            }
         }
     }
 
-    private void initializeS3Client() {
-        try {
-            this.s3Client = S3Client.builder()
-                    .region(Region.of(s3Region))
-                    .build();
-            log.info("S3 client initialized for region: {} and bucket: {}", s3Region, s3BucketName);
-        } catch (Exception e) {
-            log.error("Failed to initialize S3 client: {}", e.getMessage());
-            throw new RuntimeException("Could not initialize S3 client", e);
+    private void copyDefaultAvatar() throws IOException {
+        if (blobStore.exists(DEFAULT_AVATAR_KEY)) {
+            return;
         }
-    }
-
-    private void initializeLocalPaths() {
-        this.avatarStoragePath = Paths.get(avatarStorageLocation).toAbsolutePath().normalize();
-
-        try {
-            Files.createDirectories(avatarStoragePath);
-            copyDefaultAvatar();
-            log.info("Local storage directories created successfully");
-        } catch (IOException e) {
-            log.error("Could not create local storage directories: {}", e.getMessage());
-            throw new RuntimeException("Could not create storage directories", e);
+        // Try to copy from uploads folder first, then from resources
+        Path uploadsDefaultAvatar = Paths.get("uploads/avatar/default-avatar.jpg");
+        if (Files.exists(uploadsDefaultAvatar)) {
+            blobStore.put(DEFAULT_AVATAR_KEY, uploadsDefaultAvatar, null);
+            log.info("Default avatar copied from uploads folder");
+            return;
         }
-    }
-
-    private void copyDefaultAvatar() throws IOException {
-        Path defaultAvatarPath = avatarStoragePath.resolve("default-avatar.jpg");
-
-        if (!Files.exists(defaultAvatarPath)) {
-            try {
-                // Try to copy from uploads folder first
-                Path uploadsDefaultAvatar = Paths.get("uploads/avatar/default-avatar.jpg");
-                if (Files.exists(uploadsDefaultAvatar)) {
-                    Files.copy(uploadsDefaultAvatar, defaultAvatarPath, StandardCopyOption.REPLACE_EXISTING);
-                    log.info("Default avatar copied from uploads folder");
-                } else {
-                    // Try to copy from resources
-                    try (InputStream inputStream = new ClassPathResource("static/img/default-avatar.jpg").getInputStream()) {
-                        Files.copy(inputStream, defaultAvatarPath, StandardCopyOption.REPLACE_EXISTING);
-                        log.info("Default avatar copied from resources");
-                    } catch (IOException e) {
-                        // Create empty file as fallback
-                        Files.createFile(defaultAvatarPath);
-                        log.warn("Created empty default avatar file as fallback: {}", e.getMessage());
-                    }
-                }
-            } catch (IOException e) {
-                log.error("Failed to create default avatar: {}", e.getMessage());
-                // Create empty file as fallback
-                Files.createFile(defaultAvatarPath);
-            }
+        try (InputStream inputStream = new ClassPathResource("static/img/default-avatar.jpg").getInputStream()) {
+            blobStore.put(DEFAULT_AVATAR_KEY, inputStream, -1);
+            log.info("Default avatar copied from resources");
+        } catch (IOException e) {
+            // Create empty file as fallback
+            blobStore.put(DEFAULT_AVATAR_KEY, InputStream.nullInputStream(), 0);
+            log.warn("Created empty default avatar file as fallback: {}", e.getMessage());
         }
     }
 
     // Helper to build avatar URL based on storage type
+    // In S3 redirect delivery mode avatars keep backend URLs, which 302 to S3/CDN
     private String buildAvatarUrl(String fileName) {
-        if (isS3Storage) {
+        if (mediaDeliveryService.usesDirectUrls()) {
             // S3 storage: get full S3 URL
-            return getS3FileUrl("avatars/" + fileName);
+            return blobStore.publicUrl("avatars/" + fileName);
         } else {
             // Local storage: use pattern
             String base = avatarUrlPattern;
@@ -142,120 +102,56 @@ public class FileStorageService {
         }
     }
 
-    // Get S3 file URL
-    private String getS3FileUrl(String key) {
-        try {
-            GetUrlRequest getUrlRequest = GetUrlRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(key)
-                    .build();
-            return s3Client.utilities().getUrl(getUrlRequest).toString();
-        } catch (Exception e) {
-            log.error("Failed to get S3 URL for key: {}", key);
-            return "";
-        }
-    }
-
     // Get default avatar URL
     public String getDefaultAvatarUrl() {
         return buildAvatarUrl("default-avatar.jpg");
     }
 
     // Store avatar file for a user
+    // The upload is cropped and re-encoded at a fixed size first (AvatarImageService), then stored
+    // content-addressed ("avatars/{sha256}.ext"): re-uploading the same image reuses the stored copy,
+    // and the hash-named URL can be cached by browsers forever
     public String storeAvatar(MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) {
             return getDefaultAvatarUrl();
         }
-        
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFileName);
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String uniqueFileName = UUID.randomUUID().toString().substring(0, 8) + "_" + timestamp + fileExtension;
-        
-        if (isS3Storage) {
-            return storeAvatarToS3(file, uniqueFileName);
-        } else {
-            return storeAvatarLocally(file, uniqueFileName);
+
+        Path upload = Files.createTempFile("avatar", ".upload");
+        try {
+            file.transferTo(upload);
+            AvatarImageService.EncodedAvatar avatar = avatarImageService.normalize(upload);
+            try (InputStream in = new ByteArrayInputStream(avatar.data())) {
+                ContentStore.StoredContent blob = contentStore.store(in, "avatars", avatar.extension());
+                if (!blob.deduplicated()) {
+                    avatarImageService.warmVariants(blob.key());
+                }
+                String fileUrl = buildAvatarUrl(blob.key().substring("avatars/".length()));
+                log.debug("Avatar stored: {} ({} -> {} bytes, deduplicated: {})",
+                        fileUrl, file.getSize(), avatar.data().length, blob.deduplicated());
+                return fileUrl;
+            }
+        } finally {
+            Files.deleteIfExists(upload);
         }
     }
 
     // Store avatar file for a specific user ID
     public String saveAvatarFile(MultipartFile file, Long userId) throws IOException {
-        if (file == null || file.isEmpty()) {
-            return getDefaultAvatarUrl();
-        }
-        
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFileName);
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String uniqueFileName = "user_" + userId + "_" + timestamp + fileExtension;
-        
-        if (isS3Storage) {
-            return storeAvatarToS3(file, uniqueFileName);
-        } else {
-            return storeAvatarLocally(file, uniqueFileName);
-        }
+        return storeAvatar(file);
     }
 
-    // Store avatar to S3
-    private String storeAvatarToS3(MultipartFile file, String fileName) throws IOException {
-        try {
-            String s3Key = "avatars/" + fileName;
-            
-            long size = file.getSize();
-            PutObjectRequest putObjectRequest;
-            RequestBody requestBody;
-            Path tempFile = null;
-            if (size > 0) {
-                putObjectRequest = PutObjectRequest.builder()
-                        .bucket(s3BucketName)
-                        .key(s3Key)
-                        .contentType(file.getContentType())
-                        .contentLength(size)
-                        .build();
-                requestBody = RequestBody.fromInputStream(file.getInputStream(), size);
-            } else {
-                // Use temp file if size unknown
-                Path tempDir = Paths.get(System.getProperty("java.io.tmpdir", "/tmp"));
-                tempFile = Files.createTempFile(tempDir, "avatar", ".tmp");
-                Files.copy(file.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
-                long actualSize = Files.size(tempFile);
-                putObjectRequest = PutObjectRequest.builder()
-                        .bucket(s3BucketName)
-                        .key(s3Key)
-                        .contentType(file.getContentType())
-                        .contentLength(actualSize)
-                        .build();
-                requestBody = RequestBody.fromFile(tempFile);
-            }
-
-            s3Client.putObject(putObjectRequest, requestBody);
-
-            // Delete temp file after upload
-            if (tempFile != null) {
-                try {
-                    Files.deleteIfExists(tempFile);
-                } catch (IOException e) {
-                    log.warn("Failed to delete temp file: {}", tempFile, e);
-                }
-            }
-            
-            String fileUrl = getS3FileUrl(s3Key);
-            log.debug("Avatar uploaded to S3: {}", fileUrl);
-            return fileUrl;
-
-        } catch (Exception e) {
-            log.error("Failed to upload avatar to S3: {}", e.getMessage());
-            throw new IOException("Failed to upload file to S3", e);
+    // Drop a replaced avatar: shared content-addressed files lose one reference,
+    // older per-upload files are deleted directly
+    public void discardAvatar(String avatarUrl) throws IOException {
+        String fileName = extractFileNameFromPath(avatarUrl);
+        if (fileName == null || fileName.equals("default-avatar.jpg")) {
+            return;
+        }
+        if (CONTENT_ADDRESSED_AVATAR.matcher(fileName).matches()) {
+            contentStore.release("avatars/" + fileName);
+        } else {
+            deleteFile(avatarUrl);
         }
-    }
-
-    // Store avatar locally
-    private String storeAvatarLocally(MultipartFile file, String fileName) throws IOException {
-        Path targetLocation = avatarStoragePath.resolve(fileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-        log.debug("Avatar stored locally: {}", fileName);
-        return buildAvatarUrl(fileName);
     }
 
     // Delete file by file path
@@ -270,45 +166,25 @@ public class FileStorageService {
             return; // Don't delete default files
         }
 
-        if (isS3Storage) {
-            deleteFileFromS3(filePath);
-        } else {
-            deleteFileLocally(filePath, fileName);
+        String key = extractKeyFromUrl(filePath);
+        if (key != null && !key.contains("default-avatar")) {
+            blobStore.delete(key);
+            log.debug("File deleted: {}", key);
         }
     }
 
-    // Delete file from S3
-    private void deleteFileFromS3(String fileUrl) {
-        try {
-            String key = extractS3KeyFromUrl(fileUrl);
-            if (key != null && !key.contains("default-avatar")) {
-                DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                        .bucket(s3BucketName)
-                        .key(key)
-                        .build();
-
-                s3Client.deleteObject(deleteObjectRequest);
-                log.debug("File deleted from S3: {}", key);
-            }
-        } catch (Exception e) {
-            log.error("Failed to delete file from S3: {}", e.getMessage());
+    // Extract storage key from a backend avatar URL or a full S3 URL
+    private String extractKeyFromUrl(String fileUrl) {
+        if (fileUrl == null || fileUrl.isEmpty()) {
+            return null;
         }
-    }
 
-    // Delete file locally
-    private void deleteFileLocally(String filePath, String fileName) throws IOException {
-        if (filePath.contains(avatarUrlPattern)) {
-            Path targetPath = avatarStoragePath.resolve(fileName);
-            if (Files.exists(targetPath)) {
-                Files.delete(targetPath);
-                log.debug("File deleted locally: {}", fileName);
-            }
+        // Backend avatar URL (local storage, redirect/proxy delivery)
+        if (fileUrl.contains(avatarUrlPattern)) {
+            String fileName = extractFileNameFromPath(fileUrl);
+            return fileName != null ? "avatars/" + fileName : null;
         }
-    }
-
-    // Extract S3 key from full URL
-    private String extractS3KeyFromUrl(String fileUrl) {
-        if (fileUrl == null || fileUrl.isEmpty()) {
+        if (s3BucketName.isBlank()) {
             return null;
         }
 
@@ -342,23 +218,8 @@ public class FileStorageService {
         return null;
     }
 
-    private String getFileExtension(String fileName) {
-        if (fileName == null) {
-            return "";
-        }
-        int lastIndexOf = fileName.lastIndexOf(".");
-        if (lastIndexOf == -1) {
-            return "";
-        }
-        return fileName.substring(lastIndexOf);
-    }
-
     // Helper method for health checks
     public String getStorageInfo() {
-        if (isS3Storage) {
-            return "S3 File Storage - Bucket: " + s3BucketName + ", Region: " + s3Region;
-        } else {
-            return "Local File Storage (Cosplay App optimized)";
-        }
+        return blobStore.describe();
     }
 }
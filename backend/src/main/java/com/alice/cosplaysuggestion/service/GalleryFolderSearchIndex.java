@@ -0,0 +1,178 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.alice.cosplaysuggestion.event.GalleryChangedEvent;
+import com.alice.cosplaysuggestion.model.GalleryFolder;
+import com.alice.cosplaysuggestion.repository.GalleryFolderRepository;
+
+// In-process search index over active GalleryFolder display names
+// Names are folded to lowercase ASCII (Vietnamese diacritics and đ removed) and
+// indexed as character trigrams plus word prefixes, so "le hoi" finds "Lễ hội"
+// and typeahead works from the first letter. Rebuilt from the repository at
+// startup and refreshed after every committed gallery change.
+@Service
+public class GalleryFolderSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(GalleryFolderSearchIndex.class);
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+
+    private static final int GRAM = 3;
+    private static final int MAX_RESULTS = 100;
+
+    private final GalleryFolderRepository folderRepo;
+
+    // Immutable snapshot swapped atomically on rebuild; readers never lock
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    // Rebuild stamps, taken before the folders are read
+    private final AtomicLong generations = new AtomicLong();
+
+    public GalleryFolderSearchIndex(GalleryFolderRepository folderRepo) {
+        this.folderRepo = folderRepo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    // Runs before GalleryListingCache is cleared so re-cached searches see the new snapshot
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGalleryChanged(GalleryChangedEvent event) {
+        if (event.type() != GalleryChangedEvent.Type.ITEMS_CHANGED) {
+            rebuild();
+        }
+    }
+
+    // Rebuilds triggered by concurrent commits may overlap and finish in any order. The stamp is
+    // taken after the triggering commit and before the read, so a higher stamp has read every
+    // change a lower one saw: a snapshot is only published when its stamp beats the current one.
+    public void rebuild() {
+        long start = System.nanoTime();
+        long generation = generations.incrementAndGet();
+        List<GalleryFolder> folders = folderRepo.findByIsActiveTrue();
+        Snapshot next = Snapshot.build(generation, folders);
+        if (publish(next)) {
+            log.info("Gallery search index rebuilt: {} folders, {} terms in {} ms",
+                    folders.size(), next.postings.size(), (System.nanoTime() - start) / 1_000_000);
+        } else {
+            log.debug("Gallery search index rebuild {} superseded by a newer one", generation);
+        }
+    }
+
+    private synchronized boolean publish(Snapshot next) {
+        if (next.generation <= snapshot.generation) {
+            return false;
+        }
+        this.snapshot = next;
+        return true;
+    }
+
+    // Ranked search; an empty query returns all indexed folders
+    public List<GalleryFolder> search(String query) {
+        Snapshot s = this.snapshot;
+        String folded = fold(query == null ? "" : query);
+        if (folded.isEmpty()) {
+            return s.folders;
+        }
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        String[] words = folded.split(" ");
+
+        // Word-prefix matches (typeahead) weigh more than trigram overlap
+        for (String word : words) {
+            for (int doc : s.postings.getOrDefault("p:" + word, Set.of())) {
+                scores.merge(doc, 10, Integer::sum);
+            }
+        }
+
+        Set<String> grams = grams(folded);
+        for (String gram : grams) {
+            for (int doc : s.postings.getOrDefault(gram, Set.of())) {
+                scores.merge(doc, 1, Integer::sum);
+            }
+        }
+
+        // Require most of the query's trigrams (or a prefix hit) to cut noise
+        int minScore = Math.max(1, (grams.size() * 2) / 3);
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : scores.entrySet()) {
+            if (e.getValue() >= minScore || s.names.get(e.getKey()).contains(folded)) {
+                ranked.add(e);
+            }
+        }
+        ranked.sort((a, b) -> {
+            int byScore = Integer.compare(b.getValue(), a.getValue());
+            if (byScore != 0) return byScore;
+            // shorter names first: "Naruto" before "Naruto Shippuden cosplay night"
+            return Integer.compare(s.names.get(a.getKey()).length(), s.names.get(b.getKey()).length());
+        });
+
+        List<GalleryFolder> results = new ArrayList<>(Math.min(ranked.size(), MAX_RESULTS));
+        for (int i = 0; i < ranked.size() && i < MAX_RESULTS; i++) {
+            results.add(s.folders.get(ranked.get(i).getKey()));
+        }
+        return results;
+    }
+
+    // Lowercase, strip diacritics, collapse punctuation to single spaces
+    static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALNUM.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        String padded = " " + folded + " ";
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private record Snapshot(long generation, List<GalleryFolder> folders, List<String> names,
+                            Map<String, Set<Integer>> postings) {
+
+        static final Snapshot EMPTY = new Snapshot(0, List.of(), List.of(), Map.of());
+
+        static Snapshot build(long generation, List<GalleryFolder> folders) {
+            List<String> names = new ArrayList<>(folders.size());
+            Map<String, Set<Integer>> postings = new HashMap<>();
+            for (int doc = 0; doc < folders.size(); doc++) {
+                String name = fold(folders.get(doc).getDisplayName() == null ? "" : folders.get(doc).getDisplayName());
+                names.add(name);
+                for (String gram : grams(name)) {
+                    postings.computeIfAbsent(gram, k -> new HashSet<>()).add(doc);
+                }
+                for (String word : name.split(" ")) {
+                    for (int len = 1; len <= word.length(); len++) {
+                        postings.computeIfAbsent("p:" + word.substring(0, len), k -> new HashSet<>()).add(doc);
+                    }
+                }
+            }
+            return new Snapshot(generation, List.copyOf(folders), List.copyOf(names), postings);
+        }
+    }
+}
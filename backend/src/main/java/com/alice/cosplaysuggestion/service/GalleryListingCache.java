@@ -0,0 +1,141 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import com.alice.cosplaysuggestion.event.GalleryChangedEvent;
+import com.alice.cosplaysuggestion.model.GalleryFolder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Read-through cache for the public gallery folder listings
+// Entries live until a committed GalleryChangedEvent can affect them; each entry carries a
+// precomputed ETag so unchanged listings can be answered with 304.
+@Service
+public class GalleryListingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GalleryListingCache.class);
+
+    private static final String ALL_FOLDERS = "folders:all";
+    private static final String ACTIVE_FOLDERS = "folders:active";
+    private static final String SEARCH_PREFIX = "search:";
+
+    // Distinct search queries kept before the search entries are dropped
+    private static final int MAX_SEARCH_ENTRIES = 500;
+
+    private final GalleryService galleryService;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<String, CachedListing> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public GalleryListingCache(GalleryService galleryService, ObjectMapper objectMapper) {
+        this.galleryService = galleryService;
+        this.objectMapper = objectMapper;
+    }
+
+    public CachedListing allFolders() {
+        return get(ALL_FOLDERS, galleryService::listAllFolders);
+    }
+
+    public CachedListing activeFolders() {
+        return get(ACTIVE_FOLDERS, galleryService::listActiveFolders);
+    }
+
+    public CachedListing search(String query) {
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return activeFolders();
+        }
+        if (entries.size() > MAX_SEARCH_ENTRIES) {
+            entries.keySet().removeIf(k -> k.startsWith(SEARCH_PREFIX));
+        }
+        return get(SEARCH_PREFIX + normalized, () -> galleryService.searchFoldersByName(query));
+    }
+
+    // Listings only hold folder rows, so item changes never evict. A deleted folder only
+    // touches the listings that contain it; a new or toggled folder can also join the
+    // active and search listings, which are dropped whole.
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGalleryChanged(GalleryChangedEvent event) {
+        if (event.type() == GalleryChangedEvent.Type.ITEMS_CHANGED) {
+            return;
+        }
+        // Loads already in flight may have read the folder before the change
+        generation.incrementAndGet();
+        Long folderId = event.folderId();
+        int before = entries.size();
+        entries.entrySet().removeIf(e -> contains(e.getValue(), folderId)
+                || mayGain(e.getKey(), event.type()));
+        log.debug("Gallery listing cache: {} (folder {}) evicted {} of {} entries",
+                event.type(), folderId, before - entries.size(), before);
+    }
+
+    // Whether the listing under this key can gain a folder it does not hold yet
+    private static boolean mayGain(String key, GalleryChangedEvent.Type type) {
+        return switch (type) {
+            case FOLDER_CREATED -> true;
+            case FOLDER_UPDATED -> key.equals(ACTIVE_FOLDERS) || key.startsWith(SEARCH_PREFIX);
+            default -> false;
+        };
+    }
+
+    private static boolean contains(CachedListing listing, Long folderId) {
+        for (GalleryFolder f : listing.data()) {
+            if (f.getId() != null && f.getId().equals(folderId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(entries.size(), hits.get(), misses.get());
+    }
+
+    private CachedListing get(String key, Supplier<List<GalleryFolder>> loader) {
+        CachedListing cached = entries.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        // An invalidation racing with this load must not leave stale data behind
+        long gen = generation.get();
+        List<GalleryFolder> data = loader.get();
+        CachedListing loaded = new CachedListing(data, etagOf(data));
+        if (generation.get() == gen) {
+            entries.put(key, loaded);
+            if (generation.get() != gen) {
+                entries.remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private String etagOf(Object data) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(data)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize gallery listing", e);
+        }
+    }
+
+    public record CachedListing(List<GalleryFolder> data, String etag) {}
+
+    public record CacheStats(int entries, long hits, long misses) {}
+}
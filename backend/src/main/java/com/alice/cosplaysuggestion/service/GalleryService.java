@@ -2,15 +2,25 @@ package com.alice.cosplaysuggestion.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -18,129 +28,149 @@ import java.util.zip.ZipOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.alice.cosplaysuggestion.dto.CursorPage;
+import com.alice.cosplaysuggestion.dto.GalleryFolderSummary;
+import com.alice.cosplaysuggestion.dto.GalleryItemDto;
+import com.alice.cosplaysuggestion.dto.GalleryItemRef;
+import com.alice.cosplaysuggestion.dto.GalleryItemSummary;
+import com.alice.cosplaysuggestion.event.GalleryChangedEvent;
 import com.alice.cosplaysuggestion.model.GalleryFolder;
 import com.alice.cosplaysuggestion.model.GalleryItem;
 import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+import com.alice.cosplaysuggestion.model.GalleryItem.VideoStatus;
 import com.alice.cosplaysuggestion.repository.GalleryFolderRepository;
 import com.alice.cosplaysuggestion.repository.GalleryItemRepository;
-
-import jakarta.annotation.PostConstruct;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
-import software.amazon.awssdk.services.s3.model.GetUrlRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import com.alice.cosplaysuggestion.service.ImageMetadataService.ImageMetadata;
+import com.alice.cosplaysuggestion.service.MediaDeliveryService.MediaRedirect;
+import com.alice.cosplaysuggestion.storage.BlobStore;
 
 @Service
 public class GalleryService {
 
     private static final Logger log = LoggerFactory.getLogger(GalleryService.class);
 
+    // Sub directory holding cached folder archives in S3 redirect mode
+    private static final String ZIP_SUBDIR = "_download";
+
+    // Pseudo storage folder holding content-addressed item files shared by all folders
+    private static final String BLOB_STORAGE = "_blobs";
+    private static final int BULK_CHUNK = 1000;
+
+    // Pseudo storage folder holding generated video variants, one sub directory per source video
+    public static final String VARIANT_STORAGE = "_variants";
+
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final GalleryFolderRepository folderRepo;
     private final GalleryItemRepository itemRepo;
+    private final MediaDeliveryService mediaDeliveryService;
+    private final ApplicationEventPublisher events;
+    private final GalleryFolderSearchIndex searchIndex;
+    private final StorageDeletionService deletionService;
+    private final ContentStore contentStore;
+    private final ImageMetadataService imageMetadataService;
+    private final BlobStore blobStore;
+
+    // In-flight archive builds per folder (entries removed when the build finishes)
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> zipBuilds = new ConcurrentHashMap<>();
 
     // Constructor for dependency injection
-    public GalleryService(GalleryFolderRepository folderRepo, GalleryItemRepository itemRepo) {
+    public GalleryService(GalleryFolderRepository folderRepo, GalleryItemRepository itemRepo,
+                          MediaDeliveryService mediaDeliveryService, ApplicationEventPublisher events,
+                          GalleryFolderSearchIndex searchIndex, StorageDeletionService deletionService,
+                          ContentStore contentStore, ImageMetadataService imageMetadataService,
+                          BlobStore blobStore) {
         this.folderRepo = folderRepo;
         this.itemRepo = itemRepo;
+        this.mediaDeliveryService = mediaDeliveryService;
+        this.events = events;
+        this.searchIndex = searchIndex;
+        this.deletionService = deletionService;
+        this.contentStore = contentStore;
+        this.imageMetadataService = imageMetadataService;
+        this.blobStore = blobStore;
     }
 
-    // Storage configuration
-    @Value("${app.storage.type:local}")
-    private String storageType;
-
-    @Value("${app.gallery.storage.location:uploads/gallery}")
-    private String galleryStorageLocation;
-
     @Value("${app.gallery.url.base:/api/gallery}")
     private String galleryUrlBase;
 
-    // AWS S3 Configuration
-    @Value("${aws.s3.bucket.name:}")
-    private String s3BucketName;
+    // Hard cap for the legacy non-paginated listings
+    @Value("${app.gallery.list.max-size:1000}")
+    private int listMaxSize;
 
-    @Value("${aws.s3.region:ap-southeast-2}")
-    private String s3Region;
-
-    // Local storage
-    private Path galleryRoot;
-
-    // S3 storage
-    private S3Client s3Client;
-    private boolean isS3Storage;
-
-    @PostConstruct
-    public void init() {
-        this.isS3Storage = "s3".equalsIgnoreCase(storageType);
-
-        if (isS3Storage) {
-            log.info("Using S3 file storage for gallery operations");
-            initializeS3Client();
-        } else {
-            log.info("Using local file storage for gallery operations");
-            initializeLocalPaths();
-        }
+    // Trả về tất cả folder (không lọc isActive), tối đa app.gallery.list.max-size
+    public List<GalleryFolder> listAllFolders() {
+        return folderRepo.findByOrderByIdAsc(Limit.of(listMaxSize));
     }
 
-    private void initializeS3Client() {
-        try {
-            this.s3Client = S3Client.builder()
-                    .region(Region.of(s3Region))
-                    .build();
-            log.info("S3 client initialized for gallery - Bucket: {} and Region: {}", s3BucketName, s3Region);
-        } catch (software.amazon.awssdk.core.exception.SdkException e) {
-            log.error("Failed to initialize S3 client for gallery: {}", e.getMessage());
-            throw new RuntimeException("Could not initialize S3 client for gallery", e);
-        }
+    // Trả về chỉ folder active, tối đa app.gallery.list.max-size
+    public List<GalleryFolder> listActiveFolders() {
+        return folderRepo.findByIsActiveTrueOrderByIdAsc(Limit.of(listMaxSize));
     }
 
-    private void initializeLocalPaths() {
-        this.galleryRoot = Paths.get(galleryStorageLocation).toAbsolutePath().normalize();
-
-        try {
-            Files.createDirectories(galleryRoot);
-            log.info("Local gallery storage directories created successfully");
-        } catch (IOException e) {
-            log.error("Could not create local gallery storage directories: {}", e.getMessage());
-            throw new RuntimeException("Could not create gallery storage directories", e);
+    // Trả về tất cả item trong folder (không lọc isActive), tối đa app.gallery.list.max-size
+    // One projection query; the folder is only looked up separately when the listing is empty
+    public List<GalleryItemDto> listAllItems(Long folderId) {
+        List<GalleryItemDto> items = itemRepo.findDtosByFolderId(folderId, Limit.of(listMaxSize));
+        if (items.isEmpty() && !folderRepo.existsById(folderId)) {
+            throw new NoSuchElementException("Folder not found");
         }
+        return items;
     }
 
-    // Trả về tất cả folder (không lọc isActive)
-    public List<GalleryFolder> listAllFolders() {
-        return folderRepo.findAll();
+    // Keyset-paginated folder listing
+    public CursorPage<GalleryFolderSummary> pageFolders(String cursor, int size, boolean activeOnly) {
+        int pageSize = clampPageSize(size);
+        long afterId = CursorPage.decodeCursor(cursor);
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+        List<GalleryFolderSummary> rows = activeOnly
+                ? folderRepo.findActiveFolderPage(afterId, limit)
+                : folderRepo.findFolderPage(afterId, limit);
+        return CursorPage.of(rows, pageSize, r -> r.id);
     }
 
-    // Trả về chỉ folder active
-    public List<GalleryFolder> listActiveFolders() {
-        return folderRepo.findByIsActiveTrue();
+    // Keyset-paginated item listing within a folder
+    public CursorPage<GalleryItemSummary> pageItems(Long folderId, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        long afterId = CursorPage.decodeCursor(cursor);
+        if (afterId == 0 && !folderRepo.existsById(folderId)) {
+            throw new NoSuchElementException("Folder not found");
+        }
+        List<GalleryItemSummary> rows = itemRepo.findItemPage(folderId, afterId, PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(rows, pageSize, r -> r.id);
     }
 
-    // Trả về tất cả item trong folder (không lọc isActive)
-    public List<GalleryItem> listAllItems(Long folderId) {
-        GalleryFolder f = folderRepo.findById(folderId).orElseThrow();
-        return itemRepo.findByFolder(f);
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 
     @Transactional
     public GalleryFolder uploadZip(MultipartFile zip, String displayName, MultipartFile thumbnail) throws IOException {
         if (zip == null || zip.isEmpty()) throw new IOException("Zip trống");
-        String base = sanitize(stripExt(Optional.ofNullable(zip.getOriginalFilename()).orElse("gallery")));
+        try (InputStream in = zip.getInputStream()) {
+            return ingestZip(in, zip.getOriginalFilename(), displayName, thumbnail);
+        }
+    }
+
+    // Unpack a gallery ZIP stream into a new folder (multipart and resumable uploads)
+    @Transactional
+    public GalleryFolder ingestZip(InputStream zipStream, String originalName, String displayName, MultipartFile thumbnail) throws IOException {
+        String base = sanitize(stripExt(Optional.ofNullable(originalName).orElse("gallery")));
         String storage = uniqueStorageName(base);
 
         GalleryFolder folder = new GalleryFolder(displayName != null && !displayName.isBlank() ? displayName : base, storage);
         folder = folderRepo.save(folder);
 
         // unzip files
-        try (ZipInputStream zis = new ZipInputStream(zip.getInputStream())) {
+        try (ZipInputStream zis = new ZipInputStream(zipStream)) {
             ZipEntry e;
             while ((e = zis.getNextEntry()) != null) {
                 if (e.isDirectory()) continue;
@@ -153,16 +183,14 @@ public class GalleryService {
                 String lower = raw.toLowerCase(Locale.ROOT);
                 String sub = lower.contains("/video/") || lower.startsWith("video/") ? "video" : lower.contains("/thumb/") || lower.startsWith("thumb/") ? "thumb" : "pic";
 
-                // Store file based on storage type
-                storeGalleryFile(zis, storage, sub, safe, e.getSize());
-
                 if ("thumb".equals(sub)) {
+                    storeGalleryFile(zis, storage, sub, safe, e.getSize());
                     if (folder.getThumbnailUrl() == null || folder.getThumbnailUrl().isBlank()) {
                         folder.setThumbnailUrl(buildGalleryUrl(storage, "thumb", safe));
                     }
                 } else {
                     ItemType type = "video".equals(sub) ? ItemType.VIDEO : ItemType.IMAGE;
-                    itemRepo.save(new GalleryItem(folder, safe, sub, type, buildGalleryUrl(storage, sub, safe)));
+                    storeItem(folder, zis, sub, safe, type);
                 }
                 zis.closeEntry();
             }
@@ -175,85 +203,117 @@ public class GalleryService {
             folder.setThumbnailUrl(buildGalleryUrl(storage, "thumb", safeThumb));
         }
 
-        return folderRepo.save(folder);
+        folder = folderRepo.save(folder);
+        events.publishEvent(new GalleryChangedEvent(GalleryChangedEvent.Type.FOLDER_CREATED, folder.getId()));
+        return folder;
     }
 
-    // Store gallery file to appropriate storage (S3 or local)
-    private void storeGalleryFile(InputStream inputStream, String storage, String subDir, String fileName, long contentLength) throws IOException {
-        if (isS3Storage) {
-            storeGalleryFileToS3(inputStream, storage, subDir, fileName, contentLength);
-        } else {
-            storeGalleryFileLocally(inputStream, storage, subDir, fileName);
+    // Items go to the shared content store: identical files are kept once across all folders,
+    // and same-named uploads no longer overwrite each other
+    private GalleryItem storeItem(GalleryFolder folder, InputStream in, String sub, String fileName, ItemType type) throws IOException {
+        ImageMetadata[] metadata = new ImageMetadata[1];
+        ContentStore.StoredContent blob = contentStore.store(in, "gallery/" + BLOB_STORAGE + "/" + sub, extensionOf(fileName),
+                type == ItemType.IMAGE ? spool -> metadata[0] = imageMetadataService.read(spool) : null);
+        String blobName = blob.key().substring(blob.key().lastIndexOf('/') + 1);
+        GalleryItem item = new GalleryItem(folder, fileName, sub, type, buildGalleryUrl(BLOB_STORAGE, sub, blobName));
+        item.setContentHash(blob.hash());
+        if (type == ItemType.IMAGE) {
+            if (blob.deduplicated()) {
+                // same bytes already ingested: reuse their metadata instead of decoding again
+                itemRepo.findFirstByContentHashAndWidthIsNotNull(blob.hash()).ifPresent(existing -> {
+                    item.setWidth(existing.getWidth());
+                    item.setHeight(existing.getHeight());
+                    item.setOrientation(existing.getOrientation());
+                    item.setBlurhash(existing.getBlurhash());
+                });
+            } else if (metadata[0] != null) {
+                item.setWidth(metadata[0].width());
+                item.setHeight(metadata[0].height());
+                item.setOrientation((short) metadata[0].orientation());
+                item.setBlurhash(metadata[0].blurhash());
+            }
         }
+        if (type == ItemType.VIDEO) {
+            // poster / faststart / HLS variants are generated in the background
+            item.setVideoStatus(VideoStatus.PENDING);
+        }
+        return itemRepo.save(item);
     }
 
-    // Store gallery file to S3
-    private void storeGalleryFileToS3(InputStream inputStream, String storage, String subDir, String fileName, long contentLength) throws IOException {
-        try {
-            String s3Key = "gallery/" + storage + "/" + subDir + "/" + fileName;
+    // Directory under _variants for an item's generated files; shared by items with the same content
+    public String videoVariantDir(GalleryItem item) {
+        return item.getContentHash() != null ? item.getContentHash() : "item-" + item.getId();
+    }
 
-            PutObjectRequest.Builder builder = PutObjectRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(s3Key)
-                    .contentType(getContentType(fileName));
+    // Open the original bytes of an item (item.folder must be loaded)
+    public InputStream openItemContent(GalleryItem item) throws IOException {
+        return blobStore.open(itemKey(item.getFolder(), item));
+    }
 
-            if (contentLength > 0) {
-                builder.contentLength(contentLength);
-            }
+    // Store a generated variant file and return its public URL
+    public String storeVariant(String variantDir, Path file) throws IOException {
+        String name = file.getFileName().toString();
+        blobStore.put(galleryKey(VARIANT_STORAGE, variantDir, name), file, null);
+        return buildGalleryUrl(VARIANT_STORAGE, variantDir, name);
+    }
 
-            PutObjectRequest putObjectRequest = builder.build();
-
-            RequestBody requestBody;
-            Path tempFile = null;
-            if (contentLength > 0) {
-                requestBody = RequestBody.fromInputStream(inputStream, contentLength);
-            } else {
-                // Use temp file if size unknown to avoid OutOfMemory
-                Path tempDir = Paths.get(System.getProperty("java.io.tmpdir", "/tmp"));
-                tempFile = Files.createTempFile(tempDir, "upload", ".tmp");
-                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
-                long actualContentLength = Files.size(tempFile);
-                builder.contentLength(actualContentLength);
-                putObjectRequest = builder.build();
-                requestBody = RequestBody.fromFile(tempFile);
-            }
+    // Variants stored for an item deleted while its video was processing; the deletion worker
+    // keeps a content-hash directory that another item still uses
+    public void discardVariantDir(String variantDir) {
+        deletionService.enqueueGalleryFolder(VARIANT_STORAGE + "/" + variantDir);
+    }
 
-            s3Client.putObject(putObjectRequest, requestBody);
+    // Queue removal of video variants nobody references any more (call after the items are deleted)
+    private void discardVideoVariants(List<GalleryItemRef> deleted) {
+        List<GalleryItemRef> videos = deleted.stream().filter(r -> r.videoStatus() != null).toList();
+        if (videos.isEmpty()) {
+            return;
+        }
+        // variants stay while another item still has the same content
+        List<String> hashes = videos.stream().map(GalleryItemRef::contentHash).filter(Objects::nonNull).distinct().toList();
+        Set<String> stillUsed = new HashSet<>();
+        for (int i = 0; i < hashes.size(); i += BULK_CHUNK) {
+            stillUsed.addAll(itemRepo.findContentHashesIn(hashes.subList(i, Math.min(hashes.size(), i + BULK_CHUNK))));
+        }
+        videos.stream()
+              .filter(r -> r.contentHash() == null || !stillUsed.contains(r.contentHash()))
+              .map(r -> r.contentHash() != null ? r.contentHash() : "item-" + r.id())
+              .distinct()
+              .forEach(dir -> deletionService.enqueueGalleryFolder(VARIANT_STORAGE + "/" + dir));
+    }
 
-            // Delete temp file after upload
-            if (tempFile != null) {
-                try {
-                    Files.deleteIfExists(tempFile);
-                } catch (IOException e) {
-                    log.warn("Failed to delete temp file: {}", tempFile, e);
-                }
-            }
+    // Storage key of an item's bytes: the shared blob for hashed items, the per-folder file otherwise
+    private String itemKey(GalleryFolder folder, GalleryItem item) {
+        return itemKey(folder.getStorageName(), item.getSubDir(), item.getFileName(), item.getContentHash());
+    }
 
-            log.debug("Gallery file uploaded to S3: {}", s3Key);
+    private String itemKey(GalleryItemRef ref) {
+        return itemKey(ref.storageName(), ref.subDir(), ref.fileName(), ref.contentHash());
+    }
 
-        } catch (software.amazon.awssdk.services.s3.model.S3Exception e) {
-            log.error("S3 error uploading gallery file: {}", e.getMessage());
-            throw new IOException("Failed to upload file to S3", e);
-        } catch (software.amazon.awssdk.core.exception.SdkException e) {
-            log.error("AWS SDK error uploading gallery file: {}", e.getMessage());
-            throw new IOException("Failed to upload file to S3", e);
+    static String itemKey(String storageName, String subDir, String fileName, String contentHash) {
+        if (contentHash != null) {
+            return "gallery/" + BLOB_STORAGE + "/" + subDir + "/" + contentHash + extensionOf(fileName);
         }
+        return "gallery/" + storageName + "/" + subDir + "/" + fileName;
+    }
+
+    // Store gallery file under gallery/{storage}/{subDir}/{fileName}; contentLength < 0 if unknown
+    private void storeGalleryFile(InputStream inputStream, String storage, String subDir, String fileName, long contentLength) throws IOException {
+        blobStore.put(galleryKey(storage, subDir, fileName), inputStream, contentLength);
+        log.debug("Gallery file stored: {}/{}/{}", storage, subDir, fileName);
     }
 
-    // Store gallery file locally
-    private void storeGalleryFileLocally(InputStream inputStream, String storage, String subDir, String fileName) throws IOException {
-        Path targetDir = galleryRoot.resolve(storage).resolve(subDir);
-        Files.createDirectories(targetDir);
-        Path target = targetDir.resolve(fileName);
-        Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
-        log.debug("Gallery file stored locally: {}", fileName);
+    private static String galleryKey(String storage, String subDir, String fileName) {
+        return "gallery/" + storage + "/" + subDir + "/" + fileName;
     }
 
     // Build gallery file URL based on storage type
+    // In S3 redirect delivery mode the backend URL is stored and resolved to S3/CDN per request
     private String buildGalleryUrl(String storage, String subDir, String fileName) {
-        if (isS3Storage) {
+        if (mediaDeliveryService.usesDirectUrls()) {
             // S3 storage: get full S3 URL
-            return getS3GalleryFileUrl(storage, subDir, fileName);
+            return blobStore.publicUrl(galleryKey(storage, subDir, fileName));
         } else {
             // Local storage: use pattern
             String base = galleryUrlBase;
@@ -264,150 +324,195 @@ public class GalleryService {
         }
     }
 
-    // Get S3 gallery file URL
-    private String getS3GalleryFileUrl(String storage, String subDir, String fileName) {
-        try {
-            String key = "gallery/" + storage + "/" + subDir + "/" + fileName;
-            GetUrlRequest getUrlRequest = GetUrlRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(key)
-                    .build();
-            return s3Client.utilities().getUrl(getUrlRequest).toString();
-        } catch (software.amazon.awssdk.core.exception.SdkException e) {
-            log.error("Failed to get S3 URL for gallery file: {}", fileName);
-            return "";
-        }
-    }
-
-    // Get content type based on file extension
-    private String getContentType(String fileName) {
-        String lower = fileName.toLowerCase();
-        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) {
-            return "image/jpeg";
-        } else if (lower.endsWith(".png")) {
-            return "image/png";
-        } else if (lower.endsWith(".gif")) {
-            return "image/gif";
-        } else if (lower.endsWith(".webp")) {
-            return "image/webp";
-        } else if (lower.endsWith(".mp4")) {
-            return "video/mp4";
-        } else if (lower.endsWith(".avi")) {
-            return "video/x-msvideo";
-        } else {
-            return "application/octet-stream";
-        }
-    }
-
     @Transactional
-    public void deleteFolder(Long folderId) throws IOException {
+    public void deleteFolder(Long folderId) {
         GalleryFolder f = folderRepo.findById(folderId).orElseThrow();
-        // Xóa hết các gallery item thuộc folder trước khi xóa folder
-        itemRepo.deleteAll(itemRepo.findByFolder(f));
+        // Xóa hết các gallery item thuộc folder trước khi xóa folder (một câu DELETE)
+        List<GalleryItemRef> refs = itemRepo.findRefsByFolderId(folderId);
+        itemRepo.deleteAllByFolderId(folderId);
+        releaseContent(refs);
 
-        if (isS3Storage) {
-            deleteGalleryFolderFromS3(f.getStorageName());
-        } else {
-            deleteGalleryFolderLocally(f.getStorageName());
-        }
+        // Files are removed by the background worker once this transaction commits
+        deletionService.enqueueGalleryFolder(f.getStorageName());
 
         folderRepo.delete(f);
-    }
-
-    // Delete gallery folder from S3
-    private void deleteGalleryFolderFromS3(String storageName) {
-        // Note: S3 doesn't have folders, but we can delete all objects with the prefix
-        // For simplicity, we'll just log that files should be cleaned up manually
-        // In production, you might want to implement batch deletion
-        log.info("Gallery folder {} files should be cleaned up from S3", storageName);
-    }
-
-    // Delete gallery folder locally
-    private void deleteGalleryFolderLocally(String storageName) throws IOException {
-        Path folderPath = galleryRoot.resolve(storageName);
-        if (Files.exists(folderPath)) {
-            Files.walk(folderPath)
-                .sorted((a,b) -> b.compareTo(a))
-                .forEach(p -> { try { Files.deleteIfExists(p); } catch (IOException ignored) {} });
-        }
+        events.publishEvent(new GalleryChangedEvent(GalleryChangedEvent.Type.FOLDER_DELETED, folderId));
     }
 
     @Transactional
     public GalleryFolder setFolderActive(Long folderId, boolean active) {
         GalleryFolder f = folderRepo.findById(folderId).orElseThrow();
         f.setIsActive(active);
-        return folderRepo.save(f);
+        f = folderRepo.save(f);
+        events.publishEvent(new GalleryChangedEvent(GalleryChangedEvent.Type.FOLDER_UPDATED, folderId));
+        return f;
     }
 
     // Đổi trạng thái active/inactive cho item
     @Transactional
-    public GalleryItem setItemActive(Long itemId, boolean active) {
-        GalleryItem item = itemRepo.findById(itemId).orElseThrow();
-        item.setIsActive(active);
-        return itemRepo.save(item);
+    public GalleryItemDto setItemActive(Long itemId, boolean active) {
+        if (itemRepo.updateActiveByIdIn(List.of(itemId), active) == 0) {
+            throw new NoSuchElementException("Item not found");
+        }
+        GalleryItemDto item = itemRepo.findDtoById(itemId).orElseThrow();
+        events.publishEvent(new GalleryChangedEvent(GalleryChangedEvent.Type.ITEMS_CHANGED, item.folderId));
+        return item;
     }
 
-        // Delete item
+    // Bulk active/inactive: one UPDATE per chunk of ids instead of a load + save per item
+    @Transactional
+    public int setItemsActive(List<Long> itemIds, boolean active) {
+        int updated = 0;
+        Set<Long> folderIds = new HashSet<>();
+        for (List<Long> chunk : chunks(itemIds)) {
+            folderIds.addAll(itemRepo.findFolderIdsByIdIn(chunk));
+            updated += itemRepo.updateActiveByIdIn(chunk, active);
+        }
+        folderIds.forEach(id -> events.publishEvent(new GalleryChangedEvent(GalleryChangedEvent.Type.ITEMS_CHANGED, id)));
+        return updated;
+    }
+
+    // Delete item
     @Transactional
     public void deleteItem(Long itemId) throws IOException {
-        GalleryItem item = itemRepo.findById(itemId).orElseThrow();
-        GalleryFolder folder = item.getFolder();
+        if (deleteItems(List.of(itemId)) == 0) {
+            throw new NoSuchElementException("Item not found");
+        }
+    }
+
+    // Bulk delete: per chunk one SELECT (with the folder's storage name) and one DELETE;
+    // blob references are released in a single JDBC batch. Returns the number of items deleted.
+    @Transactional
+    public int deleteItems(List<Long> itemIds) throws IOException {
+        List<GalleryItemRef> refs = new ArrayList<>();
+        for (List<Long> chunk : chunks(itemIds)) {
+            refs.addAll(itemRepo.findRefsByIdIn(chunk));
+            itemRepo.deleteByIdIn(chunk);
+        }
+        releaseContent(refs);
 
-        // Delete file based on storage type
-        deleteGalleryFile(folder.getStorageName(), item.getSubDir(), item.getFileName());
+        // Legacy per-folder files are not shared; the deletion worker removes them once this commits
+        deletionService.enqueueGalleryObjects(refs.stream()
+            .filter(ref -> ref.contentHash() == null)
+            .map(ref -> galleryKey(ref.storageName(), ref.subDir(), ref.fileName()))
+            .toList());
 
-        itemRepo.delete(item);
+        refs.stream().map(GalleryItemRef::folderId).distinct()
+            .forEach(id -> events.publishEvent(new GalleryChangedEvent(GalleryChangedEvent.Type.ITEMS_CHANGED, id)));
+        return refs.size();
+    }
+
+    // Shared blobs are only dropped once no item references them
+    private void releaseContent(List<GalleryItemRef> deleted) {
+        contentStore.releaseAll(deleted.stream()
+                .filter(r -> r.contentHash() != null)
+                .collect(Collectors.groupingBy(this::itemKey, Collectors.summingInt(r -> 1))));
+        discardVideoVariants(deleted);
+    }
+
+    // Distinct ids in chunks of BULK_CHUNK (SQL Server allows at most 2100 parameters per statement)
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += BULK_CHUNK) {
+            chunks.add(distinct.subList(i, Math.min(distinct.size(), i + BULK_CHUNK)));
+        }
+        return chunks;
     }
 
     // Upload item vào folder
     @Transactional
     public GalleryItem uploadItem(Long folderId, MultipartFile file, String type) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return ingestItem(folderId, in, file.getOriginalFilename(), type);
+        }
+    }
+
+    // Store a single item stream into a folder (multipart and resumable uploads)
+    @Transactional
+    public GalleryItem ingestItem(Long folderId, InputStream in, String originalName, String type) throws IOException {
         GalleryFolder folder = folderRepo.findById(folderId).orElseThrow();
-        String safe = sanitizeFilename(Optional.ofNullable(file.getOriginalFilename()).orElse("item"));
+        String safe = sanitizeFilename(Optional.ofNullable(originalName).orElse("item"));
         String sub = "VIDEO".equalsIgnoreCase(type) ? "video" : "pic";
         ItemType itemType = "VIDEO".equalsIgnoreCase(type) ? ItemType.VIDEO : ItemType.IMAGE;
 
-        // Store file based on storage type
-        storeGalleryFile(file.getInputStream(), folder.getStorageName(), sub, safe, file.getSize());
-
-        GalleryItem item = new GalleryItem(folder, safe, sub, itemType, buildGalleryUrl(folder.getStorageName(), sub, safe));
-        return itemRepo.save(item);
-    }
-
-    // Delete gallery file (S3 or local)
-    private void deleteGalleryFile(String storageName, String subDir, String fileName) throws IOException {
-        if (isS3Storage) {
-            String key = "gallery/" + storageName + "/" + subDir + "/" + fileName;
-            s3Client.deleteObject(DeleteObjectRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(key)
-                    .build());
-        } else {
-            Path target = galleryRoot.resolve(storageName).resolve(subDir).resolve(fileName);
-            Files.deleteIfExists(target);
-        }
+        GalleryItem item = storeItem(folder, in, sub, safe, itemType);
+        events.publishEvent(new GalleryChangedEvent(GalleryChangedEvent.Type.ITEMS_CHANGED, folderId));
+        return item;
     }
 
     // Download folder as ZIP
     public Path downloadZip(Long folderId) throws IOException {
+        GalleryFolder folder = folderRepo.findById(folderId).orElseThrow(() -> new IOException("Folder not found"));
+        return buildZip(folder, itemRepo.findByFolder(folder));
+    }
+
+    // S3 redirect mode: the archive is built once per folder content, stored next to the
+    // folder in S3 and handed out as a presigned/CDN link so later downloads skip the backend
+    public MediaRedirect downloadZipRedirect(Long folderId) throws IOException {
         GalleryFolder folder = folderRepo.findById(folderId).orElseThrow(() -> new IOException("Folder not found"));
         List<GalleryItem> items = itemRepo.findByFolder(folder);
 
+        String zipName = zipFingerprint(items) + ".zip";
+        String prefix = "gallery/" + folder.getStorageName() + "/" + ZIP_SUBDIR + "/";
+        String key = prefix + zipName;
+
+        // One build per folder at a time: concurrent first downloads wait for it instead of racing
+        while (!blobStore.exists(key)) {
+            CompletableFuture<Void> build = new CompletableFuture<>();
+            CompletableFuture<Void> running = zipBuilds.putIfAbsent(folderId, build);
+            if (running != null) {
+                awaitZipBuild(running);
+                continue;
+            }
+            try {
+                if (!blobStore.exists(key)) {
+                    Path zipFile = buildZip(folder, items);
+                    try {
+                        blobStore.put(key, zipFile, null);
+                    } finally {
+                        Files.deleteIfExists(zipFile);
+                    }
+                    deleteStaleZips(prefix, key);
+                }
+                build.complete(null);
+            } catch (IOException | RuntimeException e) {
+                build.completeExceptionally(e);
+                throw e;
+            } finally {
+                zipBuilds.remove(folderId, build);
+            }
+        }
+
+        MediaRedirect redirect = mediaDeliveryService.redirectFor(key, "folder_" + folderId + ".zip");
+        if (redirect == null) {
+            throw new IOException("Folder archive disappeared: " + key);
+        }
+        return redirect;
+    }
+
+    private static void awaitZipBuild(CompletableFuture<Void> build) throws IOException {
+        try {
+            build.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Folder archive build failed", e.getCause());
+        }
+    }
+
+    private Path buildZip(GalleryFolder folder, List<GalleryItem> items) throws IOException {
         Path tempDir = Paths.get(System.getProperty("java.io.tmpdir", "/tmp"));
         Path zipFile = Files.createTempFile(tempDir, "download", ".zip");
 
         try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipFile))) {
             for (GalleryItem item : items) {
-                String key = "gallery/" + folder.getStorageName() + "/" + item.getSubDir() + "/" + item.getFileName();
-                try {
-                    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                            .bucket(s3BucketName)
-                            .key(key)
-                            .build();
-                    ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(getObjectRequest);
+                String key = itemKey(folder, item);
+                try (InputStream in = blobStore.open(key)) {
                     ZipEntry zipEntry = new ZipEntry(item.getSubDir() + "/" + item.getFileName());
                     zos.putNextEntry(zipEntry);
-                    s3Object.transferTo(zos);
+                    in.transferTo(zos);
                     zos.closeEntry();
                 } catch (Exception e) {
                     log.error("Failed to add file to zip: {}", key, e);
@@ -418,14 +523,34 @@ public class GalleryService {
         return zipFile;
     }
 
-    // Search folders by name (case-insensitive) - only active folders
-    public List<GalleryFolder> searchFoldersByName(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            return folderRepo.findByIsActiveTrue();
+    // Archive name changes whenever the folder's item set changes
+    private String zipFingerprint(List<GalleryItem> items) {
+        StringBuilder sb = new StringBuilder();
+        items.stream()
+             .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+             .forEach(i -> sb.append(i.getId()).append(':').append(i.getSubDir()).append('/').append(i.getFileName()).append('\n'));
+        return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void deleteStaleZips(String prefix, String currentKey) {
+        try {
+            List<String> stale = blobStore.list(prefix, null, 1000).keys().stream()
+                    .filter(k -> !k.equals(currentKey))
+                    .toList();
+            if (!stale.isEmpty()) {
+                blobStore.deleteAll(stale);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean up stale gallery archives under {}: {}", prefix, e.getMessage());
         }
-        return folderRepo.findByDisplayNameContainingIgnoreCaseAndIsActiveTrue(query.trim());
     }
 
+    // Search folders by name (case- and diacritic-insensitive, ranked) - only active folders
+    public List<GalleryFolder> searchFoldersByName(String query) {
+        return searchIndex.search(query);
+    }
+
+    private static String extensionOf(String n) { int i = n.lastIndexOf('.'); return i==-1?"":n.substring(i).toLowerCase(Locale.ROOT); }
     private String stripExt(String n) { int i = n.lastIndexOf('.'); return i==-1?n:n.substring(0,i); }
     private String sanitize(String n) {
         String s = Normalizer.normalize(n, Normalizer.Form.NFD)
@@ -442,7 +567,9 @@ public class GalleryService {
     }
     private String ensureImageExt(String n) { return n.toLowerCase(Locale.ROOT).matches(".*\\.(jpg|jpeg|png|gif|webp)$") ? n : n+".jpg"; }
     private String uniqueStorageName(String base) {
-        String c = base; int i=1; while (folderRepo.existsByStorageName(c)) c = base + "-" + (++i); return c;
+        // a name whose deletion is still queued would lose the new folder's files to that task
+        String c = base; int i=1; while (BLOB_STORAGE.equals(c) || VARIANT_STORAGE.equals(c) || folderRepo.existsByStorageName(c)
+                || deletionService.isGalleryFolderPending(c)) c = base + "-" + (++i); return c;
     }
 }
 
@@ -0,0 +1,192 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.alice.cosplaysuggestion.utils.BlurHash;
+
+// Image metadata read once at ingest so listings can reserve layout space and show a placeholder
+// - width/height come from the format header (ImageReader.getWidth/getHeight, no pixel decode)
+// - EXIF orientation is parsed from the JPEG APP1 segment in the first few KB
+// - the BlurHash is computed from a subsampled decode (~32px wide), never the full bitmap
+@Service
+public class ImageMetadataService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageMetadataService.class);
+
+    private static final int BLURHASH_SAMPLE_WIDTH = 32;
+    private static final int BLURHASH_COMPONENTS_X = 4;
+    private static final int BLURHASH_COMPONENTS_Y = 3;
+    // EXIF must be in APP1 near the start of the file; don't scan further than this
+    private static final int EXIF_SCAN_LIMIT = 256 * 1024;
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    // Skip the BlurHash for absurd dimensions (decompression bombs); dimensions are still stored
+    @Value("${app.image.metadata.max-pixels:200000000}")
+    private long maxPixels;
+
+    // Returns null when the file is not a readable image
+    public ImageMetadata read(Path file) {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+            if (iis == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int orientation = "jpeg".equalsIgnoreCase(reader.getFormatName()) ? readExifOrientation(file) : 1;
+
+                String blurhash = null;
+                if ((long) width * height <= maxPixels) {
+                    blurhash = blurhash(reader, width, orientation);
+                }
+
+                // orientations 5-8 rotate by 90°, so the displayed image is height x width
+                boolean swap = orientation >= 5;
+                return new ImageMetadata(swap ? height : width, swap ? width : height, orientation, blurhash);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read image metadata from {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String blurhash(ImageReader reader, int width, int orientation) {
+        try {
+            ImageReadParam param = reader.getDefaultReadParam();
+            int step = Math.max(1, width / BLURHASH_SAMPLE_WIDTH);
+            param.setSourceSubsampling(step, step, 0, 0);
+            BufferedImage sample = reader.read(0, param);
+
+            int w = sample.getWidth();
+            int h = sample.getHeight();
+            int[] pixels = sample.getRGB(0, 0, w, h, null, 0, w);
+            if (orientation > 1) {
+                pixels = orient(pixels, w, h, orientation);
+                if (orientation >= 5) {
+                    int t = w;
+                    w = h;
+                    h = t;
+                }
+            }
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] &= 0xffffff;
+            }
+            return BlurHash.encode(pixels, w, h, BLURHASH_COMPONENTS_X, BLURHASH_COMPONENTS_Y);
+        } catch (IOException | RuntimeException e) {
+            // CMYK JPEGs and some exotic PNGs can't be decoded by ImageIO; dimensions are still useful
+            log.debug("BlurHash skipped: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Apply EXIF orientation to the (small) sample so the placeholder matches the displayed image
+    static int[] orient(int[] src, int w, int h, int orientation) {
+        int[] out = new int[src.length];
+        int outW = orientation >= 5 ? h : w;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int ox, oy;
+                switch (orientation) {
+                    case 2 -> { ox = w - 1 - x; oy = y; }
+                    case 3 -> { ox = w - 1 - x; oy = h - 1 - y; }
+                    case 4 -> { ox = x; oy = h - 1 - y; }
+                    case 5 -> { ox = y; oy = x; }
+                    case 6 -> { ox = h - 1 - y; oy = x; }
+                    case 7 -> { ox = h - 1 - y; oy = w - 1 - x; }
+                    case 8 -> { ox = y; oy = w - 1 - x; }
+                    default -> { ox = x; oy = y; }
+                }
+                out[oy * outW + ox] = src[y * w + x];
+            }
+        }
+        return out;
+    }
+
+    // Walk JPEG markers up to APP1 "Exif", then read tag 0x0112 from IFD0. 1 when absent.
+    static int readExifOrientation(Path file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(EXIF_SCAN_LIMIT);
+        }
+        if (head.length < 4 || (head[0] & 0xff) != 0xFF || (head[1] & 0xff) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= head.length && (head[pos] & 0xff) == 0xFF) {
+            int marker = head[pos + 1] & 0xff;
+            int length = ((head[pos + 2] & 0xff) << 8) | (head[pos + 3] & 0xff);
+            if (marker == 0xDA || marker == 0xD9) {
+                break; // start of scan: no more metadata segments
+            }
+            int data = pos + 4;
+            if (marker == 0xE1 && data + 6 <= head.length
+                    && head[data] == 'E' && head[data + 1] == 'x' && head[data + 2] == 'i' && head[data + 3] == 'f'
+                    && head[data + 4] == 0 && head[data + 5] == 0) {
+                return orientationFromTiff(head, data + 6, Math.min(head.length, pos + 2 + length));
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int orientationFromTiff(byte[] b, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean little = b[tiff] == 'I' && b[tiff + 1] == 'I';
+        int ifd = tiff + (int) readInt(b, tiff + 4, little);
+        if (ifd < tiff || ifd + 2 > end) {
+            return 1;
+        }
+        int entries = readShort(b, ifd, little);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (readShort(b, entry, little) == TAG_ORIENTATION) {
+                int value = readShort(b, entry + 8, little);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] b, int off, boolean little) {
+        return little
+                ? (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8)
+                : ((b[off] & 0xff) << 8) | (b[off + 1] & 0xff);
+    }
+
+    private static long readInt(byte[] b, int off, boolean little) {
+        return little
+                ? (readShort(b, off, true) & 0xffffL) | ((long) readShort(b, off + 2, true) << 16)
+                : ((long) readShort(b, off, false) << 16) | (readShort(b, off + 2, false) & 0xffffL);
+    }
+
+    // width/height as displayed, orientation as stored in EXIF, blurhash may be null
+    public record ImageMetadata(int width, int height, int orientation, String blurhash) {}
+}
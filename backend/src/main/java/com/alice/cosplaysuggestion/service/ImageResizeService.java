@@ -0,0 +1,373 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+// On-the-fly image resizing for gallery and avatar files
+// Resized variants are written to a disk cache bounded by app.image.cache.max-bytes
+// and evicted in least-recently-used order. Concurrent requests for the same
+// variant share a single decode/encode. Public callers snap widths to a fixed ladder and
+// qualities to a few buckets, so an image has a handful of variants rather than thousands.
+@Service
+public class ImageResizeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageResizeService.class);
+
+    private static final int MIN_WIDTH = 16;
+    private static final int DEFAULT_QUALITY = 80;
+    private static final int[] QUALITY_BUCKETS = {50, 65, 80, 90};
+
+    @Value("${app.image.cache.location:uploads/cache/images}")
+    private String cacheLocation;
+
+    @Value("${app.image.cache.max-bytes:536870912}")
+    private long cacheMaxBytes;
+
+    @Value("${app.image.resize.max-width:2048}")
+    private int maxWidth;
+
+    // Widths served to public requests; anything else snaps to the next step up
+    @Value("${app.image.resize.widths:160,320,640,960,1280,2048}")
+    private List<Integer> widths;
+
+    // Decoded images above this many pixels are refused before any bitmap is allocated
+    @Value("${app.image.resize.max-pixels:40000000}")
+    private long maxPixels;
+
+    private Path cacheRoot;
+    private List<Integer> widthLadder;
+
+    // LRU index of cached variants (access-ordered)
+    private final LinkedHashMap<String, CachedVariant> lru = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    // In-flight resize jobs, used to coalesce identical concurrent requests
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        this.widthLadder = widths.stream().filter(w -> w != null && w >= MIN_WIDTH && w <= maxWidth)
+                .distinct().sorted().toList();
+        if (widthLadder.isEmpty()) {
+            throw new IllegalStateException("app.image.resize.widths must contain a width between " + MIN_WIDTH + " and " + maxWidth);
+        }
+        this.cacheRoot = Paths.get(cacheLocation).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(cacheRoot);
+            loadExistingEntries();
+            log.info("Image resize cache at {} ({} entries, {} bytes, cap {} bytes)", cacheRoot, lru.size(), cachedBytes, cacheMaxBytes);
+        } catch (IOException e) {
+            log.error("Could not initialize image resize cache: {}", e.getMessage());
+            throw new RuntimeException("Could not create image cache directory", e);
+        }
+    }
+
+    // Whether a file name looks like a still image we can resize (animated GIFs are served as-is)
+    // WebP only when an ImageIO reader plugin is installed; the JDK cannot decode it
+    public boolean isResizable(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".webp")) {
+            return ImageIO.getImageReadersBySuffix("webp").hasNext();
+        }
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png")
+                || lower.endsWith(".bmp");
+    }
+
+    // Snap a requested width to the nearest ladder step at or above it (largest step if beyond)
+    public int snapWidth(int width) {
+        for (int step : widthLadder) {
+            if (step >= width) {
+                return step;
+            }
+        }
+        return widthLadder.get(widthLadder.size() - 1);
+    }
+
+    // Resolve the output format for a request: jpg, png or webp; falls back to jpg when no writer is available
+    public String resolveFormat(String requested, String sourceName) {
+        String format = requested != null && !requested.isBlank()
+                ? requested.toLowerCase(Locale.ROOT)
+                : sourceName.toLowerCase(Locale.ROOT).endsWith(".png") ? "png" : "jpg";
+        if (!"png".equals(format) && !"webp".equals(format)) {
+            format = "jpg";
+        }
+        return ImageIO.getImageWritersByFormatName(format).hasNext() ? format : "jpg";
+    }
+
+    public String contentTypeFor(String format) {
+        return switch (format) {
+            case "png" -> "image/png";
+            case "webp" -> "image/webp";
+            default -> "image/jpeg";
+        };
+    }
+
+    // Return a cached (or freshly generated) variant of source at the given width
+    public Path resize(Path source, int width, Integer quality, String format) throws IOException {
+        int targetWidth = Math.max(MIN_WIDTH, Math.min(width, maxWidth));
+        int q = bucketQuality(quality);
+        String fmt = resolveFormat(format, source.getFileName().toString());
+
+        String key = cacheKey(source, targetWidth, q, fmt);
+        Path target = cachePath(key, fmt);
+
+        if (touch(key) && Files.exists(target)) {
+            return target;
+        }
+
+        CompletableFuture<Path> job = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, job);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            Path result = render(source, target, targetWidth, q, fmt);
+            record(key, result, Files.size(result));
+            job.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            job.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, job);
+        }
+    }
+
+    // Largest bucket not above the requested quality (the lowest bucket for anything below it)
+    static int bucketQuality(Integer quality) {
+        if (quality == null) {
+            return DEFAULT_QUALITY;
+        }
+        int bucket = QUALITY_BUCKETS[0];
+        for (int b : QUALITY_BUCKETS) {
+            if (b <= quality) {
+                bucket = b;
+            }
+        }
+        return bucket;
+    }
+
+    // Statistics for health checks
+    public synchronized String getCacheInfo() {
+        return String.format("Image cache: %d entries, %d/%d bytes", lru.size(), cachedBytes, cacheMaxBytes);
+    }
+
+    private Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Image resize failed", e.getCause());
+        }
+    }
+
+    private Path render(Path source, Path target, int width, int quality, String format) throws IOException {
+        BufferedImage src = decode(source, width);
+        if (src == null) {
+            throw new IOException("Unsupported image: " + source.getFileName());
+        }
+
+        BufferedImage scaled = scale(src, Math.min(width, src.getWidth()), "png".equals(format));
+
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "resize", ".tmp");
+        try {
+            encode(scaled, tmp, format, quality);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        log.debug("Resized {} to {}px ({})", source.getFileName(), width, format);
+        return target;
+    }
+
+    // Decode with source subsampling so large photos never inflate to full resolution
+    private BufferedImage decode(Path source, int targetWidth) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int srcWidth = reader.getWidth(0);
+                if ((long) srcWidth * reader.getHeight(0) > maxPixels) {
+                    throw new ImageTooLargeException(source.getFileName() + " exceeds " + maxPixels + " pixels");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // keep at least 2x the target width for a clean downscale
+                int step = Math.max(1, srcWidth / (targetWidth * 2));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Progressive halving followed by a final bilinear pass
+    private BufferedImage scale(BufferedImage src, int width, boolean keepAlpha) {
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        int targetHeight = Math.max(1, (int) Math.round((double) h * width / w));
+
+        do {
+            int nextW = Math.max(width, w / 2);
+            int nextH = nextW == width ? targetHeight : Math.max(targetHeight, h / 2);
+            BufferedImage next = new BufferedImage(nextW, nextH, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, nextW, nextH, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+            w = nextW;
+            h = nextH;
+        } while (w > width);
+
+        return current;
+    }
+
+    private void encode(BufferedImage image, Path target, String format, int quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg".equals(format) ? "jpeg" : format);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer for format: " + format);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed() && !"png".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionTypes() != null && param.getCompressionType() == null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality / 100f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // Cache key includes source identity (path, size, mtime) so edited files get fresh variants
+    private String cacheKey(Path source, int width, int quality, String format) throws IOException {
+        String identity = source.toAbsolutePath() + "|" + Files.size(source) + "|" + Files.getLastModifiedTime(source).toMillis()
+                + "|" + width + "|" + quality + "|" + format;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(identity.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path cachePath(String key, String format) {
+        return cacheRoot.resolve(key.substring(0, 2)).resolve(key + "." + format);
+    }
+
+    private synchronized boolean touch(String key) {
+        return lru.get(key) != null;
+    }
+
+    private void record(String key, Path file, long size) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            CachedVariant previous = lru.put(key, new CachedVariant(file, size));
+            cachedBytes += size - (previous == null ? 0 : previous.size());
+            Iterator<Map.Entry<String, CachedVariant>> it = lru.entrySet().iterator();
+            while (cachedBytes > cacheMaxBytes && it.hasNext()) {
+                Map.Entry<String, CachedVariant> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                cachedBytes -= eldest.getValue().size();
+                evicted.add(eldest.getValue().path());
+                it.remove();
+            }
+        }
+        for (Path p : evicted) {
+            try {
+                Files.deleteIfExists(p);
+            } catch (IOException e) {
+                log.warn("Failed to evict cached image {}: {}", p, e.getMessage());
+            }
+        }
+    }
+
+    // Rebuild the LRU index from disk, oldest files first
+    private void loadExistingEntries() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheRoot, 2)) {
+            files.filter(Files::isRegularFile)
+                 .filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                 .sorted((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()))
+                 .forEach(p -> {
+                     String name = p.getFileName().toString();
+                     int dot = name.lastIndexOf('.');
+                     String key = dot == -1 ? name : name.substring(0, dot);
+                     long size = p.toFile().length();
+                     CachedVariant previous = lru.put(key, new CachedVariant(p, size));
+                     cachedBytes += size - (previous == null ? 0 : previous.size());
+                 });
+        }
+    }
+
+    private record CachedVariant(Path path, long size) {}
+
+    // Source is too large to decode safely; callers serve the original instead
+    public static class ImageTooLargeException extends IOException {
+        public ImageTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
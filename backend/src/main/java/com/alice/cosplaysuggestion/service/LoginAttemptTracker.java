@@ -0,0 +1,347 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.alice.cosplaysuggestion.exception.TooManyAttemptsException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+
+// In-memory sliding-window attempt counters for login and password reset, per account and per client IP
+// check() runs before any DB query, checkAccount() after the account lookup and before BCrypt.
+// Failures against an existing account are counted under its id, so "Alice", "alice" and her email
+// share one budget; unknown names are counted under the canonical (trimmed, lowercase) name.
+// Once a key reaches its limit inside the
+// window, further attempts are refused for a backoff that doubles with every extra failure
+// (capped at the window), so an attacker's rate decays while CPU stays free for real logins.
+@Service
+public class LoginAttemptTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginAttemptTracker.class);
+
+    // limits per window: account, IP; window in seconds
+    public enum Action {
+        LOGIN(5, 30, 900),
+        // every request sends an email, so all requests count, not only failures
+        RESET_REQUEST(3, 10, 3600),
+        // the reset code is 6 digits: keep guesses per account very low
+        RESET_CONFIRM(5, 20, 900);
+
+        final int accountLimit;
+        final int ipLimit;
+        final long windowSeconds;
+
+        Action(int accountLimit, int ipLimit, long windowSeconds) {
+            this.accountLimit = accountLimit;
+            this.ipLimit = ipLimit;
+            this.windowSeconds = windowSeconds;
+        }
+    }
+
+    private static final long BASE_BACKOFF_SECONDS = 30;
+
+    @Value("${app.auth.attempts.enabled:true}")
+    private boolean enabled;
+
+    // Header set by the reverse proxy (nginx X-Real-IP). It is only read on connections from
+    // trusted-proxies; anyone reaching the backend port directly could otherwise pick their own IP.
+    @Value("${app.auth.attempts.client-ip-header:X-Real-IP}")
+    private String clientIpHeader;
+
+    // Comma-separated addresses or CIDR ranges of the reverse proxies; empty = never trust the header
+    @Value("${app.auth.attempts.trusted-proxies:}")
+    private String trustedProxies;
+
+    // Hard cap on tracked keys; when full (after purging stale ones) the tenth of the keys with the
+    // oldest last failure is evicted, so new keys are always tracked and recent lockouts stay in place
+    @Value("${app.auth.attempts.max-keys:100000}")
+    private int maxKeys;
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong evicted = new AtomicLong();
+    private List<IpRange> proxyRanges = List.of();
+    private final Map<Action, AtomicLong> rejected = new EnumMap<>(Action.class);
+    private final Map<Action, AtomicLong> failures = new EnumMap<>(Action.class);
+
+    public LoginAttemptTracker() {
+        for (Action action : Action.values()) {
+            rejected.put(action, new AtomicLong());
+            failures.put(action, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        List<IpRange> ranges = new ArrayList<>();
+        for (String entry : trustedProxies.split(",")) {
+            if (!entry.isBlank()) {
+                ranges.add(IpRange.parse(entry.trim()));
+            }
+        }
+        this.proxyRanges = List.copyOf(ranges);
+    }
+
+    // Before the account lookup: throws TooManyAttemptsException when the typed name or the
+    // client IP is locked out
+    public void check(Action action, String account) {
+        if (enabled) {
+            long now = System.currentTimeMillis();
+            refuseIfLocked(action, Math.max(
+                    retryAfter(nameKey(action, account), action.accountLimit, now),
+                    retryAfter(ipKey(action), action.ipLimit, now)));
+        }
+    }
+
+    // After the account lookup: throws TooManyAttemptsException when the account itself is locked
+    // out, whichever of its username or email the failures were made with
+    public void checkAccount(Action action, Long accountId) {
+        if (enabled) {
+            refuseIfLocked(action, retryAfter(idKey(action, accountId), action.accountLimit, System.currentTimeMillis()));
+        }
+    }
+
+    // Failure for a name that matches no account
+    public void recordFailure(Action action, String account) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        failures.get(action).incrementAndGet();
+        record(nameKey(action, account), action, now);
+        record(ipKey(action), action, now);
+        log.debug("{} failure for unknown {} from {}", action, account, clientIp());
+    }
+
+    // Failure against an existing account
+    public void recordAccountFailure(Action action, Long accountId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        failures.get(action).incrementAndGet();
+        record(idKey(action, accountId), action, now);
+        record(ipKey(action), action, now);
+        log.debug("{} failure for account {} from {}", action, accountId, clientIp());
+    }
+
+    // A successful login/reset clears the account's counter; the IP keeps its history
+    public void recordSuccess(Action action, Long accountId) {
+        if (enabled) {
+            windows.remove(idKey(action, accountId));
+        }
+    }
+
+    public AttemptStats getStats() {
+        Map<String, Long> rejectedByAction = new LinkedHashMap<>();
+        Map<String, Long> failuresByAction = new LinkedHashMap<>();
+        for (Action action : Action.values()) {
+            rejectedByAction.put(action.name(), rejected.get(action).get());
+            failuresByAction.put(action.name(), failures.get(action).get());
+        }
+        return new AttemptStats(windows.size(), maxKeys, evicted.get(), failuresByAction, rejectedByAction);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeStale() {
+        long now = System.currentTimeMillis();
+        windows.values().removeIf(w -> w.isStale(now));
+    }
+
+    private void refuseIfLocked(Action action, long wait) {
+        if (wait > 0) {
+            rejected.get(action).incrementAndGet();
+            long seconds = Math.max(1, (wait + 999) / 1000);
+            throw new TooManyAttemptsException(
+                    "Too many attempts. Please try again in " + seconds + " seconds.", seconds);
+        }
+    }
+
+    private long retryAfter(String key, int limit, long now) {
+        Window w = windows.get(key);
+        return w == null ? 0 : w.retryAfter(limit, now);
+    }
+
+    private void record(String key, Action action, long now) {
+        Window w = windows.get(key);
+        if (w == null) {
+            if (windows.size() >= maxKeys) {
+                makeRoom();
+            }
+            w = windows.computeIfAbsent(key, k -> new Window(action.windowSeconds * 1000,
+                    Math.max(action.accountLimit, action.ipLimit) * 4));
+        }
+        w.add(now);
+    }
+
+    // Purge stale keys; if that is not enough, evict the tenth with the oldest last failure.
+    // One sort per maxKeys/10 new keys keeps a flood of fresh names cheap, and the keys dropped
+    // are the ones furthest from their last failure, never an attacker's current lockout.
+    private synchronized void makeRoom() {
+        if (windows.size() < maxKeys) {
+            return;
+        }
+        purgeStale();
+        if (windows.size() < maxKeys) {
+            return;
+        }
+        List<Map.Entry<String, Window>> entries = new ArrayList<>(windows.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().lastFailure()));
+        int count = Math.max(1, Math.min(entries.size(), maxKeys / 10));
+        for (int i = 0; i < count; i++) {
+            windows.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        evicted.addAndGet(count);
+        log.warn("Attempt tracker full ({} keys); evicted the {} least recently failed", maxKeys, count);
+    }
+
+    private static String nameKey(Action action, String account) {
+        String normalized = account == null ? "" : account.trim().toLowerCase(Locale.ROOT);
+        return action.name() + ":name:" + normalized;
+    }
+
+    private static String idKey(Action action, Long accountId) {
+        return action.name() + ":id:" + accountId;
+    }
+
+    private String ipKey(Action action) {
+        return action.name() + ":ip:" + clientIp();
+    }
+
+    private String clientIp() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs)) {
+            return "unknown";
+        }
+        HttpServletRequest request = attrs.getRequest();
+        if (clientIpHeader != null && !clientIpHeader.isBlank() && isTrustedProxy(request.getRemoteAddr())) {
+            String header = request.getHeader(clientIpHeader);
+            if (header != null && !header.isBlank()) {
+                int comma = header.indexOf(',');
+                return (comma >= 0 ? header.substring(0, comma) : header).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private boolean isTrustedProxy(String remoteAddr) {
+        if (proxyRanges.isEmpty() || remoteAddr == null) {
+            return false;
+        }
+        byte[] address;
+        try {
+            // remote addresses are literal IPs, so this never does a DNS lookup
+            address = InetAddress.getByName(remoteAddr).getAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+        return proxyRanges.stream().anyMatch(r -> r.contains(address));
+    }
+
+    // One trusted-proxies entry: an address with an optional /prefix length (IPv4 or IPv6)
+    private record IpRange(byte[] network, int prefix) {
+
+        static IpRange parse(String entry) {
+            int slash = entry.indexOf('/');
+            String host = slash >= 0 ? entry.substring(0, slash) : entry;
+            if (!host.matches("[0-9a-fA-F:.]+")) {
+                throw new IllegalArgumentException("app.auth.attempts.trusted-proxies must list IP addresses: " + entry);
+            }
+            try {
+                byte[] network = InetAddress.getByName(host).getAddress();
+                int prefix = slash >= 0 ? Integer.parseInt(entry.substring(slash + 1)) : network.length * 8;
+                if (prefix < 0 || prefix > network.length * 8) {
+                    throw new IllegalArgumentException("Invalid prefix length in trusted proxy " + entry);
+                }
+                return new IpRange(network, prefix);
+            } catch (UnknownHostException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid trusted proxy " + entry, e);
+            }
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int full = prefix / 8;
+            for (int i = 0; i < full; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int rest = prefix % 8;
+            if (rest == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - rest);
+            return (address[full] & mask) == (network[full] & mask);
+        }
+    }
+
+    // Failure timestamps of one key inside the sliding window (bounded deque)
+    private static final class Window {
+        private final long windowMs;
+        private final int capacity;
+        private final ArrayDeque<Long> times = new ArrayDeque<>();
+
+        Window(long windowMs, int capacity) {
+            this.windowMs = windowMs;
+            this.capacity = capacity;
+        }
+
+        synchronized void add(long now) {
+            evict(now);
+            if (times.size() >= capacity) {
+                times.pollFirst();
+            }
+            times.addLast(now);
+        }
+
+        // 0 when allowed; otherwise milliseconds until the backoff after the last failure ends
+        synchronized long retryAfter(int limit, long now) {
+            evict(now);
+            int count = times.size();
+            if (count < limit) {
+                return 0;
+            }
+            int excess = Math.min(count - limit, 20);
+            long backoff = Math.min(windowMs, BASE_BACKOFF_SECONDS * 1000 * (1L << excess));
+            return Math.max(0, times.peekLast() + backoff - now);
+        }
+
+        synchronized long lastFailure() {
+            return times.isEmpty() ? 0 : times.peekLast();
+        }
+
+        synchronized boolean isStale(long now) {
+            evict(now);
+            return times.isEmpty();
+        }
+
+        private void evict(long now) {
+            while (!times.isEmpty() && times.peekFirst() <= now - windowMs) {
+                times.pollFirst();
+            }
+        }
+    }
+
+    public record AttemptStats(int trackedKeys, int maxKeys, long evictedKeys,
+                               Map<String, Long> failures, Map<String, Long> rejected) {}
+}
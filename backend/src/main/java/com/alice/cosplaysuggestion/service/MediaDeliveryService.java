@@ -0,0 +1,199 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.alice.cosplaysuggestion.storage.BlobStore;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+// Decides how S3-backed media reaches the browser
+// Delivery mode is determined by app.media.delivery (only relevant when app.storage.type=s3):
+// - "direct": public S3 object URLs are stored on the entity (previous behaviour)
+// - "presigned": backend URLs are stored; requests are 302-redirected to short-lived presigned GET URLs
+// - "cdn": backend URLs are stored; requests are 302-redirected to app.media.cdn.base-url + key
+// - "proxy": backend URLs are stored; the backend serves bytes from its local cache tier (CachingBlobStore)
+@Service
+public class MediaDeliveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaDeliveryService.class);
+
+    // Hard cap on cached presigned URLs; the least recently used entry is evicted beyond it
+    private static final int MAX_CACHED_URLS = 20000;
+
+    // Hard cap on remembered existing keys, evicted the same way
+    private static final int MAX_KNOWN_KEYS = 50000;
+
+    @Value("${app.storage.type:local}")
+    private String storageType;
+
+    @Value("${app.media.delivery:direct}")
+    private String deliveryMode;
+
+    @Value("${app.media.presign.ttl-seconds:900}")
+    private long presignTtlSeconds;
+
+    @Value("${app.media.cdn.base-url:}")
+    private String cdnBaseUrl;
+
+    @Value("${aws.s3.bucket.name:}")
+    private String s3BucketName;
+
+    @Value("${aws.s3.region:ap-southeast-2}")
+    private String s3Region;
+
+    private S3Presigner presigner;
+    private boolean redirectMode;
+    private boolean directUrls;
+
+    private final BlobStore blobStore;
+
+    // LRU of presigned URLs (access-ordered), only ever holding keys that exist in the bucket
+    private final LinkedHashMap<String, SignedUrl> signedUrls = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SignedUrl> eldest) {
+            return size() > MAX_CACHED_URLS;
+        }
+    };
+
+    // Keys confirmed to exist in the bucket (access-ordered LRU), so a hot object costs one HEAD
+    // request rather than one per page view. Media keys are content-addressed or unique per upload and
+    // are not rewritten in place; a deleted object only turns into a 404 from S3/CDN until evicted.
+    private final LinkedHashMap<String, Boolean> knownKeys = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_KNOWN_KEYS;
+        }
+    };
+
+    public MediaDeliveryService(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        String mode = deliveryMode.toLowerCase(Locale.ROOT);
+        boolean s3 = "s3".equalsIgnoreCase(storageType);
+        this.redirectMode = s3 && ("presigned".equals(mode) || "cdn".equals(mode));
+        this.directUrls = s3 && !redirectMode && !"proxy".equals(mode);
+
+        if (redirectMode && "cdn".equals(mode) && cdnBaseUrl.isBlank()) {
+            throw new IllegalStateException("app.media.cdn.base-url is required when app.media.delivery=cdn");
+        }
+        if (redirectMode && "presigned".equals(mode)) {
+            this.presigner = S3Presigner.builder()
+                    .region(Region.of(s3Region))
+                    .build();
+        }
+        if (s3) {
+            log.info("Media delivery mode: {} (bucket {})", mode, s3BucketName);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (presigner != null) {
+            presigner.close();
+        }
+    }
+
+    // True when media endpoints should redirect to S3/CDN instead of serving bytes
+    public boolean isRedirectMode() {
+        return redirectMode;
+    }
+
+    // True when entities should store public S3 object URLs instead of backend URLs
+    public boolean usesDirectUrls() {
+        return directUrls;
+    }
+
+    // Resolve the redirect target for an object key; null when the object does not exist
+    public MediaRedirect redirectFor(String key) throws IOException {
+        return redirectFor(key, null);
+    }
+
+    // Resolve the redirect target, optionally forcing a download file name
+    // Keys come from request paths: unknown objects are neither signed nor cached
+    public MediaRedirect redirectFor(String key, String attachmentName) throws IOException {
+        if (presigner == null) {
+            if (!exists(key)) {
+                return null;
+            }
+            String base = cdnBaseUrl.endsWith("/") ? cdnBaseUrl : cdnBaseUrl + "/";
+            return new MediaRedirect(URI.create(base + key), presignTtlSeconds);
+        }
+
+        String cacheKey = attachmentName == null ? key : key + "|" + attachmentName;
+        Instant now = Instant.now();
+        SignedUrl cached;
+        synchronized (signedUrls) {
+            cached = signedUrls.get(cacheKey);
+        }
+        // Re-sign once less than a quarter of the lifetime remains
+        if (cached == null || cached.expiresAt().minusSeconds(presignTtlSeconds / 4).isBefore(now)) {
+            if (!exists(key)) {
+                synchronized (signedUrls) {
+                    signedUrls.remove(cacheKey);
+                }
+                return null;
+            }
+            cached = sign(key, attachmentName, now);
+            synchronized (signedUrls) {
+                signedUrls.put(cacheKey, cached);
+            }
+        }
+        long remaining = Duration.between(now, cached.expiresAt()).getSeconds() - presignTtlSeconds / 4;
+        return new MediaRedirect(cached.url(), Math.max(0, remaining));
+    }
+
+    // Only positive answers are remembered: a key that 404s now may be uploaded a moment later
+    private boolean exists(String key) throws IOException {
+        synchronized (knownKeys) {
+            if (knownKeys.get(key) != null) {
+                return true;
+            }
+        }
+        if (!blobStore.exists(key)) {
+            return false;
+        }
+        synchronized (knownKeys) {
+            knownKeys.put(key, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    private SignedUrl sign(String key, String attachmentName, Instant now) {
+        GetObjectRequest.Builder get = GetObjectRequest.builder()
+                .bucket(s3BucketName)
+                .key(key);
+        if (attachmentName != null) {
+            get.responseContentDisposition("attachment; filename=\"" + attachmentName + "\"");
+        }
+        GetObjectPresignRequest request = GetObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofSeconds(presignTtlSeconds))
+                .getObjectRequest(get.build())
+                .build();
+        URI url = URI.create(presigner.presignGetObject(request).url().toString());
+        return new SignedUrl(url, now.plusSeconds(presignTtlSeconds));
+    }
+
+    // Redirect target plus how long the redirect itself may be cached by the client
+    public record MediaRedirect(URI location, long maxAgeSeconds) {}
+
+    private record SignedUrl(URI url, Instant expiresAt) {}
+}
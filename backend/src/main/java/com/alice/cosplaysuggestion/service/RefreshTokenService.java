@@ -0,0 +1,134 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alice.cosplaysuggestion.model.Account;
+import com.alice.cosplaysuggestion.model.RefreshToken;
+import com.alice.cosplaysuggestion.repository.RefreshTokenRepository;
+
+// Rotating refresh tokens backing short-lived access tokens
+// Only /api/auth/refresh and logout touch the table; normal requests validate the access
+// token purely in memory (signature, expiry, TokenRevocationService).
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Value("${app.jwt.refresh-expiration-days:30}")
+    private long refreshExpirationDays;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               TokenRevocationService tokenRevocationService) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    // New token family (login)
+    @Transactional
+    public String issue(Account account) {
+        return create(account, UUID.randomUUID().toString());
+    }
+
+    // Exchange a refresh token for its successor. Presenting a token that was already rotated
+    // means it leaked: the family is revoked and the account's access tokens are cut off.
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+        Account account = current.getAccount();
+
+        if (current.isRevoked()) {
+            throw reused(current);
+        }
+        if (current.isExpired()) {
+            throw new IllegalArgumentException("Refresh token expired");
+        }
+        if (!Boolean.TRUE.equals(account.getIsActive())) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw new IllegalArgumentException("Account is disabled. Please contact administrator!");
+        }
+
+        // Conditional update: of two requests presenting the same token only one gets the row
+        if (refreshTokenRepository.markRotated(current.getId()) == 0) {
+            throw reused(current);
+        }
+        String next = create(account, current.getFamilyId());
+        return new Rotation(account, next);
+    }
+
+    private IllegalArgumentException reused(RefreshToken token) {
+        Account account = token.getAccount();
+        refreshTokenRepository.revokeFamily(token.getFamilyId());
+        tokenRevocationService.revokeUser(account.getId());
+        log.warn("Reused refresh token for user {}, family {} revoked", account.getUsername(), token.getFamilyId());
+        return new IllegalArgumentException("Invalid refresh token");
+    }
+
+    // Logout: the whole chain stops working, unknown tokens are ignored
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAll(Long accountId) {
+        int revoked = refreshTokenRepository.revokeAllByAccountId(accountId);
+        if (revoked > 0) {
+            log.info("Revoked {} refresh tokens of account {}", revoked, accountId);
+        }
+    }
+
+    // Cron: every day at 3 AM
+    @Scheduled(cron = "0 0 3 * * *")
+    @Transactional
+    public void cleanupExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Cleaned up {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String create(Account account, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(hash(raw), account, familyId,
+                LocalDateTime.now().plusDays(refreshExpirationDays)));
+        return raw;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Rotation(Account account, String refreshToken) {}
+}
@@ -0,0 +1,276 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.alice.cosplaysuggestion.event.GalleryChangedEvent;
+import com.alice.cosplaysuggestion.model.StorageDeletionTask;
+import com.alice.cosplaysuggestion.model.StorageDeletionTask.Kind;
+import com.alice.cosplaysuggestion.model.StorageDeletionTask.Status;
+import com.alice.cosplaysuggestion.model.StorageDeletionTask.Target;
+import com.alice.cosplaysuggestion.repository.GalleryItemRepository;
+import com.alice.cosplaysuggestion.repository.StorageDeletionTaskRepository;
+import com.alice.cosplaysuggestion.storage.BlobStore;
+import com.alice.cosplaysuggestion.storage.BlobStore.DeleteResult;
+import com.alice.cosplaysuggestion.storage.BlobStore.ListPage;
+
+import jakarta.annotation.PreDestroy;
+
+// Background worker that reclaims storage of deleted gallery folders and of deleted items' legacy files
+// Tasks are written in the same transaction as the folder/item delete, so the admin request
+// returns immediately and nothing is lost if the process stops mid-way. S3 prefixes are
+// listed page by page (ListObjectsV2) and removed with batched DeleteObjects calls;
+// the listing token is checkpointed after every batch. Local folders go through the same
+// BlobStore list/deleteAll path.
+@Service
+public class StorageDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageDeletionService.class);
+
+    // DeleteObjects accepts at most 1000 keys per call
+    private static final int BATCH_SIZE = 1000;
+    private static final int TASKS_PER_RUN = 20;
+    private static final int REPORT_RECENT = 20;
+    // gallery/_variants/<sha256>/ is shared by every item with that content
+    private static final Pattern SHARED_VARIANT_PREFIX =
+            Pattern.compile("^gallery/" + GalleryService.VARIANT_STORAGE + "/([0-9a-f]{64})/$");
+
+    @Value("${app.storage.deletion.max-attempts:5}")
+    private int maxAttempts;
+
+    private final StorageDeletionTaskRepository taskRepo;
+    private final GalleryItemRepository itemRepo;
+    private final BlobStore blobStore;
+
+    // Single worker thread; the flag keeps scheduled and event-triggered runs from overlapping
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "StorageDeletion"));
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public StorageDeletionService(StorageDeletionTaskRepository taskRepo, GalleryItemRepository itemRepo,
+                                  BlobStore blobStore) {
+        this.taskRepo = taskRepo;
+        this.itemRepo = itemRepo;
+        this.blobStore = blobStore;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // Queue removal of a gallery folder's files; call inside the delete transaction
+    public StorageDeletionTask enqueueGalleryFolder(String storageName) {
+        Target target = blobStore.isRemote() ? Target.S3 : Target.LOCAL;
+        return taskRepo.save(new StorageDeletionTask(target, "gallery/" + storageName + "/"));
+    }
+
+    // Queue removal of single objects (legacy per-folder item files); call inside the delete transaction
+    // so a rollback keeps the files and a commit is guaranteed to remove them
+    public void enqueueGalleryObjects(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Target target = blobStore.isRemote() ? Target.S3 : Target.LOCAL;
+        taskRepo.saveAll(keys.stream().map(key -> new StorageDeletionTask(target, Kind.OBJECT, key)).toList());
+    }
+
+    // True while a deletion of this folder is queued, running or failed; its files may still be removed,
+    // so the storage name cannot be given to a new folder yet (legacy local tasks have no gallery/ prefix)
+    public boolean isGalleryFolderPending(String storageName) {
+        return taskRepo.existsByPrefixInAndStatusNot(
+                List.of("gallery/" + storageName + "/", storageName + "/", storageName), Status.DONE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        int resumed = taskRepo.updateStatus(Status.RUNNING, Status.PENDING);
+        if (resumed > 0) {
+            log.info("Resuming {} interrupted storage deletion task(s)", resumed);
+        }
+        trigger();
+    }
+
+    // Start right after a folder/item delete commits instead of waiting for the next poll
+    @TransactionalEventListener
+    public void onGalleryChanged(GalleryChangedEvent event) {
+        if (event.type() == GalleryChangedEvent.Type.FOLDER_DELETED || event.type() == GalleryChangedEvent.Type.ITEMS_CHANGED) {
+            trigger();
+        }
+    }
+
+    // Safety net for retries and triggers lost to a restart
+    @Scheduled(fixedDelayString = "${app.storage.deletion.poll-ms:60000}")
+    public void poll() {
+        trigger();
+    }
+
+    private void trigger() {
+        if (running.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (RuntimeException e) {
+                running.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<StorageDeletionTask> tasks;
+            do {
+                tasks = taskRepo.findByStatusInAndAttemptsLessThanOrderByIdAsc(
+                        List.of(Status.PENDING, Status.FAILED), maxAttempts, Limit.of(TASKS_PER_RUN));
+                for (StorageDeletionTask task : tasks) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    process(task);
+                }
+            } while (tasks.size() == TASKS_PER_RUN);
+        } catch (RuntimeException e) {
+            log.error("Storage deletion worker stopped: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void process(StorageDeletionTask task) {
+        // A failed pass starts over from the beginning of the prefix
+        if (task.getStatus() == Status.FAILED) {
+            task.setContinuationToken(null);
+            task.setFailedObjects(0);
+        }
+        task.setStatus(Status.RUNNING);
+        task.setAttempts(task.getAttempts() + 1);
+        task.setLastError(null);
+        task = checkpoint(task);
+
+        if (isSharedVariantInUse(task)) {
+            // the same content was uploaded again after the delete was queued
+            task.setStatus(Status.DONE);
+            task.setCompletedAt(LocalDateTime.now());
+            task.setLastError("Skipped: content is referenced again");
+            checkpoint(task);
+            log.info("Storage deletion task {} ({}) skipped: variants are in use again", task.getId(), task.getPrefix());
+            return;
+        }
+
+        try {
+            task = task.getKind() == Kind.OBJECT ? deleteObject(task) : deletePrefix(task);
+            if (task.getFailedObjects() > 0) {
+                task.setStatus(Status.FAILED);
+            } else {
+                task.setStatus(Status.DONE);
+                task.setCompletedAt(LocalDateTime.now());
+            }
+        } catch (IOException e) {
+            log.warn("Storage deletion task {} ({}) failed: {}", task.getId(), task.getPrefix(), e.getMessage());
+            task.setStatus(Status.FAILED);
+            task.setLastError(truncate(e.getMessage()));
+        }
+        task = checkpoint(task);
+        log.info("Storage deletion task {} ({}) {}: {} deleted, {} failed",
+                task.getId(), task.getPrefix(), task.getStatus(), task.getDeletedObjects(), task.getFailedObjects());
+    }
+
+    private StorageDeletionTask deletePrefix(StorageDeletionTask task) throws IOException {
+        if ((task.getTarget() == Target.S3) != blobStore.isRemote()) {
+            throw new IOException(task.getTarget() + " storage is not configured on this instance");
+        }
+        String prefix = keyPrefix(task);
+        if (!prefix.startsWith("gallery/") || prefix.length() <= "gallery/".length() + 1) {
+            throw new IOException("Refusing to delete outside a gallery folder: " + task.getPrefix());
+        }
+
+        String token = task.getContinuationToken();
+        do {
+            ListPage page = blobStore.list(prefix, token, BATCH_SIZE);
+            if (!page.keys().isEmpty()) {
+                DeleteResult result = blobStore.deleteAll(page.keys());
+                task.setDeletedObjects(task.getDeletedObjects() + result.deleted());
+                task.setFailedObjects(task.getFailedObjects() + result.failed());
+                if (result.firstError() != null) {
+                    task.setLastError(truncate(result.firstError()));
+                }
+            }
+            token = page.nextToken();
+            task.setContinuationToken(token);
+            task = checkpoint(task);
+        } while (token != null && !Thread.currentThread().isInterrupted());
+
+        if (token == null && task.getFailedObjects() == 0) {
+            blobStore.removePrefix(prefix);
+        }
+        return task;
+    }
+
+    private StorageDeletionTask deleteObject(StorageDeletionTask task) throws IOException {
+        if ((task.getTarget() == Target.S3) != blobStore.isRemote()) {
+            throw new IOException(task.getTarget() + " storage is not configured on this instance");
+        }
+        String key = task.getPrefix();
+        if (!key.startsWith("gallery/") || key.endsWith("/")) {
+            throw new IOException("Refusing to delete outside a gallery folder: " + key);
+        }
+        blobStore.delete(key);
+        task.setDeletedObjects(1);
+        return task;
+    }
+
+    private boolean isSharedVariantInUse(StorageDeletionTask task) {
+        if (task.getKind() == Kind.OBJECT) {
+            return false;
+        }
+        var matcher = SHARED_VARIANT_PREFIX.matcher(keyPrefix(task));
+        return matcher.matches() && itemRepo.existsByContentHash(matcher.group(1));
+    }
+
+    // Local tasks created before the blob store held a path relative to the gallery root
+    private static String keyPrefix(StorageDeletionTask task) {
+        String prefix = task.getPrefix();
+        if (task.getTarget() == Target.LOCAL && !prefix.startsWith("gallery/")) {
+            prefix = "gallery/" + prefix;
+        }
+        return prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    private StorageDeletionTask checkpoint(StorageDeletionTask task) {
+        task.setUpdatedAt(LocalDateTime.now());
+        return taskRepo.save(task);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    // Progress report for the admin dashboard
+    public DeletionReport getReport() {
+        return new DeletionReport(
+                taskRepo.countByStatus(Status.PENDING),
+                taskRepo.countByStatus(Status.RUNNING),
+                taskRepo.countByStatus(Status.DONE),
+                taskRepo.countByStatus(Status.FAILED),
+                taskRepo.findByOrderByIdDesc(Limit.of(REPORT_RECENT)));
+    }
+
+    public record DeletionReport(long pending, long running, long done, long failed, List<StorageDeletionTask> recent) {}
+}
@@ -0,0 +1,107 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.alice.cosplaysuggestion.dto.TokenCutoff;
+import com.alice.cosplaysuggestion.model.DeniedToken;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.repository.DeniedTokenRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Revocation for stateless JWTs, checked in memory on every request
+// - per user "revoked before": rejects every token issued to them up to that millisecond; tokens
+//   issued afterwards (a fresh login) are accepted. Needed only until the last token it could
+//   reject has expired on its own.
+// - per token denylist (jti, logout): each entry is dropped once the token's own exp has passed
+// An entry lives at most one access-token lifetime (app.jwtExpirationMs), so the maps hold the
+// revocations and logouts of that window: small with minute-long tokens, larger with the 24h default.
+// Both are also written to the database (accounts.tokens_revoked_before, denied_tokens) and reloaded
+// at startup, so a restart does not bring banned, demoted or logged-out tokens back.
+// The maps are per instance: with several backend nodes a revocation reaches the others only
+// when they restart.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Value("${app.jwtExpirationMs:86400000}")
+    private long jwtExpirationMs;
+
+    // userId -> epoch millisecond; tokens issued at or before it are rejected
+    private final ConcurrentHashMap<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    // jti -> token exp (epoch second)
+    private final ConcurrentHashMap<String, Long> deniedTokens = new ConcurrentHashMap<>();
+
+    private final AccountRepository accountRepository;
+    private final DeniedTokenRepository deniedTokenRepository;
+
+    public TokenRevocationService(AccountRepository accountRepository, DeniedTokenRepository deniedTokenRepository) {
+        this.accountRepository = accountRepository;
+        this.deniedTokenRepository = deniedTokenRepository;
+    }
+
+    // Runs before the web server accepts requests, so no revoked token slips through after a restart
+    @PostConstruct
+    public void load() {
+        long nowMs = System.currentTimeMillis();
+        for (TokenCutoff cutoff : accountRepository.findTokenCutoffsAfter(nowMs - jwtExpirationMs)) {
+            revokedBefore.merge(cutoff.accountId(), cutoff.revokedBefore(), Math::max);
+        }
+        for (DeniedToken denied : deniedTokenRepository.findByExpiresAtGreaterThan(nowMs / 1000)) {
+            deniedTokens.put(denied.getJti(), denied.getExpiresAt());
+        }
+        log.info("Loaded {} user revocations and {} denied tokens", revokedBefore.size(), deniedTokens.size());
+    }
+
+    public void revokeUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis();
+        revokedBefore.merge(userId, cutoff, Math::max);
+        accountRepository.revokeTokensBefore(userId, cutoff);
+        log.info("Revoked outstanding tokens of user {}", userId);
+    }
+
+    // Compared on the millisecond iat_ms claim and inclusive, so a token minted in the same instant
+    // as the revocation (e.g. by a refresh racing a ban) is rejected too. Older tokens only carry the
+    // second-precision iat, which is truncated downwards and therefore also errs towards rejecting.
+    public boolean isRevoked(Long userId, long issuedAtEpochMilli) {
+        Long cutoff = revokedBefore.get(userId);
+        return cutoff != null && issuedAtEpochMilli <= cutoff;
+    }
+
+    public void denyToken(String jti, long expiresAtEpochSecond) {
+        if (jti != null && expiresAtEpochSecond > System.currentTimeMillis() / 1000) {
+            deniedTokens.put(jti, expiresAtEpochSecond);
+            deniedTokenRepository.save(new DeniedToken(jti, expiresAtEpochSecond));
+        }
+    }
+
+    public boolean isDenied(String jti) {
+        return jti != null && deniedTokens.containsKey(jti);
+    }
+
+    public int size() {
+        return revokedBefore.size() + deniedTokens.size();
+    }
+
+    // Drop entries whose tokens have all expired on their own
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long nowMs = System.currentTimeMillis();
+        long horizon = nowMs - jwtExpirationMs;
+        long now = nowMs / 1000;
+        revokedBefore.values().removeIf(cutoff -> cutoff < horizon);
+        deniedTokens.values().removeIf(exp -> exp <= now);
+        deniedTokenRepository.deleteExpired(now);
+    }
+}
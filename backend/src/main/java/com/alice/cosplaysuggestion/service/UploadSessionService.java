@@ -0,0 +1,291 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.alice.cosplaysuggestion.dto.CreateUploadRequest;
+import com.alice.cosplaysuggestion.model.GalleryFolder;
+import com.alice.cosplaysuggestion.model.GalleryItem;
+import com.alice.cosplaysuggestion.model.UploadSession;
+import com.alice.cosplaysuggestion.model.UploadSession.Kind;
+import com.alice.cosplaysuggestion.repository.GalleryFolderRepository;
+import com.alice.cosplaysuggestion.repository.GalleryItemRepository;
+import com.alice.cosplaysuggestion.repository.UploadSessionRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Resumable chunked uploads for gallery ZIPs and items (tus-style create / PATCH at offset / complete)
+// Request bodies are streamed straight from the socket into one spool file per session, so a
+// multi-GB upload is written to disk once (no multipart temp copy) and a dropped connection
+// only loses the chunk in flight: the client asks for the current offset and continues.
+// On completion the spool file is fed to the normal ZIP/item ingest pipeline; the session row
+// remembers the result until it expires, so a client retrying a lost response gets the same folder.
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    @Value("${app.upload.session.location:uploads/tmp/sessions}")
+    private String sessionLocation;
+
+    // Matches the 2 GB body limit configured in nginx
+    @Value("${app.upload.max-size:2147483648}")
+    private long maxUploadSize;
+
+    // Idle sessions expire this long after their last chunk
+    @Value("${app.upload.session.ttl-hours:24}")
+    private long sessionTtlHours;
+
+    private final UploadSessionRepository sessionRepo;
+    private final GalleryFolderRepository folderRepo;
+    private final GalleryItemRepository itemRepo;
+    private final GalleryService galleryService;
+    private final TransactionTemplate transaction;
+
+    private Path sessionRoot;
+
+    // One writer per session; a second concurrent PATCH is rejected instead of interleaving bytes.
+    // Entries only exist while a request holds them.
+    private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public UploadSessionService(UploadSessionRepository sessionRepo, GalleryFolderRepository folderRepo,
+                                GalleryItemRepository itemRepo, GalleryService galleryService,
+                                PlatformTransactionManager transactionManager) {
+        this.sessionRepo = sessionRepo;
+        this.folderRepo = folderRepo;
+        this.itemRepo = itemRepo;
+        this.galleryService = galleryService;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.sessionRoot = Paths.get(sessionLocation).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(sessionRoot);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload session directory", e);
+        }
+    }
+
+    public UploadSession create(CreateUploadRequest request, String username) {
+        Kind kind;
+        try {
+            kind = Kind.valueOf(request.getKind().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Kind must be ZIP or ITEM");
+        }
+        if (request.getTotalSize() > maxUploadSize) {
+            throw new IllegalArgumentException("Upload exceeds the maximum size of " + maxUploadSize + " bytes");
+        }
+        if (kind == Kind.ITEM && (request.getFolderId() == null || !folderRepo.existsById(request.getFolderId()))) {
+            throw new NoSuchElementException("Folder not found");
+        }
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), kind, request.getFileName(),
+                request.getTotalSize(), username, LocalDateTime.now().plusHours(sessionTtlHours));
+        session.setDisplayName(request.getDisplayName());
+        session.setFolderId(request.getFolderId());
+        session.setItemType(request.getType());
+        session = sessionRepo.save(session);
+        log.info("Upload session {} created by {}: {} ({} bytes)", session.getId(), username, session.getFileName(), session.getTotalSize());
+        return session;
+    }
+
+    public UploadSession get(String id) {
+        UploadSession session = sessionRepo.findById(id).orElseThrow(() -> new NoSuchElementException("Upload not found"));
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new NoSuchElementException("Upload expired");
+        }
+        return session;
+    }
+
+    // Bytes received so far; the spool file is authoritative (it survives a crash mid-chunk)
+    public long currentOffset(String id) throws IOException {
+        Path part = partPath(id);
+        if (Files.exists(part)) {
+            return Files.size(part);
+        }
+        // spool already ingested and removed
+        return sessionRepo.findById(id).filter(UploadSession::isIngested).map(UploadSession::getTotalSize).orElse(0L);
+    }
+
+    // Append one chunk; offset must equal the bytes already received
+    public UploadSession appendChunk(String id, long offset, InputStream body) throws IOException {
+        ReentrantLock lock = lock(id, "Another chunk is being written to this upload");
+        try {
+            UploadSession session = get(id);
+            if (session.isIngested()) {
+                throw new IllegalStateException("Upload already completed");
+            }
+            long current = currentOffset(id);
+            if (offset != current) {
+                throw new IllegalStateException("Upload-Offset " + offset + " does not match current offset " + current);
+            }
+
+            long remaining = session.getTotalSize() - current;
+            long received;
+            try (FileChannel out = FileChannel.open(partPath(id), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(body)) {
+                try {
+                    long position = current;
+                    while (position < session.getTotalSize()) {
+                        long n = out.transferFrom(in, position, session.getTotalSize() - position);
+                        if (n <= 0) {
+                            break;
+                        }
+                        position += n;
+                    }
+                    if (position - current == remaining && body.read() != -1) {
+                        throw new IllegalArgumentException("Chunk exceeds the declared upload length");
+                    }
+                } finally {
+                    // whatever reached the disk counts, even if the client disconnected
+                    received = out.size();
+                }
+            } finally {
+                session.setReceivedBytes(currentOffset(id));
+                session.setExpiresAt(LocalDateTime.now().plusHours(sessionTtlHours));
+                sessionRepo.save(session);
+            }
+            log.debug("Upload {}: {} of {} bytes", id, received, session.getTotalSize());
+            return session;
+        } finally {
+            unlock(id, lock);
+        }
+    }
+
+    // Ingest the finished upload; returns the created GalleryFolder (ZIP) or GalleryItem (ITEM)
+    public Object complete(String id) throws IOException {
+        ReentrantLock lock = lock(id, "Upload is still being written");
+        try {
+            UploadSession session = get(id);
+            if (session.isIngested()) {
+                return findResult(session);
+            }
+            long current = currentOffset(id);
+            if (current != session.getTotalSize()) {
+                throw new IllegalStateException("Upload incomplete: " + current + " of " + session.getTotalSize() + " bytes");
+            }
+
+            // ingest and completion marker commit together, so a crash in between cannot ingest twice
+            Object result;
+            try {
+                result = transaction.execute(status -> ingest(session));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.deleteIfExists(partPath(id));
+            log.info("Upload session {} completed ({} bytes)", id, current);
+            return result;
+        } finally {
+            unlock(id, lock);
+        }
+    }
+
+    private Object ingest(UploadSession session) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(partPath(session.getId())), 1 << 16)) {
+            Long resultId;
+            Object result;
+            if (session.getKind() == Kind.ZIP) {
+                GalleryFolder folder = galleryService.ingestZip(in, session.getFileName(), session.getDisplayName(), null);
+                resultId = folder.getId();
+                result = folder;
+            } else {
+                GalleryItem item = galleryService.ingestItem(session.getFolderId(), in, session.getFileName(), session.getItemType());
+                resultId = item.getId();
+                result = item;
+            }
+            session.setResultId(resultId);
+            session.setCompletedAt(LocalDateTime.now());
+            session.setExpiresAt(LocalDateTime.now().plusHours(sessionTtlHours));
+            sessionRepo.save(session);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object findResult(UploadSession session) {
+        Optional<?> result = session.getKind() == Kind.ZIP
+                ? folderRepo.findById(session.getResultId())
+                : itemRepo.findById(session.getResultId());
+        return result.orElseThrow(() -> new NoSuchElementException("Uploaded content no longer exists"));
+    }
+
+    public void abort(String id) throws IOException {
+        discard(sessionRepo.findById(id).orElseThrow(() -> new NoSuchElementException("Upload not found")));
+    }
+
+    // Remove abandoned uploads every hour
+    @Scheduled(cron = "0 15 * * * *")
+    public void cleanupExpiredSessions() {
+        List<UploadSession> expired = sessionRepo.findByExpiresAtBefore(LocalDateTime.now());
+        for (UploadSession session : expired) {
+            try {
+                discard(session);
+            } catch (IOException e) {
+                log.warn("Failed to remove expired upload {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Removed {} expired upload session(s)", expired.size());
+        }
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        Files.deleteIfExists(partPath(session.getId()));
+        sessionRepo.delete(session);
+    }
+
+    // Take the session's writer lock or fail fast; a lock already removed by its last holder is not
+    // used (another request may have created a fresh one), so at most one writer per id exists
+    private ReentrantLock lock(String id, String busyMessage) {
+        partPath(id); // rejects non-UUID ids before they get a map entry
+        while (true) {
+            ReentrantLock lock = locks.computeIfAbsent(id, k -> new ReentrantLock());
+            if (!lock.tryLock()) {
+                throw new IllegalStateException(busyMessage);
+            }
+            if (locks.get(id) == lock) {
+                return lock;
+            }
+            lock.unlock();
+        }
+    }
+
+    private void unlock(String id, ReentrantLock lock) {
+        locks.remove(id, lock);
+        lock.unlock();
+    }
+
+    private Path partPath(String id) {
+        // ids are server-generated UUIDs; reject anything else before touching the filesystem
+        return sessionRoot.resolve(UUID.fromString(id) + ".part");
+    }
+}
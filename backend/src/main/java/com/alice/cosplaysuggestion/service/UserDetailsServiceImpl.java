@@ -3,30 +3,53 @@ package com.alice.cosplaysuggestion.service;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.alice.cosplaysuggestion.model.Account;
+import com.alice.cosplaysuggestion.model.Role;
 import com.alice.cosplaysuggestion.repository.AccountRepository;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
     
     @Autowired
     AccountRepository accountRepository;
     
+    @Autowired
+    UserPrincipalCache principalCache;
+    
+    // Cached: repeated logins and legacy-token requests skip the username/email query
+    // (no transaction needed, the principal only copies basic columns)
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Account account = accountRepository.findByUsernameOrEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found: " + username));
-        
+        return principalCache.get(username, () -> {
+            Account account = accountRepository.findByUsernameOrEmail(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User Not Found: " + username));
+            return UserPrincipal.build(account);
+        });
+    }
+    
+    // Called by DaoAuthenticationProvider after a successful login when the stored hash
+    // needs re-encoding (legacy format or a different BCrypt cost)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Account account = accountRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found: " + user.getUsername()));
+        account.setPassword(newPassword);
+        accountRepository.save(account);
+        principalCache.evictAccount(account.getId());
+        logger.info("Password hash re-encoded for user {}", account.getUsername());
         return UserPrincipal.build(account);
     }
     
@@ -37,14 +60,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         private String username;
         private String email;
         private String password;
+        private Role role;
+        private boolean enabled;
         private List<GrantedAuthority> authorities;
         
         public UserPrincipal(Long id, String username, String email, String password, 
-                            List<GrantedAuthority> authorities) {
+                            Role role, boolean enabled, List<GrantedAuthority> authorities) {
             this.id = id;
             this.username = username;
             this.email = email;
             this.password = password;
+            this.role = role;
+            this.enabled = enabled;
             this.authorities = authorities;
         }
         
@@ -57,9 +84,20 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                     account.getUsername(),
                     account.getEmail(),
                     account.getPassword(),
+                    account.getRole(),
+                    Boolean.TRUE.equals(account.getIsActive()),
                     authorities);
         }
         
+        // Principal rebuilt from verified JWT claims (no DB round-trip)
+        // Email and password are not part of the token, so they are null here; deactivating an
+        // account revokes its tokens, so a token that passed the revocation check is enabled
+        public static UserPrincipal fromClaims(Long id, String username, Role role) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.name()));
+            return new UserPrincipal(id, username, null, null, role, true, authorities);
+        }
+        
         @Override
         public List<GrantedAuthority> getAuthorities() {
             return authorities;
@@ -73,6 +111,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             return email;
         }
         
+        public Role getRole() {
+            return role;
+        }
+        
         @Override
         public String getPassword() {
             return password;
@@ -100,7 +142,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         
         @Override
         public boolean isEnabled() {
-            return true;
+            return enabled;
         }
     }
 }
@@ -0,0 +1,109 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.alice.cosplaysuggestion.event.AccountChangedEvent;
+import com.alice.cosplaysuggestion.service.UserDetailsServiceImpl.UserPrincipal;
+
+// Size-bounded, TTL-expiring cache of DB-loaded principals (login and legacy-token lookups)
+// Each principal is stored under both its username and its email, so either login form hits.
+// AccountService publishes AccountChangedEvent on every credential/role/profile change; the
+// account's entries are dropped immediately and again after commit, and a load that raced with
+// an eviction is not cached (same generation check as GalleryListingCache).
+@Service
+public class UserPrincipalCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPrincipalCache.class);
+
+    @Value("${app.auth.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.auth.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // access-ordered: the eldest entry is the least recently used
+    private final LinkedHashMap<String, CachedPrincipal> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserPrincipal get(String usernameOrEmail, Supplier<UserPrincipal> loader) {
+        String key = keyOf(usernameOrEmail);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            CachedPrincipal cached = entries.get(key);
+            if (cached != null && cached.expiresAt() > now) {
+                hits.incrementAndGet();
+                return cached.principal();
+            }
+            if (cached != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+
+        long gen = generation.get();
+        UserPrincipal loaded = loader.get();
+        CachedPrincipal entry = new CachedPrincipal(loaded, now + ttlSeconds * 1000);
+        synchronized (this) {
+            if (generation.get() == gen) {
+                entries.put(keyOf(loaded.getUsername()), entry);
+                if (loaded.getEmail() != null) {
+                    entries.put(keyOf(loaded.getEmail()), entry);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void evictAccount(Long accountId) {
+        if (accountId == null) {
+            return;
+        }
+        synchronized (this) {
+            generation.incrementAndGet();
+            if (entries.values().removeIf(e -> accountId.equals(e.principal().getId()))) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // Second eviction after commit: a lookup between the change and the commit may have re-cached old data
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        evictAccount(event.accountId());
+        log.debug("Principal cache evicted account {} ({})", event.accountId(), event.type());
+    }
+
+    public synchronized CacheStats getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        double ratio = h + m == 0 ? 0 : (double) h / (h + m);
+        return new CacheStats(entries.size(), maxEntries, h, m, ratio, evictions.get());
+    }
+
+    private static String keyOf(String usernameOrEmail) {
+        return usernameOrEmail == null ? "" : usernameOrEmail.toLowerCase(Locale.ROOT);
+    }
+
+    private record CachedPrincipal(UserPrincipal principal, long expiresAt) {}
+
+    public record CacheStats(int entries, int maxEntries, long hits, long misses, double hitRatio, long evictions) {}
+}
@@ -0,0 +1,111 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+
+// Online migration of verified emails from the old "xxx_V" suffix to the email_verified column
+// Runs in the background in small keyset batches (each its own short transaction) with a pause
+// in between, so the accounts table stays usable. Until a pass finishes, isComplete() is false and
+// AccountService also looks up the "_V" form of an email.
+// A row whose plain address already belongs to another account cannot be renamed; it keeps the
+// "_V" email, gets email_verified set (so later passes skip it) and is listed in the stats for an
+// admin to resolve. State lives in the table, so after a restart the first pass finds nothing left
+// and completes with a single query.
+@Service
+public class VerifiedEmailMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(VerifiedEmailMigration.class);
+
+    private static final int REPORT_CONFLICTS = 100;
+
+    @Value("${app.account.email-migration.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.account.email-migration.pause-ms:200}")
+    private long pauseMs;
+
+    private final AccountRepository accountRepository;
+
+    private volatile boolean complete;
+    private volatile boolean running;
+    private final AtomicLong migrated = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    public VerifiedEmailMigration(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // Shortly after startup, then retried hourly until a pass succeeds
+    @Scheduled(initialDelayString = "${app.account.email-migration.initial-delay-ms:30000}",
+               fixedDelayString = "${app.account.email-migration.retry-ms:3600000}")
+    public void migrate() {
+        if (complete || running) {
+            return;
+        }
+        running = true;
+        long start = System.currentTimeMillis();
+        try {
+            long passMigrated = 0;
+            long passConflicts = 0;
+            Long afterId = 0L;
+            while (true) {
+                List<Long> ids = accountRepository.findLegacyVerifiedIdsAfter(afterId, Limit.of(batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                try {
+                    passMigrated += accountRepository.migrateLegacyVerifiedEmails(ids);
+                } catch (DataIntegrityViolationException e) {
+                    // plain and "_V" forms of the same address both exist: migrate row by row
+                    for (Long id : ids) {
+                        try {
+                            passMigrated += accountRepository.migrateLegacyVerifiedEmails(List.of(id));
+                        } catch (DataIntegrityViolationException conflict) {
+                            passConflicts += accountRepository.markLegacyVerifiedConflict(id);
+                            log.warn("Account {} keeps its legacy verified email: the plain address is taken", id);
+                        }
+                    }
+                }
+                afterId = ids.get(ids.size() - 1);
+                if (ids.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+            migrated.addAndGet(passMigrated);
+            conflicts.addAndGet(passConflicts);
+            complete = true;
+            log.info("Verified email migration pass: {} migrated, {} conflicts, {} ms",
+                    passMigrated, passConflicts, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Verified email migration failed, retrying later: {}", e.getMessage());
+        } finally {
+            running = false;
+        }
+    }
+
+    public MigrationStats getStats() {
+        return new MigrationStats(complete, running, migrated.get(), conflicts.get(),
+                accountRepository.findLegacyVerifiedConflictIds(Limit.of(REPORT_CONFLICTS)));
+    }
+
+    // conflicts counts this process's passes; conflictAccountIds lists every unresolved one (first 100)
+    public record MigrationStats(boolean complete, boolean running, long migrated, long conflicts,
+                                 List<Long> conflictAccountIds) {}
+}
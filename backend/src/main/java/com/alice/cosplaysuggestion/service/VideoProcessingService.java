@@ -0,0 +1,375 @@
+package com.alice.cosplaysuggestion.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.alice.cosplaysuggestion.event.GalleryChangedEvent;
+import com.alice.cosplaysuggestion.model.GalleryItem;
+import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+import com.alice.cosplaysuggestion.model.GalleryItem.VideoStatus;
+import com.alice.cosplaysuggestion.repository.GalleryItemRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Background video processing with a local ffmpeg binary
+// For each VIDEO item in PENDING state:
+// - poster.jpg: a frame near the start, used as <video poster>
+// - stream.mp4: MP4 with the moov atom first (+faststart) so playback starts before the
+//   download finishes; mp4/mov sources are remuxed without re-encoding, others (AVI...) transcoded to H.264/AAC
+// - index.m3u8 + seg_NNN.ts: optional HLS rendition (app.video.hls.enabled)
+// Variants are stored under gallery/_variants/{content hash}/ and shared by items with the same file.
+// The queue is the video_status column, so jobs survive restarts and several instances can share it.
+// A claim is a lease (video_claimed_at) renewed between steps; only claims older than the lease
+// are re-queued, so a restarting instance does not steal jobs another instance is still running.
+@Service
+public class VideoProcessingService {
+
+    private static final Logger log = LoggerFactory.getLogger(VideoProcessingService.class);
+
+    private static final int POLL_BATCH = 20;
+    private static final int LOG_TAIL_CHARS = 500;
+
+    @Value("${app.video.processing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.video.ffmpeg.path:ffmpeg}")
+    private String ffmpegPath;
+
+    // ffmpeg already uses several cores per job
+    @Value("${app.video.workers:1}")
+    private int workers;
+
+    @Value("${app.video.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${app.video.hls.enabled:false}")
+    private boolean hlsEnabled;
+
+    @Value("${app.video.hls.segment-seconds:4}")
+    private int hlsSegmentSeconds;
+
+    // Must exceed the longest single step (one ffmpeg run or the variant upload)
+    @Value("${app.video.lease-minutes:45}")
+    private long leaseMinutes;
+
+    private final GalleryItemRepository itemRepo;
+    private final GalleryService galleryService;
+
+    private ExecutorService executor;
+    private Semaphore slots;
+    private volatile boolean available;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    public VideoProcessingService(GalleryItemRepository itemRepo, GalleryService galleryService) {
+        this.itemRepo = itemRepo;
+        this.galleryService = galleryService;
+    }
+
+    @PostConstruct
+    public void init() {
+        int n = Math.max(1, workers);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "VideoJob-" + seq.incrementAndGet());
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        this.slots = new Semaphore(n);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        this.available = enabled && probeFfmpeg();
+        if (!available) {
+            log.warn("Video processing disabled (app.video.processing.enabled={}, ffmpeg '{}' {})",
+                    enabled, ffmpegPath, enabled ? "not found" : "not checked");
+            return;
+        }
+        requeueExpired();
+        dispatch();
+    }
+
+    // New uploads are picked up right after their transaction commits
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGalleryChanged(GalleryChangedEvent event) {
+        if (event.type() == GalleryChangedEvent.Type.ITEMS_CHANGED || event.type() == GalleryChangedEvent.Type.FOLDER_CREATED) {
+            dispatch();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.video.poll-ms:60000}")
+    public void poll() {
+        if (available) {
+            requeueExpired();
+        }
+        dispatch();
+    }
+
+    private void requeueExpired() {
+        int resumed = itemRepo.releaseExpiredVideoClaims(VideoStatus.PROCESSING, VideoStatus.PENDING,
+                LocalDateTime.now().minusMinutes(leaseMinutes));
+        if (resumed > 0) {
+            log.info("Re-queued {} video job(s) with an expired claim", resumed);
+        }
+    }
+
+    // Queue every VIDEO item that was never processed (uploads from before this feature)
+    public int queueUnprocessed() {
+        int queued = itemRepo.queueUnprocessed(ItemType.VIDEO, VideoStatus.PENDING);
+        dispatch();
+        return queued;
+    }
+
+    // Claim pending items while worker slots are free
+    private synchronized void dispatch() {
+        if (!available || slots.availablePermits() == 0) {
+            return;
+        }
+        List<Long> ids = itemRepo.findIdsByVideoStatus(VideoStatus.PENDING, PageRequest.of(0, POLL_BATCH));
+        for (Long id : ids) {
+            if (!slots.tryAcquire()) {
+                return;
+            }
+            if (itemRepo.claimVideo(id, VideoStatus.PENDING, VideoStatus.PROCESSING, LocalDateTime.now()) == 0) {
+                slots.release();
+                continue;
+            }
+            executor.execute(() -> {
+                active.incrementAndGet();
+                try {
+                    process(id);
+                } finally {
+                    active.decrementAndGet();
+                    slots.release();
+                }
+                dispatch();
+            });
+        }
+    }
+
+    private void process(Long itemId) {
+        Optional<GalleryItem> found = itemRepo.findWithFolderById(itemId);
+        if (found.isEmpty()) {
+            return;
+        }
+        GalleryItem item = found.get();
+        String variantDir = galleryService.videoVariantDir(item);
+
+        // Same content already processed for another item: reuse its variants
+        if (item.getContentHash() != null) {
+            Optional<GalleryItem> done = itemRepo.findFirstByContentHashAndVideoStatus(item.getContentHash(), VideoStatus.READY);
+            if (done.isPresent()) {
+                GalleryItem src = done.get();
+                itemRepo.updateVideoVariants(itemId, VideoStatus.READY, src.getPosterUrl(), src.getStreamUrl(), src.getHlsUrl());
+                reused.incrementAndGet();
+                return;
+            }
+        }
+
+        long start = System.nanoTime();
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("video-" + itemId + "-");
+            Path source = workDir.resolve("source" + extensionOf(item.getFileName()));
+            try (InputStream in = galleryService.openItemContent(item)) {
+                Files.copy(in, source);
+            }
+
+            renewClaim(itemId);
+            Path poster = extractPoster(workDir, source);
+            renewClaim(itemId);
+            Path stream = faststart(workDir, source, item.getFileName());
+            renewClaim(itemId);
+            List<Path> hls = hlsEnabled ? segment(workDir, stream) : List.of();
+            renewClaim(itemId);
+
+            String posterUrl = poster != null ? galleryService.storeVariant(variantDir, poster) : null;
+            String streamUrl = galleryService.storeVariant(variantDir, stream);
+            String hlsUrl = null;
+            // segments first so the playlist never points at missing files
+            for (Path file : hls) {
+                String url = galleryService.storeVariant(variantDir, file);
+                if (file.getFileName().toString().endsWith(".m3u8")) {
+                    hlsUrl = url;
+                }
+            }
+
+            if (itemRepo.updateVideoVariants(itemId, VideoStatus.READY, posterUrl, streamUrl, hlsUrl) == 0) {
+                // the item was deleted mid-job, after its variants were checked for cleanup
+                galleryService.discardVariantDir(variantDir);
+                log.info("Video item {} was deleted while processing; discarding its variants", itemId);
+                return;
+            }
+            completed.incrementAndGet();
+            log.info("Processed video item {} ({}) in {} ms", itemId, item.getFileName(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Video processing failed for item {} ({}): {}", itemId, item.getFileName(), e.getMessage());
+            itemRepo.updateVideoVariants(itemId, VideoStatus.FAILED, null, null, null);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private void renewClaim(Long itemId) {
+        itemRepo.renewVideoClaim(itemId, VideoStatus.PROCESSING, LocalDateTime.now());
+    }
+
+    // A frame one second in; very short clips fall back to the first frame
+    private Path extractPoster(Path workDir, Path source) {
+        Path poster = workDir.resolve("poster.jpg");
+        for (String seek : new String[] { "1", "0" }) {
+            try {
+                ffmpeg(workDir, List.of("-ss", seek, "-i", source.toString(), "-frames:v", "1",
+                        "-vf", "scale='min(1280,iw)':-2", "-q:v", "3", poster.toString()));
+                if (Files.exists(poster) && Files.size(poster) > 0) {
+                    return poster;
+                }
+            } catch (IOException e) {
+                log.debug("Poster extraction at {}s failed: {}", seek, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    // Remux when the codecs already fit MP4, otherwise transcode to H.264/AAC
+    private Path faststart(Path workDir, Path source, String fileName) throws IOException {
+        Path out = workDir.resolve("stream.mp4");
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".mp4") || lower.endsWith(".m4v") || lower.endsWith(".mov")) {
+            try {
+                ffmpeg(workDir, List.of("-i", source.toString(), "-map", "0:v:0", "-map", "0:a?",
+                        "-c", "copy", "-movflags", "+faststart", out.toString()));
+                return out;
+            } catch (IOException e) {
+                log.debug("Remux of {} failed, transcoding: {}", fileName, e.getMessage());
+            }
+        }
+        ffmpeg(workDir, List.of("-i", source.toString(), "-map", "0:v:0", "-map", "0:a?",
+                "-c:v", "libx264", "-preset", "veryfast", "-crf", "23", "-pix_fmt", "yuv420p",
+                "-c:a", "aac", "-b:a", "128k", "-movflags", "+faststart", out.toString()));
+        return out;
+    }
+
+    // VOD HLS from the H.264 stream without re-encoding; segment URIs in the playlist are relative
+    private List<Path> segment(Path workDir, Path stream) throws IOException {
+        Path playlist = workDir.resolve("index.m3u8");
+        ffmpeg(workDir, List.of("-i", stream.toString(), "-c", "copy", "-f", "hls",
+                "-hls_time", String.valueOf(hlsSegmentSeconds), "-hls_playlist_type", "vod",
+                "-hls_segment_filename", workDir.resolve("seg_%03d.ts").toString(), playlist.toString()));
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(workDir)) {
+            list.filter(p -> p.getFileName().toString().startsWith("seg_")).sorted().forEach(files::add);
+        }
+        files.add(playlist);
+        return files;
+    }
+
+    private void ffmpeg(Path workDir, List<String> args) throws IOException {
+        List<String> command = new ArrayList<>(args.size() + 6);
+        command.addAll(List.of(ffmpegPath, "-hide_banner", "-loglevel", "error", "-nostdin", "-y"));
+        command.addAll(args);
+
+        Path logFile = workDir.resolve("ffmpeg.log");
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+        try {
+            if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new IOException("ffmpeg timed out after " + timeoutMinutes + " minutes");
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("ffmpeg interrupted", e);
+        }
+        if (process.exitValue() != 0) {
+            String output = Files.exists(logFile) ? Files.readString(logFile) : "";
+            if (output.length() > LOG_TAIL_CHARS) {
+                output = output.substring(output.length() - LOG_TAIL_CHARS);
+            }
+            throw new IOException("ffmpeg exited with " + process.exitValue() + ": " + output.trim());
+        }
+    }
+
+    private boolean probeFfmpeg() {
+        try {
+            Process process = new ProcessBuilder(ffmpegPath, "-hide_banner", "-version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot == -1 ? "" : name.substring(dot).toLowerCase(Locale.ROOT);
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to clean video work dir {}: {}", dir, e.getMessage());
+        }
+    }
+
+    public VideoQueueStats getStats() {
+        return new VideoQueueStats(available,
+                itemRepo.countByVideoStatus(VideoStatus.PENDING),
+                active.get(),
+                itemRepo.countByVideoStatus(VideoStatus.READY),
+                itemRepo.countByVideoStatus(VideoStatus.FAILED),
+                completed.get(), failed.get(), reused.get());
+    }
+
+    public record VideoQueueStats(boolean ffmpegAvailable, long pending, int processing, long ready, long failed,
+                                  long completedSinceStart, long failedSinceStart, long reusedSinceStart) {}
+}
@@ -0,0 +1,65 @@
+package com.alice.cosplaysuggestion.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+// Object storage for media files, addressed by S3-style keys:
+// "gallery/{storage}/{sub}/{name}", "avatars/{name}", ...
+// Implementations: LocalBlobStore (disk), S3BlobStore, InMemoryBlobStore (tests) and
+// CachingBlobStore (local read-through LRU tier in front of a remote store).
+// The bean is chosen by app.storage.type, see StorageConfig.
+public interface BlobStore {
+
+    // Store a file; cacheControl may be null
+    void put(String key, Path file, String cacheControl) throws IOException;
+
+    // Store a stream; length < 0 means unknown (the stream is spooled to a temp file first)
+    void put(String key, InputStream in, long length) throws IOException;
+
+    // Open an object for reading; NoSuchFileException when it does not exist
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    // Remove one object; missing objects are ignored
+    void delete(String key) throws IOException;
+
+    // Remove many objects in as few calls as possible
+    DeleteResult deleteAll(Collection<String> keys) throws IOException;
+
+    // One page of keys under prefix in key order; pass the returned token to continue
+    ListPage list(String prefix, String token, int maxKeys) throws IOException;
+
+    // Housekeeping after a prefix has been emptied (local stores remove leftover directories)
+    default void removePrefix(String prefix) throws IOException {}
+
+    // A readable local file with the object's bytes, or null if the object only exists remotely.
+    // Local stores return the file itself, the caching tier downloads on first use.
+    Path localFile(String key) throws IOException;
+
+    // URL the browser can fetch directly (public S3 object URL), or null when not addressable
+    default String publicUrl(String key) {
+        return null;
+    }
+
+    // True when objects live outside this machine
+    boolean isRemote();
+
+    String describe();
+
+    static String contentTypeOf(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    // token is null on the last page
+    record ListPage(List<String> keys, String nextToken) {}
+
+    // firstError describes one failed key (null when everything was deleted)
+    record DeleteResult(int deleted, int failed, String firstError) {}
+}
@@ -0,0 +1,308 @@
+package com.alice.cosplaysuggestion.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Local SSD read-through tier in front of a remote store (S3)
+// The first read of a key downloads it into the cache directory; later reads are served from
+// disk. Entries are evicted in least-recently-used order once the cache exceeds maxBytes.
+// Concurrent misses on the same key share one download. Writes and deletes go to the origin
+// and drop the cached copy; a download that was running when its key changed is discarded and
+// fetched again, so it cannot put the old bytes back into the cache.
+public class CachingBlobStore implements BlobStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingBlobStore.class);
+
+    private final BlobStore origin;
+    private final Path cacheRoot;
+    private final long maxBytes;
+
+    // key -> cached size, access-ordered
+    private final LinkedHashMap<String, Long> lru = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    private static final int MAX_FETCH_ATTEMPTS = 3;
+
+    private final ConcurrentHashMap<String, Fetch> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingBlobStore(BlobStore origin, Path cacheRoot, long maxBytes) throws IOException {
+        this.origin = origin;
+        this.cacheRoot = cacheRoot.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.cacheRoot);
+        loadExistingEntries();
+        log.info("Blob cache at {} ({} entries, {} bytes, cap {} bytes)", this.cacheRoot, lru.size(), cachedBytes, maxBytes);
+    }
+
+    @Override
+    public Path localFile(String key) throws IOException {
+        Path file = cachePath(key);
+        synchronized (this) {
+            if (lru.get(key) != null && Files.isReadable(file)) {
+                hits.incrementAndGet();
+                return file;
+            }
+        }
+        misses.incrementAndGet();
+
+        Fetch mine = new Fetch();
+        Fetch existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing.result);
+        }
+        try {
+            mine.result.complete(fetch(key, file, mine));
+        } catch (IOException | RuntimeException e) {
+            mine.result.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return await(mine.result);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Path file = localFile(key);
+        if (file == null) {
+            throw new NoSuchFileException(key);
+        }
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        synchronized (this) {
+            if (lru.containsKey(key)) {
+                return true;
+            }
+        }
+        return origin.exists(key);
+    }
+
+    @Override
+    public void put(String key, Path file, String cacheControl) throws IOException {
+        origin.put(key, file, cacheControl);
+        invalidate(key);
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        origin.put(key, in, length);
+        invalidate(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        origin.delete(key);
+        invalidate(key);
+    }
+
+    @Override
+    public DeleteResult deleteAll(Collection<String> keys) throws IOException {
+        DeleteResult result = origin.deleteAll(keys);
+        keys.forEach(this::invalidate);
+        return result;
+    }
+
+    @Override
+    public ListPage list(String prefix, String token, int maxKeys) throws IOException {
+        return origin.list(prefix, token, maxKeys);
+    }
+
+    @Override
+    public void removePrefix(String prefix) throws IOException {
+        origin.removePrefix(prefix);
+        List<String> cached;
+        synchronized (this) {
+            cached = lru.keySet().stream().filter(k -> k.startsWith(prefix)).toList();
+            inFlight.forEach((key, fetch) -> {
+                if (key.startsWith(prefix)) {
+                    fetch.generation++;
+                }
+            });
+        }
+        cached.forEach(this::invalidate);
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        return origin.publicUrl(key);
+    }
+
+    @Override
+    public boolean isRemote() {
+        return origin.isRemote();
+    }
+
+    @Override
+    public String describe() {
+        return origin.describe() + " + local cache " + cacheRoot + " (cap " + maxBytes + " bytes)";
+    }
+
+    public CacheStats getStats() {
+        synchronized (this) {
+            return new CacheStats(lru.size(), cachedBytes, maxBytes, hits.get(), misses.get(), evictions.get());
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (origin instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Path fetch(String key, Path target, Fetch fetch) throws IOException {
+        Files.createDirectories(target.getParent());
+        for (int attempt = 1; attempt <= MAX_FETCH_ATTEMPTS; attempt++) {
+            long generation;
+            synchronized (this) {
+                generation = fetch.generation;
+            }
+            Path tmp = Files.createTempFile(target.getParent(), ".fetch", ".tmp");
+            try {
+                try (InputStream in = origin.open(key)) {
+                    Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                } catch (NoSuchFileException e) {
+                    return null;
+                }
+                long size = Files.size(tmp);
+                synchronized (this) {
+                    // the key was written or deleted while downloading: these bytes may be the old ones
+                    if (fetch.generation != generation) {
+                        continue;
+                    }
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    register(key, size);
+                }
+                return target;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        throw new IOException("Blob " + key + " kept changing while being cached");
+    }
+
+    private synchronized void register(String key, long size) {
+        Long previous = lru.put(key, size);
+        cachedBytes += size - (previous != null ? previous : 0);
+        evictIfNeeded(key);
+    }
+
+    // Deleting a file that is still being streamed is safe: open handles keep reading it
+    private synchronized void evictIfNeeded(String keep) {
+        Iterator<Map.Entry<String, Long>> it = lru.entrySet().iterator();
+        while (cachedBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            it.remove();
+            cachedBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(cachePath(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to evict cached blob {}: {}", eldest.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void invalidate(String key) {
+        synchronized (this) {
+            Fetch fetch = inFlight.get(key);
+            if (fetch != null) {
+                fetch.generation++;
+            }
+            Long size = lru.remove(key);
+            if (size == null) {
+                return;
+            }
+            cachedBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(cachePath(key));
+        } catch (IOException e) {
+            log.warn("Failed to drop cached blob {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Path cachePath(String key) throws NoSuchFileException {
+        Path file = cacheRoot.resolve(key).normalize();
+        if (!file.startsWith(cacheRoot) || file.equals(cacheRoot)) {
+            throw new NoSuchFileException(key);
+        }
+        return file;
+    }
+
+    // Rebuild the LRU from disk, oldest access first
+    private void loadExistingEntries() throws IOException {
+        List<Map.Entry<String, BasicFileAttributes>> entries = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(cacheRoot)) {
+            for (Path p : walk.filter(Files::isRegularFile).toList()) {
+                String name = p.getFileName().toString();
+                if (name.startsWith(".fetch")) {
+                    Files.deleteIfExists(p);
+                    continue;
+                }
+                entries.add(Map.entry(cacheRoot.relativize(p).toString().replace('\\', '/'),
+                        Files.readAttributes(p, BasicFileAttributes.class)));
+            }
+        }
+        entries.sort(Comparator.comparing(e -> e.getValue().lastAccessTime()));
+        synchronized (this) {
+            for (Map.Entry<String, BasicFileAttributes> e : entries) {
+                lru.put(e.getKey(), e.getValue().size());
+                cachedBytes += e.getValue().size();
+            }
+            evictIfNeeded(null);
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // A running download; generation is bumped (under the store's lock) when its key changes
+    private static final class Fetch {
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+        long generation;
+    }
+
+    public record CacheStats(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {}
+}
@@ -0,0 +1,85 @@
+package com.alice.cosplaysuggestion.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Heap-backed store for tests and throwaway environments (app.storage.type=memory).
+// Objects are not addressable as local files, so media endpoints answer 404 for them.
+public class InMemoryBlobStore implements BlobStore {
+
+    private final ConcurrentSkipListMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void put(String key, Path file, String cacheControl) throws IOException {
+        objects.put(key, Files.readAllBytes(file));
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        objects.put(key, in.readAllBytes());
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        byte[] data = objects.get(key);
+        if (data == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return objects.containsKey(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        objects.remove(key);
+    }
+
+    @Override
+    public DeleteResult deleteAll(Collection<String> keys) {
+        keys.forEach(objects::remove);
+        return new DeleteResult(keys.size(), 0, null);
+    }
+
+    @Override
+    public ListPage list(String prefix, String token, int maxKeys) {
+        List<String> keys = new ArrayList<>();
+        String from = token != null && token.compareTo(prefix) > 0 ? token : prefix;
+        for (String key : objects.tailMap(from, token == null).keySet()) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            if (keys.size() == maxKeys) {
+                return new ListPage(keys, keys.get(keys.size() - 1));
+            }
+            keys.add(key);
+        }
+        return new ListPage(keys, null);
+    }
+
+    @Override
+    public Path localFile(String key) {
+        return null;
+    }
+
+    @Override
+    public boolean isRemote() {
+        return false;
+    }
+
+    @Override
+    public String describe() {
+        return "In-memory storage (" + objects.size() + " objects)";
+    }
+}
@@ -0,0 +1,187 @@
+package com.alice.cosplaysuggestion.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Disk storage. The first key segment selects a mount ("gallery" -> app.gallery.storage.location,
+// "avatars" -> app.avatar.storage.location); the rest is the path below that directory.
+public class LocalBlobStore implements BlobStore {
+
+    private final Map<String, Path> mounts = new LinkedHashMap<>();
+
+    public LocalBlobStore(Map<String, Path> mounts) throws IOException {
+        for (Map.Entry<String, Path> mount : mounts.entrySet()) {
+            Path root = mount.getValue().toAbsolutePath().normalize();
+            Files.createDirectories(root);
+            this.mounts.put(mount.getKey(), root);
+        }
+    }
+
+    @Override
+    public void put(String key, Path file, String cacheControl) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        // copy next to the target and rename, so readers never see a half-written file
+        Path tmp = Files.createTempFile(target.getParent(), ".put", ".tmp");
+        try {
+            Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".put", ".tmp");
+        try {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public DeleteResult deleteAll(Collection<String> keys) {
+        int deleted = 0;
+        int failed = 0;
+        String firstError = null;
+        for (String key : keys) {
+            try {
+                delete(key);
+                deleted++;
+            } catch (IOException | IllegalArgumentException e) {
+                failed++;
+                if (firstError == null) {
+                    firstError = key + ": " + e.getMessage();
+                }
+            }
+        }
+        return new DeleteResult(deleted, failed, firstError);
+    }
+
+    // Keys are walked in sorted order; the token is the last key returned (S3 "start-after")
+    @Override
+    public ListPage list(String prefix, String token, int maxKeys) throws IOException {
+        Path dir = directoryOf(prefix);
+        if (!Files.isDirectory(dir)) {
+            return new ListPage(List.of(), null);
+        }
+        Path mountRoot = mounts.get(mountOf(prefix));
+        String mountName = mountOf(prefix);
+        List<String> keys;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            keys = walk.filter(Files::isRegularFile)
+                       .map(p -> mountName + "/" + mountRoot.relativize(p).toString().replace('\\', '/'))
+                       .filter(k -> k.startsWith(prefix))
+                       .filter(k -> token == null || k.compareTo(token) > 0)
+                       .sorted()
+                       .limit(maxKeys + 1L)
+                       .toList();
+        }
+        if (keys.size() > maxKeys) {
+            List<String> page = new ArrayList<>(keys.subList(0, maxKeys));
+            return new ListPage(page, page.get(page.size() - 1));
+        }
+        return new ListPage(keys, null);
+    }
+
+    @Override
+    public void removePrefix(String prefix) throws IOException {
+        Path dir = directoryOf(prefix);
+        if (dir.equals(mounts.get(mountOf(prefix))) || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(dir)) {
+            // children before their directories; only directories left empty are removed
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                if (Files.isDirectory(p)) {
+                    try (Stream<Path> children = Files.list(p)) {
+                        if (children.findAny().isEmpty()) {
+                            Files.deleteIfExists(p);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Path localFile(String key) throws IOException {
+        Path file = resolve(key);
+        return Files.isReadable(file) ? file : null;
+    }
+
+    @Override
+    public boolean isRemote() {
+        return false;
+    }
+
+    @Override
+    public String describe() {
+        return "Local file storage " + mounts;
+    }
+
+    // Absolute path of a key; rejects unknown mounts and anything escaping the mount root
+    public Path resolve(String key) throws NoSuchFileException {
+        String mount = mountOf(key);
+        Path root = mounts.get(mount);
+        if (root == null || key.length() <= mount.length() + 1) {
+            throw new NoSuchFileException(key);
+        }
+        Path file = root.resolve(key.substring(mount.length() + 1)).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new NoSuchFileException(key);
+        }
+        return file;
+    }
+
+    private Path directoryOf(String prefix) throws NoSuchFileException {
+        String mount = mountOf(prefix);
+        Path root = mounts.get(mount);
+        if (root == null) {
+            throw new NoSuchFileException(prefix);
+        }
+        String rest = prefix.length() > mount.length() + 1 ? prefix.substring(mount.length() + 1) : "";
+        int slash = rest.lastIndexOf('/');
+        Path dir = root.resolve(slash == -1 ? "" : rest.substring(0, slash)).normalize();
+        if (!dir.startsWith(root)) {
+            throw new NoSuchFileException(prefix);
+        }
+        return dir;
+    }
+
+    private static String mountOf(String key) {
+        int slash = key.indexOf('/');
+        return slash == -1 ? key : key.substring(0, slash);
+    }
+}
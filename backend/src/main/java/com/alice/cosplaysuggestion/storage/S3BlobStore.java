@@ -0,0 +1,203 @@
+package com.alice.cosplaysuggestion.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetUrlRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+// AWS S3 storage; SDK failures surface as IOException so callers handle one exception type
+public class S3BlobStore implements BlobStore, AutoCloseable {
+
+    // DeleteObjects accepts at most 1000 keys per call
+    private static final int DELETE_BATCH = 1000;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String region;
+
+    public S3BlobStore(S3Client s3Client, String bucket, String region) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.region = region;
+    }
+
+    @Override
+    public void put(String key, Path file, String cacheControl) throws IOException {
+        PutObjectRequest.Builder put = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(BlobStore.contentTypeOf(key))
+                .contentLength(Files.size(file));
+        if (cacheControl != null) {
+            put.cacheControl(cacheControl);
+        }
+        try {
+            s3Client.putObject(put.build(), RequestBody.fromFile(file));
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload " + key + " to S3", e);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length) throws IOException {
+        if (length < 0) {
+            // S3 needs the length up front; spool instead of buffering in memory
+            Path tmp = Files.createTempFile(Paths.get(System.getProperty("java.io.tmpdir", "/tmp")), "upload", ".tmp");
+            try {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                put(key, tmp, null);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return;
+        }
+        try {
+            s3Client.putObject(PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(BlobStore.contentTypeOf(key))
+                    .contentLength(length)
+                    .build(), RequestBody.fromInputStream(in, length));
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload " + key + " to S3", e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key + " from S3", e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Failed to check " + key + " in S3", e);
+        } catch (SdkException e) {
+            throw new IOException("Failed to check " + key + " in S3", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete " + key + " from S3", e);
+        }
+    }
+
+    @Override
+    public DeleteResult deleteAll(Collection<String> keys) throws IOException {
+        List<String> all = List.copyOf(keys);
+        int deleted = 0;
+        int failed = 0;
+        String firstError = null;
+        for (int i = 0; i < all.size(); i += DELETE_BATCH) {
+            List<ObjectIdentifier> batch = new ArrayList<>();
+            for (String key : all.subList(i, Math.min(all.size(), i + DELETE_BATCH))) {
+                batch.add(ObjectIdentifier.builder().key(key).build());
+            }
+            try {
+                DeleteObjectsResponse result = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucket)
+                        .delete(Delete.builder().objects(batch).quiet(true).build())
+                        .build());
+                deleted += batch.size() - result.errors().size();
+                failed += result.errors().size();
+                if (firstError == null && !result.errors().isEmpty()) {
+                    S3Error error = result.errors().get(0);
+                    firstError = error.key() + ": " + error.code() + " " + error.message();
+                }
+            } catch (SdkException e) {
+                throw new IOException("Failed to delete objects from S3", e);
+            }
+        }
+        return new DeleteResult(deleted, failed, firstError);
+    }
+
+    @Override
+    public ListPage list(String prefix, String token, int maxKeys) throws IOException {
+        ListObjectsV2Request.Builder list = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .maxKeys(maxKeys);
+        if (token != null) {
+            list.continuationToken(token);
+        }
+        try {
+            ListObjectsV2Response page = s3Client.listObjectsV2(list.build());
+            List<String> keys = page.contents().stream().map(S3Object::key).toList();
+            return new ListPage(keys, Boolean.TRUE.equals(page.isTruncated()) ? page.nextContinuationToken() : null);
+        } catch (SdkException e) {
+            throw new IOException("Failed to list " + prefix + " in S3", e);
+        }
+    }
+
+    @Override
+    public Path localFile(String key) {
+        return null;
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        try {
+            return s3Client.utilities().getUrl(GetUrlRequest.builder().bucket(bucket).key(key).build()).toString();
+        } catch (SdkException e) {
+            return "";
+        }
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    @Override
+    public String describe() {
+        return "S3 File Storage - Bucket: " + bucket + ", Region: " + region;
+    }
+
+    @Override
+    public void close() {
+        s3Client.close();
+    }
+}
@@ -2,6 +2,7 @@ package com.alice.cosplaysuggestion.utils;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,13 +11,21 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.alice.cosplaysuggestion.model.Role;
+import com.alice.cosplaysuggestion.service.UserDetailsServiceImpl.UserPrincipal;
+
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 
 @Component
 public class JwtUtils {
@@ -26,20 +35,74 @@ public class JwtUtils {
     @Value("${app.jwtSecret:cosplaySecretKey}")
     private String jwtSecret;
     
+    // Access token lifetime. Clients that use /api/auth/refresh should run with minutes here
+    // (e.g. 900000); the 24h default keeps clients without refresh support logged in
     @Value("${app.jwtExpirationMs:86400000}")
     private int jwtExpirationMs;
     
+    // Claims carried by access tokens so the filter can build the principal without a DB lookup
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    // Issue time in milliseconds; the standard iat only has second precision, too coarse to tell
+    // tokens issued just before a revocation from those issued right after it
+    public static final String CLAIM_ISSUED_AT_MS = "iat_ms";
+    
+    // Request attribute holding the verified Claims of the current request's token (set by AuthTokenFilter)
+    public static final String CLAIMS_ATTRIBUTE = JwtUtils.class.getName() + ".claims";
+    
+    // The signing key and parser are immutable and thread-safe, so they are built once at startup
+    private Key signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    public void init() {
+        this.signingKey = key();
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+    
     public String generateJwtToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        return generateTokenFromUsername(userPrincipal.getUsername());
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        if (userDetails instanceof UserPrincipal principal) {
+            return generateToken(principal.getUsername(), principal.getId(), principal.getRole());
+        }
+        return generateTokenFromUsername(userDetails.getUsername());
+    }
+    
+    public String generateToken(String username, Long userId, Role role) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(username)
+                .setId(UUID.randomUUID().toString())
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLE, role.name())
+                .claim(CLAIM_ISSUED_AT_MS, now)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+    
+    // Issue time in epoch milliseconds; tokens without iat_ms fall back to iat (truncated to the second)
+    public static long issuedAtMillis(Claims claims) {
+        Number issuedAtMs = claims.get(CLAIM_ISSUED_AT_MS, Number.class);
+        if (issuedAtMs != null) {
+            return issuedAtMs.longValue();
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
+    }
+    
+    public long getExpirationMs() {
+        return jwtExpirationMs;
     }
     
     public String generateTokenFromUsername(String username) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .claim(CLAIM_ISSUED_AT_MS, now)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
@@ -54,28 +117,39 @@ public class JwtUtils {
         }
     }
     
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-    
-    public boolean validateJwtToken(String authToken) {
+    // Verify signature and expiry and return the claims in a single parse; null when the token is invalid
+    public Claims parseValidClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (SignatureException e) {
+            logger.error("JWT signature does not match: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+    
+    // Claims already verified for this request, without parsing the token again
+    public static Claims currentClaims(HttpServletRequest request) {
+        Object claims = request.getAttribute(CLAIMS_ATTRIBUTE);
+        return claims instanceof Claims c ? c : null;
+    }
+    
+    public Claims getClaimsFromJwtToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+    
+    public String getUserNameFromJwtToken(String token) {
+        return getClaimsFromJwtToken(token).getSubject();
+    }
+    
+    public boolean validateJwtToken(String authToken) {
+        return parseValidClaims(authToken) != null;
     }
 }
@@ -0,0 +1,253 @@
+package com.alice.cosplaysuggestion.utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Shared file responder for gallery, avatar and background media
+// - strong ETag + Last-Modified validators with 304 handling
+// - single byte-range requests (206) for video seeking
+// - zero-copy body via Tomcat sendfile, falling back to FileChannel.transferTo
+// - immutable caching for content-addressed (hash-named) files
+@Component
+public class MediaFileSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaFileSender.class);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long IMMUTABLE_MAX_AGE = 31536000L;
+
+    // Exactly the "{sha256}.ext" key shape ContentStore produces never changes and can be cached
+    // forever; user-chosen names that merely contain a hex run do not qualify
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("^[0-9a-f]{64}(?:\\.[a-z0-9]+)?$");
+
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+
+    public void send(HttpServletRequest request, HttpServletResponse response, Path file, long maxAgeSeconds) throws IOException {
+        send(request, response, file, file.getFileName().toString(), null, maxAgeSeconds);
+    }
+
+    // publicName is the name the client asked for; it drives Content-Disposition and the
+    // immutable check (a resized variant is cached under a hash but addressed by its source name)
+    public void send(HttpServletRequest request, HttpServletResponse response, Path file, String publicName,
+                     String contentType, long maxAgeSeconds) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attrs.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, isContentAddressed(publicName)
+                ? "public, max-age=" + IMMUTABLE_MAX_AGE + ", immutable"
+                : "public, max-age=" + maxAgeSeconds);
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(contentType != null ? contentType : contentTypeOf(publicName));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + publicName + "\"");
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = length == 0 ? 0 : end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file with sendfile() once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        } catch (IOException e) {
+            // Clients routinely abort video requests while seeking
+            logger.debug("Media transfer aborted for {}: {}", publicName, e.getMessage());
+        }
+    }
+
+    // 302 to externally hosted media; the redirect itself may be cached until the target expires
+    public void redirect(HttpServletResponse response, URI location, long maxAgeSeconds) {
+        response.setStatus(HttpServletResponse.SC_FOUND);
+        response.setHeader(HttpHeaders.LOCATION, location.toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + maxAgeSeconds);
+    }
+
+    public boolean isContentAddressed(String fileName) {
+        return CONTENT_ADDRESSED.matcher(fileName.toLowerCase(Locale.ROOT)).matches();
+    }
+
+    public String contentTypeOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String ext = dot == -1 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return contentTypes.computeIfAbsent(ext, e -> MediaTypeFactory.getMediaType("file." + e)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString());
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag, true);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    // If-Range may carry either an ETag or an HTTP date
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return matchesEtag(ifRange, etag, false);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date != -1 && lastModified == date;
+    }
+
+    private boolean matchesEtag(String header, String etag, boolean weak) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag)) {
+                return true;
+            }
+            if (weak && tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    // Returns {start, end} for a satisfiable single range, an empty array to ignore the header
+    // (multi-range, malformed or last-pos before first-pos, all served as 200), or null when a
+    // well-formed range cannot be satisfied: it starts at or beyond EOF, or asks for a zero suffix
+    private long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') != -1) {
+            return new long[0];
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return new long[0];
+        }
+        long from = position(spec.substring(0, dash).trim());
+        long to = position(spec.substring(dash + 1).trim());
+        if (from == -1) {
+            // suffix-range "-N": the last N bytes
+            if (to < 0) {
+                return new long[0];
+            }
+            if (to == 0) {
+                return null;
+            }
+            return new long[] { Math.max(0, length - to), length - 1 };
+        }
+        if (from < 0 || to < -1 || (to != -1 && to < from)) {
+            return new long[0];
+        }
+        if (from >= length) {
+            return null;
+        }
+        return new long[] { from, to == -1 ? length - 1 : Math.min(to, length - 1) };
+    }
+
+    // Non-negative decimal position, -1 when empty, -2 when not a valid number
+    private static long position(String value) {
+        if (value.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return -2;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -2;
+        }
+    }
+}
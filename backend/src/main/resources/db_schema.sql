@@ -12,6 +12,7 @@ CREATE TABLE accounts (
     username NVARCHAR(50) NOT NULL UNIQUE,
     password NVARCHAR(255) NOT NULL,
     email NVARCHAR(100) NOT NULL UNIQUE,
+    email_verified BIT NOT NULL DEFAULT 0,
     height FLOAT,
     weight FLOAT,
     gender NVARCHAR(10) CHECK (gender IN ('MALE', 'FEMALE', 'OTHER')),
@@ -20,8 +21,16 @@ CREATE TABLE accounts (
     role NVARCHAR(20) NOT NULL CHECK (role IN ('ADMIN', 'CUSTOMER')) DEFAULT 'CUSTOMER',
     provider NVARCHAR(20) NOT NULL CHECK (provider IN ('LOCAL', 'GOOGLE')) DEFAULT 'LOCAL',
     provider_id NVARCHAR(100),
-    created_at DATETIME2 NOT NULL DEFAULT GETDATE()
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    tokens_revoked_before BIGINT -- epoch ms, access tokens issued at or before it are rejected
+);
+
+-- Logged-out access tokens, kept until they expire
+CREATE TABLE denied_tokens (
+    jti NVARCHAR(36) PRIMARY KEY,
+    expires_at BIGINT NOT NULL -- epoch second
 );
+CREATE INDEX IX_denied_tokens_expires_at ON denied_tokens(expires_at);
 
 -- Create indexes for better performance
 CREATE INDEX IX_accounts_username ON accounts(username);
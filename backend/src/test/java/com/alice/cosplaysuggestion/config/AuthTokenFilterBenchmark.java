@@ -0,0 +1,97 @@
+package com.alice.cosplaysuggestion.config;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alice.cosplaysuggestion.model.Role;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.repository.DeniedTokenRepository;
+import com.alice.cosplaysuggestion.service.TokenRevocationService;
+import com.alice.cosplaysuggestion.service.UserDetailsServiceImpl;
+import com.alice.cosplaysuggestion.service.UserDetailsServiceImpl.UserPrincipal;
+import com.alice.cosplaysuggestion.utils.JwtUtils;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.ServletException;
+
+// Per-request cost of JWT authentication: signature check + claims parse, principal construction
+// from the claims, and the whole filter (no database access for tokens that carry uid/role).
+// Not part of the unit test run; start main() from the IDE, or after
+//   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+// run: java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main AuthTokenFilterBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private JwtUtils jwtUtils;
+    private AuthTokenFilter filter;
+    private String token;
+    private Claims claims;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "YmVuY2htYXJrLXNpZ25pbmcta2V5LWF0LWxlYXN0LTMyLWJ5dGVzIQ==");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 900_000);
+        jwtUtils.init();
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", mock(UserDetailsServiceImpl.class));
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", new TokenRevocationService(
+                mock(AccountRepository.class), mock(DeniedTokenRepository.class)));
+
+        token = jwtUtils.generateToken("benchmark", 42L, Role.CUSTOMER);
+        claims = jwtUtils.parseValidClaims(token);
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtUtils.parseValidClaims(token);
+    }
+
+    @Benchmark
+    public UserPrincipal principalFromClaims() {
+        return UserPrincipal.fromClaims(claims.get(JwtUtils.CLAIM_USER_ID, Long.class), claims.getSubject(),
+                Role.valueOf(claims.get(JwtUtils.CLAIM_ROLE, String.class)));
+    }
+
+    @Benchmark
+    public Object filterRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/account/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AuthTokenFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
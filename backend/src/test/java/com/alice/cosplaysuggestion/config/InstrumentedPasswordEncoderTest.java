@@ -0,0 +1,36 @@
+package com.alice.cosplaysuggestion.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class InstrumentedPasswordEncoderTest {
+
+    private final InstrumentedPasswordEncoder encoder = new InstrumentedPasswordEncoder(5, 1, 4, 10_000);
+
+    @AfterEach
+    void tearDown() {
+        encoder.close();
+    }
+
+    @Test
+    void currentHashesAreNotUpgraded() {
+        String legacy = new BCryptPasswordEncoder(5).encode("secret");
+
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+        assertThat(encoder.upgradeEncoding(legacy)).isFalse();
+        assertThat(encoder.upgradeEncoding(legacy.replaceFirst("^\\$2a\\$", "\\$2b\\$"))).isFalse();
+        assertThat(encoder.matches("secret", legacy)).isTrue();
+    }
+
+    @Test
+    void otherCostsAndFormatsAreUpgraded() {
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(6).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding("{noop}secret")).isTrue();
+        assertThat(encoder.upgradeEncoding("plain-text")).isTrue();
+        assertThat(encoder.getStats().upgradesRequested()).isEqualTo(4);
+    }
+}
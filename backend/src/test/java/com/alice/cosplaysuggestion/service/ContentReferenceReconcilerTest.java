@@ -0,0 +1,97 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alice.cosplaysuggestion.model.Account;
+import com.alice.cosplaysuggestion.model.GalleryFolder;
+import com.alice.cosplaysuggestion.model.GalleryItem;
+import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+import com.alice.cosplaysuggestion.model.MediaBlob;
+import com.alice.cosplaysuggestion.model.Provider;
+import com.alice.cosplaysuggestion.model.Role;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.repository.GalleryItemRepository;
+import com.alice.cosplaysuggestion.repository.MediaBlobRepository;
+
+@DataJpaTest
+class ContentReferenceReconcilerTest {
+
+    private static final String PIC = "a".repeat(64);
+    private static final String ORPHAN = "b".repeat(64);
+    private static final String IN_FLIGHT = "c".repeat(64);
+    private static final String AVATAR = "d".repeat(64);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private MediaBlobRepository blobRepo;
+
+    @Autowired
+    private GalleryItemRepository itemRepo;
+
+    @Autowired
+    private AccountRepository accountRepo;
+
+    private ContentReferenceReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new ContentReferenceReconciler(blobRepo, itemRepo, accountRepo);
+        ReflectionTestUtils.setField(reconciler, "graceMinutes", 60L);
+    }
+
+    @Test
+    void recountsReferencesOfSettledBlobs() {
+        GalleryFolder folder = em.persist(new GalleryFolder("Folder", "folder"));
+        item(folder, "one.jpg", PIC);
+        item(folder, "two.JPG", PIC);
+        item(folder, "three.jpg", IN_FLIGHT);
+        Account account = new Account("Avatar User", "avatar-user", "password-hash", "avatar@example.com",
+                Role.CUSTOMER, Provider.LOCAL);
+        account.setAvatar("/api/account/avatar/" + AVATAR + ".jpg");
+        em.persist(account);
+
+        Long leaked = blob("gallery/_blobs/pic/" + PIC + ".jpg", PIC, 5, 120);
+        Long orphan = blob("gallery/_blobs/pic/" + ORPHAN + ".png", ORPHAN, 1, 120);
+        Long lost = blob("avatars/" + AVATAR + ".jpg", AVATAR, 0, 120);
+        // acquired moments ago: its item may not be committed yet, so it is left alone
+        Long recent = blob("gallery/_blobs/pic/" + IN_FLIGHT + ".jpg", IN_FLIGHT, 0, 1);
+        em.flush();
+        em.clear();
+
+        reconciler.reconcile();
+        em.clear();
+
+        assertThat(refCount(leaked)).isEqualTo(2);
+        assertThat(refCount(orphan)).isZero();
+        assertThat(refCount(lost)).isEqualTo(1);
+        assertThat(refCount(recent)).isZero();
+    }
+
+    private void item(GalleryFolder folder, String fileName, String hash) {
+        GalleryItem item = new GalleryItem(folder, fileName, "pic", ItemType.IMAGE, "/api/gallery/_blobs/pic/" + hash);
+        item.setContentHash(hash);
+        em.persist(item);
+    }
+
+    private Long blob(String key, String hash, int refCount, long minutesAgo) {
+        MediaBlob blob = new MediaBlob(key, hash, 100);
+        blob.setRefCount(refCount);
+        blob.setUpdatedAt(LocalDateTime.now().minusMinutes(minutesAgo));
+        return em.persist(blob).getId();
+    }
+
+    private int refCount(Long id) {
+        return blobRepo.findById(id).orElseThrow().getRefCount();
+    }
+}
@@ -0,0 +1,127 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alice.cosplaysuggestion.model.Account;
+import com.alice.cosplaysuggestion.model.EmailOutboxMessage;
+import com.alice.cosplaysuggestion.model.EmailOutboxMessage.Status;
+import com.alice.cosplaysuggestion.model.EmailVerificationToken;
+import com.alice.cosplaysuggestion.model.Provider;
+import com.alice.cosplaysuggestion.model.Role;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.repository.EmailOutboxRepository;
+import com.alice.cosplaysuggestion.repository.EmailVerificationTokenRepository;
+
+import jakarta.mail.internet.MimeMessage;
+
+class EmailOutboxServiceTest {
+
+    private EmailOutboxRepository outboxRepository;
+    private EmailVerificationTokenRepository tokenRepository;
+    private EmailService emailService;
+    private EmailOutboxService service;
+    private Account account;
+
+    // the verification token row as the database would hold it
+    private final AtomicReference<EmailVerificationToken> storedToken = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        outboxRepository = mock(EmailOutboxRepository.class);
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        tokenRepository = mock(EmailVerificationTokenRepository.class);
+        emailService = mock(EmailService.class);
+        service = new EmailOutboxService(outboxRepository, accountRepository, tokenRepository, emailService,
+                mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "maxAttempts", 6);
+
+        account = new Account("Test User", "tester", "hash", "tester@example.com", Role.CUSTOMER, Provider.LOCAL);
+        account.setId(1L);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+
+        when(tokenRepository.findByAccount(account)).thenAnswer(inv -> Optional.ofNullable(storedToken.get()));
+        when(tokenRepository.save(any(EmailVerificationToken.class))).thenAnswer(inv -> {
+            storedToken.set(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+        when(outboxRepository.claim(eq(10L), eq(Status.PENDING), eq(Status.SENDING), any())).thenReturn(1);
+        when(emailService.createVerificationEmail(eq("tester@example.com"), anyString()))
+                .thenAnswer(inv -> mock(MimeMessage.class));
+    }
+
+    @Test
+    void firstSendFailsRetryDelivers() throws Exception {
+        EmailOutboxMessage message = message();
+        doThrow(new MailSendException("SMTP unavailable"))
+                .doNothing()
+                .when(emailService).sendAll(any(MimeMessage[].class));
+
+        service.sendBatch(List.of(message));
+        assertThat(message.getStatus()).isEqualTo(Status.PENDING);
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getLastError()).contains("SMTP unavailable");
+
+        // the token written by the failed attempt must not be mistaken for a delivered resend
+        service.sendBatch(List.of(message));
+        assertThat(message.getStatus()).isEqualTo(Status.SENT);
+        assertThat(message.getAttempts()).isEqualTo(2);
+        verify(emailService, times(2)).sendAll(any(MimeMessage[].class));
+        verify(emailService, times(2)).createVerificationEmail(eq("tester@example.com"), anyString());
+    }
+
+    @Test
+    void resendAfterFailedAttemptMakesRetryUnnecessary() throws Exception {
+        EmailOutboxMessage message = message();
+        doThrow(new MailSendException("SMTP unavailable")).when(emailService).sendAll(any(MimeMessage[].class));
+
+        service.sendBatch(List.of(message));
+        assertThat(message.getStatus()).isEqualTo(Status.PENDING);
+
+        // the user asked for a new link in the meantime (AccountService.resendVerificationEmail)
+        storedToken.get().setLastSentAt(message.getLastAttemptAt().plusMinutes(1));
+
+        doNothing().when(emailService).sendAll(any(MimeMessage[].class));
+        service.sendBatch(List.of(message));
+        assertThat(message.getStatus()).isEqualTo(Status.SENT);
+        verify(emailService, times(1)).sendAll(any(MimeMessage[].class));
+    }
+
+    @Test
+    void messageClaimedElsewhereIsSkipped() throws Exception {
+        EmailOutboxMessage message = message();
+        when(outboxRepository.claim(eq(10L), eq(Status.PENDING), eq(Status.SENDING), any())).thenReturn(0);
+
+        service.sendBatch(List.of(message));
+
+        assertThat(message.getStatus()).isEqualTo(Status.PENDING);
+        verify(emailService, never()).sendAll(any(MimeMessage[].class));
+    }
+
+    private static EmailOutboxMessage message() {
+        EmailOutboxMessage message = new EmailOutboxMessage(EmailOutboxMessage.Type.VERIFICATION, 1L);
+        message.setId(10L);
+        message.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        return message;
+    }
+}
@@ -0,0 +1,57 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.alice.cosplaysuggestion.model.GalleryFolder;
+import com.alice.cosplaysuggestion.repository.GalleryFolderRepository;
+
+class GalleryFolderSearchIndexTest {
+
+    @Test
+    void slowOlderRebuildDoesNotOverwriteNewerSnapshot() throws Exception {
+        GalleryFolderRepository repo = mock(GalleryFolderRepository.class);
+        GalleryFolderSearchIndex index = new GalleryFolderSearchIndex(repo);
+        CountDownLatch firstRead = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<GalleryFolder> before = List.of(new GalleryFolder("Lễ hội mùa thu", "autumn"));
+        List<GalleryFolder> after = List.of(new GalleryFolder("Lễ hội mùa thu", "autumn"),
+                new GalleryFolder("Naruto cosplay", "naruto"));
+
+        when(repo.findByIsActiveTrue())
+                .thenAnswer(inv -> {
+                    firstRead.countDown();
+                    releaseFirst.await(5, TimeUnit.SECONDS);
+                    return before;
+                })
+                .thenReturn(after);
+
+        Thread slow = new Thread(index::rebuild);
+        slow.start();
+        assertThat(firstRead.await(5, TimeUnit.SECONDS)).isTrue();
+        index.rebuild();
+        releaseFirst.countDown();
+        slow.join(5000);
+
+        assertThat(index.search("naruto")).extracting(GalleryFolder::getStorageName).containsExactly("naruto");
+        assertThat(index.search("")).hasSize(2);
+    }
+
+    @Test
+    void foldsDiacriticsForTypeahead() {
+        GalleryFolderRepository repo = mock(GalleryFolderRepository.class);
+        when(repo.findByIsActiveTrue()).thenReturn(List.of(new GalleryFolder("Lễ hội Đà Nẵng", "danang")));
+        GalleryFolderSearchIndex index = new GalleryFolderSearchIndex(repo);
+        index.rebuild();
+
+        assertThat(index.search("le hoi da")).extracting(GalleryFolder::getStorageName).containsExactly("danang");
+        assertThat(index.search("l")).hasSize(1);
+    }
+}
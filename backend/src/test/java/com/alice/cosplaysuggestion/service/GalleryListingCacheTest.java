@@ -0,0 +1,82 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.alice.cosplaysuggestion.event.GalleryChangedEvent;
+import com.alice.cosplaysuggestion.model.GalleryFolder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class GalleryListingCacheTest {
+
+    private final GalleryService galleryService = mock(GalleryService.class);
+    private final GalleryListingCache cache = new GalleryListingCache(galleryService, new ObjectMapper().findAndRegisterModules());
+
+    private static GalleryFolder folder(long id, String name) {
+        GalleryFolder f = new GalleryFolder(name, name.toLowerCase());
+        f.setId(id);
+        return f;
+    }
+
+    @Test
+    void itemChangesKeepEveryListing() {
+        when(galleryService.listAllFolders()).thenReturn(List.of(folder(1, "Autumn")));
+        when(galleryService.searchFoldersByName("autumn")).thenReturn(List.of(folder(1, "Autumn")));
+        cache.allFolders();
+        cache.search("autumn");
+
+        cache.onGalleryChanged(new GalleryChangedEvent(GalleryChangedEvent.Type.ITEMS_CHANGED, 1L));
+        cache.allFolders();
+        cache.search("autumn");
+
+        verify(galleryService, times(1)).listAllFolders();
+        verify(galleryService, times(1)).searchFoldersByName("autumn");
+        assertThat(cache.getStats().hits()).isEqualTo(2);
+    }
+
+    @Test
+    void deletedFolderOnlyEvictsListingsHoldingIt() {
+        when(galleryService.listAllFolders()).thenReturn(List.of(folder(1, "Autumn"), folder(2, "Naruto")));
+        when(galleryService.searchFoldersByName("autumn")).thenReturn(List.of(folder(1, "Autumn")));
+        when(galleryService.searchFoldersByName("naruto")).thenReturn(List.of(folder(2, "Naruto")));
+        cache.allFolders();
+        cache.search("autumn");
+        cache.search("naruto");
+
+        cache.onGalleryChanged(new GalleryChangedEvent(GalleryChangedEvent.Type.FOLDER_DELETED, 2L));
+        cache.allFolders();
+        cache.search("autumn");
+        cache.search("naruto");
+
+        verify(galleryService, times(2)).listAllFolders();
+        verify(galleryService, times(1)).searchFoldersByName("autumn");
+        verify(galleryService, times(2)).searchFoldersByName("naruto");
+    }
+
+    @Test
+    void toggledFolderEvictsActiveAndSearchListings() {
+        when(galleryService.listAllFolders()).thenReturn(List.of(folder(1, "Autumn")));
+        when(galleryService.listActiveFolders()).thenReturn(List.of(folder(1, "Autumn")));
+        when(galleryService.searchFoldersByName("naruto")).thenReturn(List.of());
+        cache.allFolders();
+        cache.activeFolders();
+        cache.search("naruto");
+
+        // Folder 2 is beyond the cached all-folders page and just became active
+        cache.onGalleryChanged(new GalleryChangedEvent(GalleryChangedEvent.Type.FOLDER_UPDATED, 2L));
+        cache.allFolders();
+        cache.activeFolders();
+        cache.search("naruto");
+
+        verify(galleryService, times(1)).listAllFolders();
+        verify(galleryService, times(2)).listActiveFolders();
+        verify(galleryService, times(2)).searchFoldersByName("naruto");
+    }
+}
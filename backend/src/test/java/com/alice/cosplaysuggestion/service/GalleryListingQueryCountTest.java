@@ -0,0 +1,126 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alice.cosplaysuggestion.model.GalleryFolder;
+import com.alice.cosplaysuggestion.model.GalleryItem;
+import com.alice.cosplaysuggestion.model.GalleryItem.ItemType;
+import com.alice.cosplaysuggestion.repository.GalleryFolderRepository;
+import com.alice.cosplaysuggestion.repository.GalleryItemRepository;
+import com.alice.cosplaysuggestion.storage.BlobStore;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Guards the folder/item listings against N+1 regressions: the number of JDBC statements
+// must not grow with the number of rows returned
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class GalleryListingQueryCountTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private GalleryFolderRepository folderRepo;
+
+    @Autowired
+    private GalleryItemRepository itemRepo;
+
+    private GalleryService galleryService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        galleryService = new GalleryService(folderRepo, itemRepo, mock(MediaDeliveryService.class),
+                mock(ApplicationEventPublisher.class), mock(GalleryFolderSearchIndex.class),
+                mock(StorageDeletionService.class), mock(ContentStore.class), mock(ImageMetadataService.class),
+                mock(BlobStore.class));
+        ReflectionTestUtils.setField(galleryService, "listMaxSize", 1000);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void itemListingUsesOneStatementRegardlessOfItemCount() {
+        GalleryFolder small = folderWithItems("small", 1);
+        GalleryFolder large = folderWithItems("large", 25);
+
+        long one = statements(() -> galleryService.listAllItems(small.getId()));
+        long many = statements(() -> galleryService.listAllItems(large.getId()));
+
+        assertThat(one).isEqualTo(1);
+        assertThat(many).isEqualTo(one);
+    }
+
+    @Test
+    void itemPageUsesConstantStatements() {
+        GalleryFolder small = folderWithItems("small", 1);
+        GalleryFolder large = folderWithItems("large", 25);
+
+        long one = statements(() -> galleryService.pageItems(small.getId(), null, 20));
+        long many = statements(() -> galleryService.pageItems(large.getId(), null, 20));
+
+        assertThat(many).isEqualTo(one);
+    }
+
+    @Test
+    void folderPageUsesOneStatementRegardlessOfFolderCount() {
+        folderWithItems("first", 3);
+        long one = statements(() -> galleryService.pageFolders(null, 50, false));
+
+        for (int i = 0; i < 20; i++) {
+            folderWithItems("folder-" + i, 3);
+        }
+        long many = statements(() -> galleryService.pageFolders(null, 50, false));
+
+        assertThat(one).isEqualTo(1);
+        assertThat(many).isEqualTo(one);
+    }
+
+    @Test
+    void folderListingUsesOneStatementRegardlessOfFolderCount() {
+        folderWithItems("first", 3);
+        long one = statements(() -> galleryService.listAllFolders());
+
+        for (int i = 0; i < 20; i++) {
+            folderWithItems("folder-" + i, 3);
+        }
+        long many = statements(() -> galleryService.listAllFolders());
+
+        assertThat(one).isEqualTo(1);
+        assertThat(many).isEqualTo(one);
+    }
+
+    private GalleryFolder folderWithItems(String name, int items) {
+        GalleryFolder folder = em.persist(new GalleryFolder(name, name));
+        for (int i = 0; i < items; i++) {
+            em.persist(new GalleryItem(folder, "img-" + i + ".jpg", "pic", ItemType.IMAGE,
+                    "/api/gallery/" + name + "/pic/img-" + i + ".jpg"));
+        }
+        em.flush();
+        em.clear();
+        return folder;
+    }
+
+    // Statements prepared while running the listing, starting from an empty persistence context
+    private long statements(Supplier<?> listing) {
+        em.clear();
+        statistics.clear();
+        listing.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,162 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ImageResizeServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageResizeService service;
+
+    @BeforeEach
+    void setUp() {
+        service = newService();
+    }
+
+    private ImageResizeService newService() {
+        ImageResizeService s = new ImageResizeService();
+        ReflectionTestUtils.setField(s, "cacheLocation", dir.resolve("cache").toString());
+        ReflectionTestUtils.setField(s, "cacheMaxBytes", 512L * 1024 * 1024);
+        ReflectionTestUtils.setField(s, "maxWidth", 2048);
+        ReflectionTestUtils.setField(s, "widths", List.of(160, 320, 640));
+        ReflectionTestUtils.setField(s, "maxPixels", 40_000_000L);
+        s.init();
+        return s;
+    }
+
+    private Path image(String name, int width, int height) throws IOException {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        Path file = dir.resolve(name);
+        ImageIO.write(img, "png", file.toFile());
+        return file;
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedVariantsOverTheByteCap() throws Exception {
+        Path a = image("a.png", 400, 300);
+        Path b = Files.copy(a, dir.resolve("b.png"));
+        Path c = Files.copy(a, dir.resolve("c.png"));
+
+        Path variantA = service.resize(a, 160, null, "png");
+        long size = Files.size(variantA);
+        // Room for two variants of identical size, not three
+        ReflectionTestUtils.setField(service, "cacheMaxBytes", size * 2 + size / 2);
+
+        Path variantB = service.resize(b, 160, null, "png");
+        // Touch A so B becomes the eldest entry
+        assertThat(service.resize(a, 160, null, "png")).isEqualTo(variantA);
+        Path variantC = service.resize(c, 160, null, "png");
+
+        assertThat(variantA).exists();
+        assertThat(variantB).doesNotExist();
+        assertThat(variantC).exists();
+        assertThat(service.getCacheInfo()).startsWith("Image cache: 2 entries");
+    }
+
+    @Test
+    void reusesCachedVariantAcrossRestarts() throws Exception {
+        Path a = image("a.png", 400, 300);
+        Path variant = service.resize(a, 320, 70, "jpg");
+
+        ImageResizeService restarted = newService();
+
+        assertThat(restarted.getCacheInfo()).startsWith("Image cache: 1 entries");
+        assertThat(restarted.resize(a, 320, 70, "jpg")).isEqualTo(variant);
+        assertThat(ImageIO.read(variant.toFile()).getWidth()).isEqualTo(320);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentRequestsForTheSameVariantShareOneJob() throws Exception {
+        Path a = image("a.png", 400, 300);
+        String key = ReflectionTestUtils.invokeMethod(service, "cacheKey", a, 160, 80, "png");
+        Map<String, CompletableFuture<Path>> inFlight =
+                (Map<String, CompletableFuture<Path>>) ReflectionTestUtils.getField(service, "inFlight");
+
+        // A job already running for this variant: later callers wait for it instead of rendering
+        CompletableFuture<Path> running = new CompletableFuture<>();
+        inFlight.put(key, running);
+        Path shared = dir.resolve("shared.png");
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Path>> waiters = List.of(
+                    pool.submit(() -> service.resize(a, 160, null, "png")),
+                    pool.submit(() -> service.resize(a, 160, 85, "png")),
+                    pool.submit(() -> service.resize(a, 160, 80, "png")));
+            Thread.sleep(100);
+            assertThat(waiters).noneMatch(Future::isDone);
+
+            running.complete(shared);
+            for (Future<Path> waiter : waiters) {
+                assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo(shared);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        try (var files = Files.walk(dir.resolve("cache"))) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void waitersSeeTheSharedJobFailure() throws Exception {
+        Path a = image("a.png", 400, 300);
+        String key = ReflectionTestUtils.invokeMethod(service, "cacheKey", a, 160, 80, "png");
+        Map<String, CompletableFuture<Path>> inFlight =
+                (Map<String, CompletableFuture<Path>>) ReflectionTestUtils.getField(service, "inFlight");
+        CompletableFuture<Path> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException("decode failed"));
+        inFlight.put(key, failed);
+
+        assertThatThrownBy(() -> service.resize(a, 160, null, "png"))
+                .isInstanceOf(IOException.class)
+                .hasMessage("decode failed");
+    }
+
+    @Test
+    void refusesSourcesAbovePixelLimit() throws Exception {
+        ReflectionTestUtils.setField(service, "maxPixels", 10_000L);
+        Path a = image("a.png", 400, 300);
+
+        assertThatThrownBy(() -> service.resize(a, 160, null, "png"))
+                .isInstanceOf(ImageResizeService.ImageTooLargeException.class);
+    }
+
+    @Test
+    void snapsWidthsAndQualities() {
+        assertThat(service.snapWidth(100)).isEqualTo(160);
+        assertThat(service.snapWidth(161)).isEqualTo(320);
+        assertThat(service.snapWidth(5000)).isEqualTo(640);
+        assertThat(ImageResizeService.bucketQuality(null)).isEqualTo(80);
+        assertThat(ImageResizeService.bucketQuality(10)).isEqualTo(50);
+        assertThat(ImageResizeService.bucketQuality(89)).isEqualTo(80);
+    }
+}
@@ -0,0 +1,88 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.alice.cosplaysuggestion.exception.TooManyAttemptsException;
+import com.alice.cosplaysuggestion.service.LoginAttemptTracker.Action;
+
+class LoginAttemptTrackerTest {
+
+    private LoginAttemptTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new LoginAttemptTracker();
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "clientIpHeader", "X-Real-IP");
+        ReflectionTestUtils.setField(tracker, "trustedProxies", "");
+        ReflectionTestUtils.setField(tracker, "maxKeys", 20);
+        tracker.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void failuresViaUsernameAndEmailShareTheAccountBudget() {
+        for (int i = 0; i < 5; i++) {
+            fromIp("10.0.0." + i);
+            tracker.recordAccountFailure(Action.LOGIN, 42L);
+        }
+
+        fromIp("10.0.1.1");
+        // the typed names were never counted, the account is what is locked
+        assertThatCode(() -> tracker.check(Action.LOGIN, "Alice@Example.com")).doesNotThrowAnyException();
+        assertThatThrownBy(() -> tracker.checkAccount(Action.LOGIN, 42L)).isInstanceOf(TooManyAttemptsException.class);
+        assertThatCode(() -> tracker.checkAccount(Action.LOGIN, 7L)).doesNotThrowAnyException();
+
+        tracker.recordSuccess(Action.LOGIN, 42L);
+        assertThatCode(() -> tracker.checkAccount(Action.LOGIN, 42L)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void unknownNamesAreCanonicalized() {
+        for (int i = 0; i < 5; i++) {
+            fromIp("10.0.0." + i);
+            tracker.recordFailure(Action.LOGIN, i % 2 == 0 ? " Ghost " : "ghost");
+        }
+
+        fromIp("10.0.1.1");
+        assertThatThrownBy(() -> tracker.check(Action.LOGIN, "GHOST")).isInstanceOf(TooManyAttemptsException.class);
+    }
+
+    @Test
+    void fullTrackerEvictsOldestKeysAndKeepsTrackingNewOnes() {
+        fromIp("10.0.0.1");
+        for (int i = 0; i < 40; i++) {
+            tracker.recordFailure(Action.RESET_REQUEST, "name-" + i);
+        }
+        // the newest key is tracked even though the table filled up on the way
+        tracker.recordFailure(Action.LOGIN, "victim");
+        for (int i = 0; i < 4; i++) {
+            tracker.recordFailure(Action.LOGIN, "victim");
+        }
+
+        LoginAttemptTracker.AttemptStats stats = tracker.getStats();
+        assertThat(stats.trackedKeys()).isLessThanOrEqualTo(20);
+        assertThat(stats.evictedKeys()).isPositive();
+        assertThatThrownBy(() -> tracker.check(Action.LOGIN, "victim")).isInstanceOf(TooManyAttemptsException.class);
+    }
+
+    private static void fromIp(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(ip);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
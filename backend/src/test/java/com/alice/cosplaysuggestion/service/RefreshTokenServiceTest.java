@@ -0,0 +1,101 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alice.cosplaysuggestion.model.Account;
+import com.alice.cosplaysuggestion.model.Provider;
+import com.alice.cosplaysuggestion.model.RefreshToken;
+import com.alice.cosplaysuggestion.model.Role;
+import com.alice.cosplaysuggestion.repository.RefreshTokenRepository;
+
+class RefreshTokenServiceTest {
+
+    private static final String FAMILY = "family-1";
+
+    private RefreshTokenRepository repository;
+    private TokenRevocationService revocationService;
+    private RefreshTokenService service;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RefreshTokenRepository.class);
+        revocationService = mock(TokenRevocationService.class);
+        service = new RefreshTokenService(repository, revocationService);
+        ReflectionTestUtils.setField(service, "refreshExpirationDays", 30L);
+
+        account = new Account("Test User", "tester", "hash", "tester@example.com", Role.CUSTOMER, Provider.LOCAL);
+        account.setId(42L);
+        account.setIsActive(true);
+    }
+
+    @Test
+    void rotateIssuesSuccessorInSameFamily() {
+        RefreshToken current = stored(false);
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.of(current));
+        when(repository.markRotated(7L)).thenReturn(1);
+
+        RefreshTokenService.Rotation rotation = service.rotate("raw-token");
+
+        assertThat(rotation.account()).isSameAs(account);
+        assertThat(rotation.refreshToken()).isNotBlank().isNotEqualTo("raw-token");
+        verify(repository).save(any(RefreshToken.class));
+        verify(repository, never()).revokeFamily(anyString());
+    }
+
+    @Test
+    void rotatingARevokedTokenRevokesTheFamily() {
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.of(stored(true)));
+
+        assertThatThrownBy(() -> service.rotate("raw-token")).isInstanceOf(IllegalArgumentException.class);
+
+        verify(repository).revokeFamily(FAMILY);
+        verify(revocationService).revokeUser(42L);
+        verify(repository, never()).markRotated(any());
+        verify(repository, never()).save(any(RefreshToken.class));
+    }
+
+    // Two requests read the token before either rotated it; the one whose conditional update
+    // matches no row is treated as reuse and gets no successor
+    @Test
+    void losingTheRotationRaceIsTreatedAsReuse() {
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.of(stored(false)));
+        when(repository.markRotated(7L)).thenReturn(0);
+
+        assertThatThrownBy(() -> service.rotate("raw-token")).isInstanceOf(IllegalArgumentException.class);
+
+        verify(repository).revokeFamily(FAMILY);
+        verify(revocationService).revokeUser(42L);
+        verify(repository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void unknownTokenIsRejected() {
+        when(repository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.rotate("raw-token")).isInstanceOf(IllegalArgumentException.class);
+
+        verify(revocationService, never()).revokeUser(any());
+    }
+
+    private RefreshToken stored(boolean revoked) {
+        RefreshToken token = new RefreshToken("hash", account, FAMILY, LocalDateTime.now().plusDays(1));
+        ReflectionTestUtils.setField(token, "id", 7L);
+        token.setRevoked(revoked);
+        return token;
+    }
+}
@@ -0,0 +1,86 @@
+package com.alice.cosplaysuggestion.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alice.cosplaysuggestion.dto.TokenCutoff;
+import com.alice.cosplaysuggestion.model.DeniedToken;
+import com.alice.cosplaysuggestion.repository.AccountRepository;
+import com.alice.cosplaysuggestion.repository.DeniedTokenRepository;
+
+class TokenRevocationServiceTest {
+
+    private AccountRepository accountRepository;
+    private DeniedTokenRepository deniedTokenRepository;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        deniedTokenRepository = mock(DeniedTokenRepository.class);
+        service = new TokenRevocationService(accountRepository, deniedTokenRepository);
+        ReflectionTestUtils.setField(service, "jwtExpirationMs", 900_000L);
+    }
+
+    @Test
+    void revokeUserPersistsCutoffAndRejectsTokensUpToIt() {
+        long before = System.currentTimeMillis();
+        service.revokeUser(42L);
+
+        ArgumentCaptor<Long> cutoff = ArgumentCaptor.forClass(Long.class);
+        verify(accountRepository).revokeTokensBefore(eq(42L), cutoff.capture());
+        assertThat(cutoff.getValue()).isGreaterThanOrEqualTo(before);
+        // Inclusive: a token minted in the same millisecond as the revocation is rejected
+        assertThat(service.isRevoked(42L, cutoff.getValue())).isTrue();
+        assertThat(service.isRevoked(42L, cutoff.getValue() + 1)).isFalse();
+        assertThat(service.isRevoked(7L, before)).isFalse();
+    }
+
+    @Test
+    void denyTokenPersistsUnexpiredTokensOnly() {
+        long now = System.currentTimeMillis() / 1000;
+        service.denyToken("live", now + 60);
+        service.denyToken("expired", now - 1);
+
+        ArgumentCaptor<DeniedToken> saved = ArgumentCaptor.forClass(DeniedToken.class);
+        verify(deniedTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getJti()).isEqualTo("live");
+        assertThat(service.isDenied("live")).isTrue();
+        assertThat(service.isDenied("expired")).isFalse();
+    }
+
+    @Test
+    void loadRestoresPersistedRevocationsAfterRestart() {
+        long cutoff = System.currentTimeMillis() - 1000;
+        long exp = System.currentTimeMillis() / 1000 + 600;
+        when(accountRepository.findTokenCutoffsAfter(anyLong())).thenReturn(List.of(new TokenCutoff(42L, cutoff)));
+        when(deniedTokenRepository.findByExpiresAtGreaterThan(anyLong())).thenReturn(List.of(new DeniedToken("jti-1", exp)));
+
+        service.load();
+
+        assertThat(service.isRevoked(42L, cutoff - 5000)).isTrue();
+        assertThat(service.isRevoked(42L, cutoff + 1)).isFalse();
+        assertThat(service.isDenied("jti-1")).isTrue();
+    }
+
+    @Test
+    void purgeDropsExpiredDenialsFromTheDatabase() {
+        service.purgeExpired();
+
+        verify(deniedTokenRepository).deleteExpired(anyLong());
+        verify(accountRepository, never()).revokeTokensBefore(any(), any());
+    }
+}
@@ -0,0 +1,80 @@
+package com.alice.cosplaysuggestion.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 20_000;
+    private static final double FPP = 0.01;
+
+    @Test
+    void neverReportsAnAddedValueAsAbsent() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FPP);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).as("user%d", i).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredBound() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FPP);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.add("taken-" + i);
+        }
+
+        int probes = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("free-" + i)) {
+                falsePositives++;
+            }
+        }
+        // Sized for 1%; allow slack for the hash, not for an order of magnitude
+        assertThat((double) falsePositives / probes).isLessThan(FPP * 1.5);
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThat(filter.bitSize()).isGreaterThanOrEqualTo((long) (INSERTIONS * 9.58));
+    }
+
+    @Test
+    void concurrentAddsDoNotLoseBits() throws Exception {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FPP);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = offset; i < INSERTIONS; i += 4) {
+                        filter.add("name-" + i);
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("name-" + i)).as("name-%d", i).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThatThrownBy(() -> new BloomFilter(0, FPP)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(10, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
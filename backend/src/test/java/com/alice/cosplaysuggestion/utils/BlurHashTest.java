@@ -0,0 +1,76 @@
+package com.alice.cosplaysuggestion.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class BlurHashTest {
+
+    private static final String CHARS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private static int[] solid(int rgb, int width, int height) {
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, rgb);
+        return pixels;
+    }
+
+    private static int decode83(String s) {
+        int value = 0;
+        for (char c : s.toCharArray()) {
+            value = value * 83 + CHARS.indexOf(c);
+        }
+        return value;
+    }
+
+    @Test
+    void encodesSolidColoursToKnownHashes() {
+        // A single DC component is the average colour as 0xRRGGBB in four base83 digits
+        assertThat(BlurHash.encode(solid(0xFFFFFF, 8, 8), 8, 8, 1, 1)).isEqualTo("00TSUA");
+        assertThat(BlurHash.encode(solid(0x000000, 8, 8), 8, 8, 1, 1)).isEqualTo("000000");
+        assertThat(BlurHash.encode(solid(0xFF0000, 8, 8), 8, 8, 1, 1)).isEqualTo("00TI:j");
+    }
+
+    @Test
+    void headerEncodesComponentCountsAndLength() {
+        String hash = BlurHash.encode(solid(0x336699, 32, 24), 32, 24, 4, 3);
+
+        assertThat(hash).hasSize(4 + 2 * 4 * 3);
+        assertThat(decode83(hash.substring(0, 1))).isEqualTo((4 - 1) + (3 - 1) * 9);
+        assertThat(decode83(hash.substring(2, 6))).isEqualTo(0x336699);
+    }
+
+    @Test
+    void firstHorizontalComponentFollowsTheGradient() {
+        int width = 32;
+        int height = 8;
+        int[] darkToLight = new int[width * height];
+        int[] lightToDark = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = x * 255 / (width - 1);
+                darkToLight[y * width + x] = (v << 16) | (v << 8) | v;
+                lightToDark[y * width + x] = ((255 - v) << 16) | ((255 - v) << 8) | (255 - v);
+            }
+        }
+
+        // AC digits hold (r * 19 + g) * 19 + b with 9 as zero; the red quantum is the leading factor
+        int rising = decode83(BlurHash.encode(darkToLight, width, height, 4, 3).substring(6, 8)) / (19 * 19);
+        int falling = decode83(BlurHash.encode(lightToDark, width, height, 4, 3).substring(6, 8)) / (19 * 19);
+        assertThat(rising).isLessThan(9);
+        assertThat(falling).isGreaterThan(9);
+    }
+
+    @Test
+    void rejectsOutOfRangeComponents() {
+        assertThatThrownBy(() -> BlurHash.encode(solid(0, 4, 4), 4, 4, 0, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BlurHash.encode(solid(0, 4, 4), 4, 4, 4, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BlurHash.encode(new int[3], 4, 4, 4, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,135 @@
+package com.alice.cosplaysuggestion.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class MediaFileSenderTest {
+
+    private static final long MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private final MediaFileSender sender = new MediaFileSender();
+    private Path file;
+
+    @BeforeEach
+    void writeFile() throws Exception {
+        file = dir.resolve("clip.mp4");
+        Files.writeString(file, "0123456789", StandardCharsets.US_ASCII);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(MODIFIED));
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        sender.send(request, response, file, 60);
+        return response;
+    }
+
+    private static MockHttpServletRequest get(String name, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/clip.mp4");
+        if (name != null) {
+            request.addHeader(name, value);
+        }
+        return request;
+    }
+
+    private String etag() throws Exception {
+        return send(get(null, null)).getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void servesSatisfiableRangeAsPartialContent() throws Exception {
+        MockHttpServletResponse response = send(get(HttpHeaders.RANGE, "bytes=2-4"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-4/10");
+        assertThat(response.getContentAsString()).isEqualTo("234");
+    }
+
+    @Test
+    void servesSuffixAndOpenEndedRanges() throws Exception {
+        assertThat(send(get(HttpHeaders.RANGE, "bytes=-3")).getContentAsString()).isEqualTo("789");
+        assertThat(send(get(HttpHeaders.RANGE, "bytes=7-")).getContentAsString()).isEqualTo("789");
+        assertThat(send(get(HttpHeaders.RANGE, "bytes=8-100")).getHeader(HttpHeaders.CONTENT_RANGE))
+                .isEqualTo("bytes 8-9/10");
+    }
+
+    @Test
+    void ignoresInvalidRangesAndServesWholeFile() throws Exception {
+        for (String range : new String[] { "bytes=5-3", "bytes=abc", "bytes=1-2,4-5", "items=0-1", "bytes=--1", "bytes=+1-2" }) {
+            MockHttpServletResponse response = send(get(HttpHeaders.RANGE, range));
+
+            assertThat(response.getStatus()).as(range).isEqualTo(200);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).as(range).isNull();
+            assertThat(response.getContentAsString()).as(range).isEqualTo("0123456789");
+        }
+    }
+
+    @Test
+    void rejectsRangeStartingBeyondEnd() throws Exception {
+        MockHttpServletResponse response = send(get(HttpHeaders.RANGE, "bytes=10-12"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void honoursRangeOnlyWhenIfRangeMatches() throws Exception {
+        MockHttpServletRequest current = get(HttpHeaders.RANGE, "bytes=0-1");
+        current.addHeader(HttpHeaders.IF_RANGE, etag());
+        assertThat(send(current).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest stale = get(HttpHeaders.RANGE, "bytes=0-1");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse full = send(stale);
+        assertThat(full.getStatus()).isEqualTo(200);
+        assertThat(full.getContentAsString()).isEqualTo("0123456789");
+
+        MockHttpServletRequest dated = get(HttpHeaders.RANGE, "bytes=0-1");
+        dated.addHeader(HttpHeaders.IF_RANGE, MODIFIED);
+        assertThat(send(dated).getStatus()).isEqualTo(206);
+
+        // If-Range compares strongly, so a weak tag never allows a partial response
+        MockHttpServletRequest weak = get(HttpHeaders.RANGE, "bytes=0-1");
+        weak.addHeader(HttpHeaders.IF_RANGE, "W/" + etag());
+        assertThat(send(weak).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void answersMatchingValidatorsWithNotModified() throws Exception {
+        String etag = etag();
+
+        MockHttpServletResponse byTag = send(get(HttpHeaders.IF_NONE_MATCH, "W/" + etag));
+        assertThat(byTag.getStatus()).isEqualTo(304);
+        assertThat(byTag.getContentAsByteArray()).isEmpty();
+
+        assertThat(send(get(HttpHeaders.IF_NONE_MATCH, "\"other\"")).getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest byDate = get(null, null);
+        byDate.addHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED);
+        assertThat(send(byDate).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void marksOnlyHashNamedFilesImmutable() throws Exception {
+        assertThat(send(get(null, null)).getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("public, max-age=60");
+
+        Path hashed = dir.resolve("a".repeat(64) + ".mp4");
+        Files.copy(file, hashed);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        sender.send(get(null, null), response, hashed, 60);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+    }
+}
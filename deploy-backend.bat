@@ -44,7 +44,7 @@ if %ERRORLEVEL% neq 0 (
 )
 
 echo ✅ Deployment completed!
-echo 🌐 Backend should be running at: http://%EC2_IP%:8080
+echo 🌐 Backend should be running at: http://%EC2_IP%/api (via nginx)
 echo 📊 Check status: ssh -i %KEY_FILE% %EC2_USER%@%EC2_IP% "docker ps"
 
 pause
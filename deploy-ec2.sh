@@ -49,7 +49,7 @@ echo "📊 Container status:"
 docker ps
 
 echo "🌐 Application should be running at:"
-echo "   Backend API: http://$(curl -s http://169.254.169.254/latest/meta-data/public-ipv4):8080"
+echo "   Backend API (via nginx): http://$(curl -s http://169.254.169.254/latest/meta-data/public-ipv4)/api"
 echo "   Nginx: http://$(curl -s http://169.254.169.254/latest/meta-data/public-ipv4)"
 
 echo "📋 To check logs:"